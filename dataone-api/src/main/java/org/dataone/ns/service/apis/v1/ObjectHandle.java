@@ -0,0 +1,53 @@
+package org.dataone.ns.service.apis.v1;
+
+import java.util.function.Supplier;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Suppliers;
+import org.dataone.ns.service.exceptions.NotFound;
+import org.dataone.ns.service.exceptions.ServiceFailure;
+import org.dataone.ns.service.types.v1.Identifier;
+import org.dataone.ns.service.types.v1.SystemMetadata;
+
+/**
+ * An object resolved once and then used for all the operations of a single request, so that neither the object nor
+ * its system metadata are looked up more than once.
+ * <p>
+ * Handles are not intended to outlive the request they were resolved for, since the object they represent can be
+ * modified by later requests.
+ */
+public interface ObjectHandle {
+
+  /**
+   * @return the identifier the object was resolved from
+   */
+  Identifier getIdentifier();
+
+  /**
+   * Gets the system metadata of the object, which is loaded on first use only.
+   *
+   * @throws NotFound if the DataONE object is not present on this node
+   * @throws ServiceFailure if the system is unable to load the system metadata
+   */
+  SystemMetadata getSystemMetadata();
+
+  /**
+   * Creates a handle that loads the system metadata from the given supplier on first use only.
+   */
+  static ObjectHandle of(Identifier identifier, Supplier<SystemMetadata> systemMetadata) {
+    Preconditions.checkNotNull(identifier, "An identifier must be provided");
+    Preconditions.checkNotNull(systemMetadata, "A system metadata supplier must be provided");
+    com.google.common.base.Supplier<SystemMetadata> memoized = Suppliers.memoize(systemMetadata::get);
+    return new ObjectHandle() {
+      @Override
+      public Identifier getIdentifier() {
+        return identifier;
+      }
+
+      @Override
+      public SystemMetadata getSystemMetadata() {
+        return memoized.get();
+      }
+    };
+  }
+}
@@ -0,0 +1,143 @@
+package org.dataone.ns.service.types.v1;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.URL;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.xml.XMLConstants;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+
+import org.xml.sax.SAXException;
+
+/**
+ * Reusable JAXB marshallers and unmarshallers bound to a single {@link JAXBContext}.
+ * <p>
+ * The context is threadsafe, but the marshallers and unmarshallers it creates are not, so they are kept one per
+ * thread instead of being created for every document.
+ */
+@ThreadSafe
+public final class JaxbPool {
+
+  // most system metadata documents fit in this without the buffer having to grow
+  private static final int INITIAL_BUFFER_SIZE = 4096;
+
+  private final JAXBContext context;
+  // validates the documents written, reading is not validated
+  @Nullable
+  private final Schema schema;
+  private final ThreadLocal<Marshaller> marshallers;
+  private final ThreadLocal<Unmarshaller> unmarshallers;
+
+  private JaxbPool(JAXBContext context, @Nullable Schema schema) {
+    this.context = context;
+    this.schema = schema;
+    marshallers = ThreadLocal.withInitial(this::newMarshaller);
+    unmarshallers = ThreadLocal.withInitial(this::newUnmarshaller);
+  }
+
+  /**
+   * @param types the classes to be recognized by the underlying context
+   * @throws IllegalStateException if the JAXBContext cannot be created
+   */
+  public static JaxbPool newInstance(Class<?>... types) {
+    return newInstance(null, types);
+  }
+
+  /**
+   * @param schema which the marshalled documents are validated against, so that invalid documents are never written
+   * @param types the classes to be recognized by the underlying context
+   * @throws IllegalStateException if the JAXBContext cannot be created
+   */
+  public static JaxbPool newInstance(@Nullable Schema schema, Class<?>... types) {
+    try {
+      return new JaxbPool(JAXBContext.newInstance(types), schema);
+    } catch (JAXBException e) {
+      throw new IllegalStateException("Unable to create the JAXBContext", e);
+    }
+  }
+
+  /**
+   * Loads the DataONE types schema bundled with this module.
+   *
+   * @throws IllegalStateException if the schema cannot be read
+   */
+  public static Schema dataoneTypesSchema() {
+    try {
+      return SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI)
+        .newSchema(JaxbPool.class.getResource("/dataoneTypes.xsd"));
+    } catch (SAXException e) {
+      throw new IllegalStateException("Unable to read the DataONE types schema", e);
+    }
+  }
+
+  private Marshaller newMarshaller() {
+    try {
+      Marshaller marshaller = context.createMarshaller();
+      marshaller.setSchema(schema);
+      return marshaller;
+    } catch (JAXBException e) {
+      throw new IllegalStateException("Unable to create a Marshaller", e);
+    }
+  }
+
+  private Unmarshaller newUnmarshaller() {
+    try {
+      return context.createUnmarshaller();
+    } catch (JAXBException e) {
+      throw new IllegalStateException("Unable to create an Unmarshaller", e);
+    }
+  }
+
+  /**
+   * Writes the XML representation of the value into the stream, which is not closed.
+   *
+   * @throws javax.xml.bind.MarshalException if a schema is set and the document is not valid
+   */
+  public void marshal(Object value, OutputStream out) throws JAXBException {
+    marshallers.get().marshal(value, out);
+  }
+
+  /**
+   * Marshals the value into a buffer owned by the returned stream, without intermediate copies of the document.
+   */
+  public InputStream marshalToStream(Object value) throws JAXBException {
+    Buffer buffer = new Buffer();
+    marshal(value, buffer);
+    return buffer.toInputStream();
+  }
+
+  public <T> T unmarshal(InputStream in, Class<T> type) throws JAXBException {
+    return type.cast(unmarshallers.get().unmarshal(in));
+  }
+
+  public <T> T unmarshal(Reader reader, Class<T> type) throws JAXBException {
+    return type.cast(unmarshallers.get().unmarshal(reader));
+  }
+
+  public <T> T unmarshal(URL url, Class<T> type) throws JAXBException {
+    return type.cast(unmarshallers.get().unmarshal(url));
+  }
+
+  /**
+   * A byte array output stream that hands its internal array over to an input stream rather than copying it.
+   */
+  private static class Buffer extends ByteArrayOutputStream {
+
+    Buffer() {
+      super(INITIAL_BUFFER_SIZE);
+    }
+
+    InputStream toInputStream() {
+      return new ByteArrayInputStream(buf, 0, count);
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package org.dataone.ns.service.types.v1;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.xml.bind.MarshalException;
+
+import com.google.common.io.Resources;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class JaxbPoolTest {
+
+  private static final JaxbPool JAXB = JaxbPool.newInstance(SystemMetadata.class, Session.class);
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    SystemMetadata expected = JAXB.unmarshal(Resources.getResource("sysMeta.xml"), SystemMetadata.class);
+    try (InputStream in = JAXB.marshalToStream(expected)) {
+      assertEquals(expected, JAXB.unmarshal(in, SystemMetadata.class));
+    }
+  }
+
+  @Test
+  public void testValidatedRoundTrip() throws Exception {
+    JaxbPool validating = JaxbPool.newInstance(JaxbPool.dataoneTypesSchema(), SystemMetadata.class);
+    SystemMetadata expected = validating.unmarshal(Resources.getResource("sysMeta.xml"), SystemMetadata.class);
+    try (InputStream in = validating.marshalToStream(expected)) {
+      assertEquals(expected, validating.unmarshal(in, SystemMetadata.class));
+    }
+  }
+
+  @Test(expected = MarshalException.class)
+  public void testInvalidDocument() throws Exception {
+    JaxbPool validating = JaxbPool.newInstance(JaxbPool.dataoneTypesSchema(), SystemMetadata.class);
+    // the identifier, checksum and most of the other elements are required
+    validating.marshal(SystemMetadata.builder().withSerialVersion(BigInteger.ONE).build(), new ByteArrayOutputStream());
+  }
+
+  @Test(expected = ClassCastException.class)
+  public void testWrongType() throws Exception {
+    JAXB.unmarshal(Resources.getResource("session.xml"), SystemMetadata.class);
+  }
+
+  /**
+   * Each thread works with its own marshaller, so concurrent use must give the same results as serial use.
+   */
+  @Test
+  public void testConcurrentRoundTrips() throws Exception {
+    SystemMetadata expected = JAXB.unmarshal(Resources.getResource("sysMeta.xml"), SystemMetadata.class);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<SystemMetadata>> results = new ArrayList<>();
+      for (int i = 0; i < 100; i++) {
+        results.add(executor.submit((Callable<SystemMetadata>) () -> {
+          try (InputStream in = JAXB.marshalToStream(expected)) {
+            return JAXB.unmarshal(in, SystemMetadata.class);
+          }
+        }));
+      }
+      for (Future<SystemMetadata> result : results) {
+        assertEquals(expected, result.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
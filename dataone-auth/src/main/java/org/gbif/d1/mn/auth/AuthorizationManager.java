@@ -2,6 +2,7 @@ package org.gbif.d1.mn.auth;
 
 import javax.servlet.http.HttpServletRequest;
 
+import org.dataone.ns.service.apis.v1.ObjectHandle;
 import org.dataone.ns.service.exceptions.InsufficientResources;
 import org.dataone.ns.service.exceptions.NotAuthorized;
 import org.dataone.ns.service.exceptions.NotFound;
@@ -62,6 +63,12 @@ public interface AuthorizationManager {
    */
   Session checkIsAuthorized(Session session, String identifier, Permission permission);
 
+  /**
+   * Has the session a particular permission on this object?
+   * The system metadata of the object is loaded through the handle, so it can be reused for the rest of the request.
+   */
+  Session checkIsAuthorized(Session session, ObjectHandle object, Permission permission);
+
   /**
    * Has the session a particular permission on a object represented by this metadata?
    */
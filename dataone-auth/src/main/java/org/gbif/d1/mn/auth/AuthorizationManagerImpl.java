@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import javax.servlet.http.HttpServletRequest;
@@ -12,16 +13,15 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import org.dataone.ns.service.apis.v1.cn.CoordinatingNode;
+import org.dataone.ns.service.apis.v1.ObjectHandle;
 import org.dataone.ns.service.apis.v1.SystemMetadataProvider;
 import org.dataone.ns.service.exceptions.NotAuthorized;
 import org.dataone.ns.service.exceptions.NotFound;
 import org.dataone.ns.service.exceptions.ServiceFailure;
-import org.dataone.ns.service.types.v1.AccessPolicy;
-import org.dataone.ns.service.types.v1.AccessRule;
 import org.dataone.ns.service.types.v1.Identifier;
 import org.dataone.ns.service.types.v1.Node;
+import org.dataone.ns.service.types.v1.NodeList;
 import org.dataone.ns.service.types.v1.NodeReference;
-import org.dataone.ns.service.types.v1.NodeType;
 import org.dataone.ns.service.types.v1.Permission;
 import org.dataone.ns.service.types.v1.Service;
 import org.dataone.ns.service.types.v1.ServiceMethodRestriction;
@@ -54,6 +54,8 @@ final class AuthorizationManagerImpl implements AuthorizationManager {
   private final CertificateUtils certificateUtils;
   //Keeps a map from MethodName to trusted subjects for fast lookup
   private final Map<String, List<String>> restrictions;
+  // subjects of the nodes in the latest list from the coordinating node
+  private final AtomicReference<NodeRegistry> registry = new AtomicReference<>(NodeRegistry.EMPTY);
 
   @VisibleForTesting
   AuthorizationManagerImpl(SystemMetadataProvider systemMetadataProvider, CoordinatingNode cn, Node self) {
@@ -69,18 +71,31 @@ final class AuthorizationManagerImpl implements AuthorizationManager {
    */
   AuthorizationManagerImpl(SystemMetadataProvider systemMetadataProvider, CoordinatingNode cn, Node self,
     List<String> subjectInfoExtensionOIDs) {
+    this(systemMetadataProvider, cn, self,
+         CertificateUtils.newInstance(Preconditions.checkNotNull(subjectInfoExtensionOIDs,
+           "The OIDs to the subject info extensions within certificates is required")));
+  }
+
+  /**
+   * @param systemMetadataProvider The provider of system metadata
+   * @param cn The coordinating node
+   * @param self The Node object representing ourselves as a running Node in DataONE
+   * @param certificateUtils Reads the sessions of the requests, shared with the rest of the application so that its
+   *        session cache is too
+   */
+  AuthorizationManagerImpl(SystemMetadataProvider systemMetadataProvider, CoordinatingNode cn, Node self,
+    CertificateUtils certificateUtils) {
     Preconditions.checkNotNull(systemMetadataProvider, "The systemMetadataProvider is required");
     Preconditions.checkNotNull(cn, "Access to a coordinating node (e.g. a ws client) is required");
     Preconditions.checkNotNull(self, "The Node representing the running installation is required");
     Preconditions.checkNotNull(self.getSubject(), "The subject identifiers for this running node are required");
     Preconditions.checkState(!self.getSubject().isEmpty(),
       "The subject identifiers for this running node are required to be populated");
-    Preconditions.checkNotNull(subjectInfoExtensionOIDs,
-      "The OIDs to the subject info extensions within certificates is required");
+    Preconditions.checkNotNull(certificateUtils, "The certificate utils are required");
 
     this.systemMetadataProvider = systemMetadataProvider;
     this.cn = cn;
-    certificateUtils = CertificateUtils.newInstance(subjectInfoExtensionOIDs);
+    this.certificateUtils = certificateUtils;
     selfSubjects = Subjects.fromNode(self);
 
     restrictions = self.getServices().getService()
@@ -112,6 +127,23 @@ final class AuthorizationManagerImpl implements AuthorizationManager {
     LOG.debug("Checking permission for {}", id);
     SystemMetadata sysMetadata = systemMetadataProvider.getSystemMetadata(session,
                                                                           Identifier.builder().withValue(id).build());
+    return checkIsAuthorized(session, id, sysMetadata, permission);
+  }
+
+  @Override
+  public Session checkIsAuthorized(Session session, ObjectHandle object, Permission permission) {
+    Preconditions.checkNotNull(session, "A session must be provided");
+    Preconditions.checkNotNull(object, "An object must be provided");
+    Preconditions.checkNotNull(permission, "A permission must be provided");
+
+    LOG.debug("Checking permission for {}", object.getIdentifier().getValue());
+    return checkIsAuthorized(session, object.getIdentifier().getValue(), object.getSystemMetadata(), permission);
+  }
+
+  /**
+   * Throws NotFound if there is no system metadata and NotAuthorized if it doesn't grant the permission.
+   */
+  private Session checkIsAuthorized(Session session, String id, SystemMetadata sysMetadata, Permission permission) {
     if (sysMetadata == null) {
       throw new NotFound("Cannot perform action since object not found", id);
     }
@@ -129,29 +161,38 @@ final class AuthorizationManagerImpl implements AuthorizationManager {
   public Session checkIsAuthorized(Session session, Permission permission) {
     Preconditions.checkNotNull(session, "A session must be provided");
     Preconditions.checkNotNull(permission, "A permission must be provided");
-    if (selfSubjects.contains(Subjects.primary(session))) {
+    String primary = Subjects.primary(session);
+    if (selfSubjects.contains(primary)) {
       return session;
     }
-    // call the coordinating node and get a list of all nodes including all their alias subjects
-    // if the original request comes from a CN then it is granted
-    try {
-      for (Node node : cn.listNodes().getNode()) {
-        if (NodeType.CN == node.getType() && contains(node.getSubject(), session.getSubject().toString())) {
-          return session;
-        }
-      }
-    } catch (ServiceFailure e) {
-      throw new ServiceFailure("Unable to call the CN for the list of nodes", e);
+    // if the original request comes from a CN (or any of its alias subjects) then it is granted
+    if (nodeRegistry().isCN(primary)) {
+      return session;
     }
-    LOG.warn("Session with subject {} tried to access a restricted resource", session.getSubject().getValue());
+    LOG.warn("Session with subject {} tried to access a restricted resource", primary);
     throw new NotAuthorized("Only coordinating nodes are permitted to perform this action");
   }
 
   /**
-   * @return true if subjects contains the target
+   * Gets the list of all nodes including all their alias subjects from the coordinating node, reindexing it only when
+   * the coordinating node has refreshed it.
+   *
+   * @throws ServiceFailure If it is not possible to connect to the coordinating node
    */
-  private static boolean contains(List<Subject> subjects, final String target) {
-    return subjects.stream().anyMatch(subject -> target.equals(subject.getValue()));
+  private NodeRegistry nodeRegistry() {
+    NodeList nodes;
+    try {
+      nodes = cn.listNodes();
+    } catch (ServiceFailure e) {
+      throw new ServiceFailure("Unable to call the CN for the list of nodes", e);
+    }
+    NodeRegistry current = registry.get();
+    if (current.isBuiltFrom(nodes)) {
+      return current;
+    }
+    NodeRegistry rebuilt = new NodeRegistry(nodes);
+    registry.set(rebuilt);
+    return rebuilt;
   }
 
   /**
@@ -223,78 +264,39 @@ final class AuthorizationManagerImpl implements AuthorizationManager {
       return true;
     }
 
-    // call the coordinating node and get a list of all nodes including all their alias subjects
     // if the original request comes from a CN or the named authoritative MN then it is granted
-    try {
-      for (Node node : cn.listNodes().getNode()) {
-        if (NodeType.CN == node.getType()
-          && contains(node.getSubject(), subject)) {
-          LOG.debug("Request received from a known alias[{}] of a CN[{}]", subject, node.getSubject());
-          return true;
-        } else if (NodeType.MN == node.getType()
-          && contains(node.getSubject(), authoritativeMN)
-          && contains(node.getSubject(), subject)) {
-          LOG.debug("Request received from a known alias[{}] of the listed authoritative MN[{}]", subject,
-                    node.getSubject());
-          return true;
-        }
-      }
-    } catch (ServiceFailure e) {
-      throw new ServiceFailure("Unable to call the CN for the list of nodes", e);
+    NodeRegistry nodes = nodeRegistry();
+    if (nodes.isCN(subject)) {
+      LOG.debug("Request received from a known alias[{}] of a CN", subject);
+      return true;
+    } else if (nodes.isSameMN(subject, authoritativeMN)) {
+      LOG.debug("Request received from a known alias[{}] of the listed authoritative MN[{}]", subject, authoritativeMN);
+      return true;
     }
     return false;
   }
 
   @Override
   public boolean isCNNode(String subject) {
-
-    // call the coordinating node and get a list of all nodes including all their alias subjects
-    // if the original request comes from a CN or the named authoritative MN then it is granted
-    try {
-      for (Node node : cn.listNodes().getNode()) {
-        if (NodeType.CN == node.getType()
-            && contains(node.getSubject(), subject)) {
-          LOG.debug("Request received from a known alias[{}] of a CN[{}]", subject, node.getSubject());
-          return true;
-        }
-      }
-    } catch (ServiceFailure e) {
-      throw new ServiceFailure("Unable to call the CN for the list of nodes", e);
+    // any of the alias subjects of a CN identifies it
+    if (nodeRegistry().isCN(subject)) {
+      LOG.debug("Request received from a known alias[{}] of a CN", subject);
+      return true;
     }
     return false;
   }
 
   /**
    * Inspects the system metadata access rules and returns true if a subject passed in is explicitly granted the
-   * permission sought.
+   * permission sought. The rules are compiled once per access policy, see {@link CompiledAccessPolicy}.
    */
   @VisibleForTesting
   static boolean isGrantedByAccessPolicy(SystemMetadata sysMetadata, Set<String> subjects, Permission permission) {
-    AccessPolicy accessPolicy = sysMetadata.getAccessPolicy();
-    if (accessPolicy != null) {
-      for (AccessRule rule : accessPolicy.getAllow()) {
-
-        // rules cascade such that CHANGE grants WRITE automatically and WRITE grants READ
-        // expand the rule permissions to explicitly list all permissions
-        Set<Permission> permissions = Permissions.expand(rule.getPermission());
-
-        // verify the rule covers the level of access requested first
-        if (permissions.contains(permission)) {
-          for (Subject subject : rule.getSubject()) {
-            // check if a subject passed in is explicitly named in the rule
-            if (subject.getValue() != null && subjects.contains(subject.getValue())) {
-              LOG.debug("An explicit access rule has granted {} permission to subject[{}]", permission,
-                subject.getValue());
-              return true;
-            }
-          }
-
-        } else {
-          LOG.debug("{} not granted by rule[{}]", permission, rule);
-        }
-      }
+    boolean granted = CompiledAccessPolicy.of(sysMetadata.getAccessPolicy()).isGranted(subjects, permission);
+    if (!granted) {
+      LOG.debug("{} not granted by the access policy", permission);
     }
-    return false;
+    return granted;
   }
 
   /**
@@ -22,4 +22,12 @@ public final class AuthorizationManagers {
     CoordinatingNode cn, Node self, List<String> subjectInfoExtensionOIDs) {
     return new AuthorizationManagerImpl(systemMetadataProvider, cn, self, subjectInfoExtensionOIDs);
   }
+
+  /**
+   * @param certificateUtils reads the sessions of the requests, shared with the other users of client certificates
+   */
+  public static AuthorizationManager newAuthorizationManager(SystemMetadataProvider systemMetadataProvider,
+    CoordinatingNode cn, Node self, CertificateUtils certificateUtils) {
+    return new AuthorizationManagerImpl(systemMetadataProvider, cn, self, certificateUtils);
+  }
 }
@@ -12,20 +12,26 @@ import java.security.NoSuchProviderException;
 import java.security.PublicKey;
 import java.security.SignatureException;
 import java.security.cert.Certificate;
+import java.security.cert.CertificateEncodingException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
+import javax.annotation.concurrent.Immutable;
 import javax.annotation.concurrent.ThreadSafe;
 import javax.security.auth.x500.X500Principal;
 import javax.servlet.http.HttpServletRequest;
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
-import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import org.bouncycastle.asn1.ASN1InputStream;
 import org.bouncycastle.asn1.DERObject;
 import org.bouncycastle.asn1.DEROctetString;
@@ -33,6 +39,7 @@ import org.bouncycastle.asn1.DERUTF8String;
 import org.dataone.ns.service.exceptions.InvalidToken;
 import org.dataone.ns.service.exceptions.NotAuthorized;
 import org.dataone.ns.service.types.v1.Group;
+import org.dataone.ns.service.types.v1.JaxbPool;
 import org.dataone.ns.service.types.v1.Session;
 import org.dataone.ns.service.types.v1.Subject;
 import org.dataone.ns.service.types.v1.SubjectInfo;
@@ -42,6 +49,9 @@ import org.slf4j.LoggerFactory;
 /**
  * Utilities to deal with X509 certificates to produce the represented Session.
  * <p>
+ * Sessions are cached by the SHA-256 fingerprint of the certificate, so that clients presenting the same certificate
+ * on every call don't have it parsed again. A cached session expires with the certificate, or after a time to live.
+ * <p>
  * Methods marked with @VisibleForTesting are not intended to be used outside of this class.
  */
 @ThreadSafe
@@ -49,7 +59,9 @@ public final class CertificateUtils {
 
   private static final Logger LOG = LoggerFactory.getLogger(CertificateUtils.class);
   private static final String REQ_X509CERTIFICATE = "javax.servlet.request.X509Certificate";
-  private static final JAXBContext SUBJECT_INFO_CONTEXT = initJaxbContext(); // confirmed threadsafe
+  private static final JaxbPool SUBJECT_INFO_JAXB = JaxbPool.newInstance(SubjectInfo.class);
+  private static final long DEFAULT_MAX_SESSIONS = 10000;
+  private static final long DEFAULT_SESSION_TTL_MINUTES = 60;
 
   public static final Session PUBLIC_SESSION = Session.builder()
                                                   .withSubject(Subject.builder().withValue("public").build())
@@ -60,30 +72,46 @@ public final class CertificateUtils {
                                                   .build();
 
   private final List<String> extensionOIDs;
+  // certificate fingerprint -> session
+  private final Cache<HashCode, CachedSession> sessions;
 
   // not for instantiation by others
-  private CertificateUtils(List<String> extensionOIDs) {
+  private CertificateUtils(List<String> extensionOIDs, long maxSessions, long sessionTtl, TimeUnit unit) {
     this.extensionOIDs = ImmutableList.copyOf(extensionOIDs);
+    sessions = CacheBuilder.newBuilder().maximumSize(maxSessions).expireAfterWrite(sessionTtl, unit).recordStats()
+      .build();
   }
 
   /**
    * @return an instance using the {@link AuthorizationManager#DEFAULT_OID_SUBJECT_INFO} only
    */
   public static CertificateUtils newInstance() {
-    return new CertificateUtils(ImmutableList.of(AuthorizationManager.DEFAULT_OID_SUBJECT_INFO));
+    return newInstance(ImmutableList.of(AuthorizationManager.DEFAULT_OID_SUBJECT_INFO));
   }
 
   public static CertificateUtils newInstance(List<String> extensionOIDs) {
+    return newInstance(extensionOIDs, DEFAULT_MAX_SESSIONS, DEFAULT_SESSION_TTL_MINUTES, TimeUnit.MINUTES);
+  }
+
+  /**
+   * @param maxSessions number of sessions cached, zero disables the cache
+   * @param sessionTtl time after which a cached session is built again, even if its certificate is still valid
+   */
+  public static CertificateUtils newInstance(List<String> extensionOIDs, long maxSessions, long sessionTtl,
+                                             TimeUnit unit) {
     Preconditions.checkNotNull(extensionOIDs, "Extensions OIDs are required");
-    return new CertificateUtils(extensionOIDs);
+    return new CertificateUtils(extensionOIDs, maxSessions, sessionTtl, unit);
   }
 
-  private static JAXBContext initJaxbContext() {
-    try {
-      return JAXBContext.newInstance(SubjectInfo.class);
-    } catch (JAXBException e) {
-      throw Throwables.propagate(e); // we are hosed
-    }
+  /**
+   * @return hits and misses of the session cache
+   */
+  public CacheStats getSessionCacheStats() {
+    return sessions.stats();
+  }
+
+  public long getSessionCacheSize() {
+    return sessions.size();
   }
 
   /**
@@ -121,7 +149,7 @@ public final class CertificateUtils {
     if (certs != null && certs.length == 1) {
       // session subject is the primary principle of the certificate
       X509Certificate x509Cert = (X509Certificate) certs[0];
-      return newSession(x509Cert);
+      return cachedSession(x509Cert);
     }
     if (certs != null && certs.length > 1) {
       LOG.debug("One certificate expected in the request");
@@ -139,7 +167,7 @@ public final class CertificateUtils {
     if (subjectInfoAsXMLString != null) {
       // not strictly required for a StringReader, but good practice
       try (StringReader reader = new StringReader(subjectInfoAsXMLString)) {
-        return (SubjectInfo) SUBJECT_INFO_CONTEXT.createUnmarshaller().unmarshal(reader);
+        return SUBJECT_INFO_JAXB.unmarshal(reader, SubjectInfo.class);
       }
     }
     return null;
@@ -180,6 +208,34 @@ public final class CertificateUtils {
     return decoded;
   }
 
+  /**
+   * Gets the session of the certificate from the cache, building it if the certificate hasn't been seen recently.
+   * Certificates that fail to give a session are never cached, so they fail every time.
+   */
+  @VisibleForTesting
+  Session cachedSession(X509Certificate x509Cert) {
+    HashCode fingerprint;
+    try {
+      fingerprint = Hashing.sha256().hashBytes(x509Cert.getEncoded());
+    } catch (CertificateEncodingException e) {
+      LOG.debug("Unable to fingerprint certificate, session not cached", e);
+      return newSession(x509Cert);
+    }
+    long now = System.currentTimeMillis();
+    CachedSession cached = sessions.getIfPresent(fingerprint);
+    if (cached != null && now < cached.notAfter) {
+      return cached.session;
+    }
+    Session session = newSession(x509Cert);
+    long notAfter = x509Cert.getNotAfter().getTime();
+    if (now < notAfter) {
+      sessions.put(fingerprint, new CachedSession(session, notAfter));
+    } else {
+      sessions.invalidate(fingerprint);
+    }
+    return session;
+  }
+
   /**
    * Builds the session from the certificate.
    *
@@ -227,4 +283,19 @@ public final class CertificateUtils {
 
     return session.build();
   }
+
+  /**
+   * A session and the expiry of its certificate.
+   */
+  @Immutable
+  private static final class CachedSession {
+
+    private final Session session;
+    private final long notAfter;
+
+    private CachedSession(Session session, long notAfter) {
+      this.session = session;
+      this.notAfter = notAfter;
+    }
+  }
 }
@@ -0,0 +1,109 @@
+package org.gbif.d1.mn.auth;
+
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import org.dataone.ns.service.types.v1.AccessPolicy;
+import org.dataone.ns.service.types.v1.AccessRule;
+import org.dataone.ns.service.types.v1.Permission;
+import org.dataone.ns.service.types.v1.Subject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An access policy compiled into the permissions granted to each subject, held as masks of permission bits with the
+ * hierarchical permissions already expanded.
+ * <p>
+ * Access policies are immutable and shared by the cached system metadata, so each is compiled once and kept for as
+ * long as it is in use. Checking a permission is then a few hash lookups.
+ */
+@Immutable
+final class CompiledAccessPolicy {
+
+  private static final Logger LOG = LoggerFactory.getLogger(CompiledAccessPolicy.class);
+
+  private static final CompiledAccessPolicy EMPTY = new CompiledAccessPolicy(ImmutableMap.<String, Integer>of());
+
+  // compiled policies of the access policies in use, weak keys compare policies by identity
+  private static final Cache<AccessPolicy, CompiledAccessPolicy> COMPILED =
+    CacheBuilder.newBuilder().weakKeys().build();
+
+  // subject -> mask of the permissions granted
+  private final ImmutableMap<String, Integer> grants;
+  // permissions granted to everybody through the public symbolic subject
+  private final int publicMask;
+
+  private CompiledAccessPolicy(ImmutableMap<String, Integer> grants) {
+    this.grants = grants;
+    publicMask = grants.getOrDefault(Subjects.PUBLIC_SUBJECT, 0);
+  }
+
+  /**
+   * @return the compiled form of the access policy, compiled only the first time the policy is seen
+   */
+  static CompiledAccessPolicy of(@Nullable AccessPolicy accessPolicy) {
+    if (accessPolicy == null) {
+      return EMPTY;
+    }
+    CompiledAccessPolicy compiled = COMPILED.getIfPresent(accessPolicy);
+    if (compiled == null) {
+      compiled = compile(accessPolicy);
+      COMPILED.put(accessPolicy, compiled);
+    }
+    return compiled;
+  }
+
+  @VisibleForTesting
+  static CompiledAccessPolicy compile(AccessPolicy accessPolicy) {
+    Map<String, Integer> grants = Maps.newHashMap();
+    for (AccessRule rule : accessPolicy.getAllow()) {
+      // rules cascade such that CHANGE grants WRITE automatically and WRITE grants READ
+      int mask = Permissions.expandMask(rule.getPermission());
+      if (mask != 0) {
+        for (Subject subject : rule.getSubject()) {
+          if (subject != null && subject.getValue() != null) {
+            grants.merge(subject.getValue(), mask, (a, b) -> a | b);
+          }
+        }
+      }
+    }
+    return grants.isEmpty() ? EMPTY : new CompiledAccessPolicy(ImmutableMap.copyOf(grants));
+  }
+
+  /**
+   * @return true if a subject passed in is explicitly granted the permission sought
+   */
+  boolean isGranted(Set<String> subjects, Permission permission) {
+    int bit = Permissions.bit(permission);
+    // the public subject is in every session, so PUBLIC READ needs no lookup at all
+    if ((publicMask & bit) != 0 && subjects.contains(Subjects.PUBLIC_SUBJECT)) {
+      LOG.debug("An access rule has granted {} permission to the public", permission);
+      return true;
+    }
+    // probe the smaller of the two
+    if (grants.size() <= subjects.size()) {
+      for (Map.Entry<String, Integer> grant : grants.entrySet()) {
+        if ((grant.getValue() & bit) != 0 && subjects.contains(grant.getKey())) {
+          LOG.debug("An explicit access rule has granted {} permission to subject[{}]", permission, grant.getKey());
+          return true;
+        }
+      }
+    } else {
+      for (String subject : subjects) {
+        Integer mask = grants.get(subject);
+        if (mask != null && (mask & bit) != 0) {
+          LOG.debug("An explicit access rule has granted {} permission to subject[{}]", permission, subject);
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+}
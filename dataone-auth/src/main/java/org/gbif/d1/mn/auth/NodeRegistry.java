@@ -0,0 +1,77 @@
+package org.gbif.d1.mn.auth;
+
+import java.util.Collections;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import org.dataone.ns.service.types.v1.Node;
+import org.dataone.ns.service.types.v1.NodeList;
+import org.dataone.ns.service.types.v1.NodeType;
+import org.dataone.ns.service.types.v1.Subject;
+
+/**
+ * The subjects of the nodes known to the coordinating node, indexed so that checking the identity of a subject is a
+ * hash lookup instead of a scan of every subject of every node.
+ * <p>
+ * A registry is built from a single {@link NodeList} and never changes, a new one is built when the list is refreshed.
+ */
+@Immutable
+final class NodeRegistry {
+
+  static final NodeRegistry EMPTY = new NodeRegistry(null);
+
+  // the list this was built from, only compared by identity
+  private final NodeList source;
+  // subjects of the coordinating nodes
+  private final ImmutableSet<String> cnSubjects;
+  // subject -> identifiers of the member nodes it belongs to
+  private final ImmutableSetMultimap<String, String> mnIdentifiers;
+
+  NodeRegistry(@Nullable NodeList source) {
+    this.source = source;
+    ImmutableSet.Builder<String> cns = ImmutableSet.builder();
+    ImmutableSetMultimap.Builder<String, String> mns = ImmutableSetMultimap.builder();
+    if (source != null) {
+      for (Node node : source.getNode()) {
+        for (Subject subject : node.getSubject()) {
+          if (subject == null || subject.getValue() == null) {
+            continue; // for safety
+          }
+          if (NodeType.CN == node.getType()) {
+            cns.add(subject.getValue());
+          } else if (NodeType.MN == node.getType() && node.getIdentifier() != null
+                     && node.getIdentifier().getValue() != null) {
+            mns.put(subject.getValue(), node.getIdentifier().getValue());
+          }
+        }
+      }
+    }
+    cnSubjects = cns.build();
+    mnIdentifiers = mns.build();
+  }
+
+  /**
+   * @return true if this was built from the very same node list instance
+   */
+  boolean isBuiltFrom(NodeList nodeList) {
+    return source == nodeList;
+  }
+
+  /**
+   * @return true if the subject is one of the subjects of a coordinating node
+   */
+  boolean isCN(@Nullable String subject) {
+    return subject != null && cnSubjects.contains(subject);
+  }
+
+  /**
+   * @return true if both subjects are subjects of the same member node, i.e. one is an alias of the other
+   */
+  boolean isSameMN(@Nullable String subject, String other) {
+    Preconditions.checkNotNull(other, "The other subject is required");
+    return subject != null && !Collections.disjoint(mnIdentifiers.get(subject), mnIdentifiers.get(other));
+  }
+}
@@ -30,4 +30,30 @@ final class Permissions {
     }
     return builder.build();
   }
+
+  /**
+   * @return the bit of the permission alone, as used in the masks of {@link #expandMask(Iterable)}
+   */
+  static int bit(Permission permission) {
+    return 1 << permission.ordinal();
+  }
+
+  /**
+   * Expands permissions as {@link #expand(Iterable)} does, returning them as a mask of their bits.
+   */
+  static int expandMask(Iterable<Permission> permissions) {
+    int mask = 0;
+    for (Permission p : permissions) {
+      if (p != null) {
+        mask |= bit(p);
+        if (Permission.WRITE == p) {
+          mask |= bit(Permission.READ);
+        }
+        if (Permission.CHANGE_PERMISSION == p) {
+          mask |= bit(Permission.WRITE) | bit(Permission.READ);
+        }
+      }
+    }
+    return mask;
+  }
 }
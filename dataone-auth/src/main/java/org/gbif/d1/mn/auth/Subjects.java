@@ -1,15 +1,20 @@
 package org.gbif.d1.mn.auth;
 
-import java.util.List;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 import org.dataone.ns.service.types.v1.Group;
 import org.dataone.ns.service.types.v1.Node;
@@ -36,6 +41,9 @@ final class Subjects {
   static final String AUTHENTICATED_SUBJECT = "authenticatedUser";
   static final String VERIFIED_SUBJECT = "verifiedUser";
 
+  // expanded subjects of the sessions in use, weak keys compare sessions by identity
+  private static final Cache<Session, ImmutableSet<String>> EXPANDED = CacheBuilder.newBuilder().weakKeys().build();
+
   // Not for instantiation
   private Subjects() {
   }
@@ -51,31 +59,31 @@ final class Subjects {
   }
 
   /**
-   * Recursive calling over the people list looking for the target identity. When found the person is added to the
-   * subjects, all groups they belong to are added and then we find any equivalent identities for them and start over
-   * until exhausted.
+   * Walks the equivalent identities starting from the target. Each identity visited is added to the subjects along
+   * with its groups, and the identities equivalent to it are queued until exhausted. Aliases can form long chains and
+   * cycles, so this is iterative and never visits an identity twice.
    */
-  private static void recurseAllPeople(List<Person> people, String target, Set<String> subjects,
-    Map<String, Set<String>> groupMembership) {
-    Preconditions.checkNotNull(people, "Cannot recurse over missing lists");
-    Preconditions.checkNotNull(target, "Cannot find a person if non specified");
-    Preconditions.checkNotNull(subjects, "Cannot append to subjects if missing");
-    Preconditions.checkNotNull(groupMembership, "Cannot find groups with no index");
-
-    LOG.debug("Recursing subject: {}", target);
-
-    // always ensure the target is stored [it may have no Person objects]
-    subjects.add(target);
-
-    // For safety: the model supports a membership on the group object in addition to on the person.
-    // The target might actually be an equivalent identity with no person object.
-    if (groupMembership.containsKey(target)) {
-      subjects.addAll(groupMembership.get(target));
-    }
-
-    for (Person person : people) {
-      if (person.getSubject() != null && target.equals(person.getSubject().getValue())) {
-
+  private static void expandPeople(SubjectInfo info, String target, Set<String> subjects) {
+    // index groups by membership and people by subject once for lookup later
+    Map<String, Set<String>> groupMembership = indexGroupMembership(info);
+    Multimap<String, Person> people = indexPeople(info);
+
+    Set<String> visited = Sets.newHashSet(target);
+    Deque<String> pending = new ArrayDeque<>();
+    pending.add(target);
+    while (!pending.isEmpty()) {
+      String identity = pending.poll();
+      LOG.debug("Expanding subject: {}", identity);
+
+      // always ensure the identity is stored [it may have no Person objects]
+      subjects.add(identity);
+
+      // For safety: the model supports a membership on the group object in addition to on the person.
+      // Add any group the identity is associated with here, noting that SubjectInfo can come from
+      // the certificate, so the generation of it is outside of our control.
+      subjects.addAll(groupMembership.getOrDefault(identity, ImmutableSet.of()));
+
+      for (Person person : people.get(identity)) {
         // add the symbolic subject if verified
         if (Boolean.TRUE.equals(person.isVerified())) {
           subjects.add(VERIFIED_SUBJECT);
@@ -86,18 +94,10 @@ final class Subjects {
           appendIfNotNull(group, subjects);
         }
 
-        // For safety again: the model supports a membership on the group object in addition to on the person.
-        // Add any group the subject is associated with here, noting that SubjectInfo can come from
-        // the certificate, so the generation of it is outside of our control.
-        if (groupMembership.containsKey(person.getSubject().getValue())) {
-          subjects.addAll(groupMembership.get(person.getSubject().getValue()));
-        }
-
-        // recurse into equivalent identities (aliases)
+        // queue the equivalent identities (aliases) not seen yet
         for (Subject alias : person.getEquivalentIdentity()) {
-          if (alias != null && alias.getValue() != null && !subjects.contains(alias.getValue())) {
-            // start over, this time using the alias
-            recurseAllPeople(people, alias.getValue(), subjects, groupMembership);
+          if (alias != null && alias.getValue() != null && visited.add(alias.getValue())) {
+            pending.add(alias.getValue());
           }
         }
       }
@@ -108,11 +108,27 @@ final class Subjects {
    * The session object holds a primary subject and can have extra information indicating alternative identities for the
    * subject and their groups. This returns all subjects that can be expanded upon for the principle subject
    * based on the session object provided.
+   * <p>
+   * Sessions are immutable and reused for as long as the client certificate is cached, so the expansion is done once
+   * per session and kept for as long as the session is in use.
    *
    * @return The subjects from the session in an immutable set
    */
   static ImmutableSet<String> allSubjects(Session session) {
     Preconditions.checkNotNull(session, "Session required to extract subjects");
+    ImmutableSet<String> subjects = EXPANDED.getIfPresent(session);
+    if (subjects == null) {
+      subjects = expand(session);
+      EXPANDED.put(session, subjects);
+    }
+    return subjects;
+  }
+
+  /**
+   * Expands the subjects of the session, see {@link #allSubjects(Session)}.
+   */
+  @VisibleForTesting
+  static ImmutableSet<String> expand(Session session) {
     // public symbolic subject is always added
     Set<String> subjects = Sets.newHashSet(PUBLIC_SUBJECT);
 
@@ -123,17 +139,11 @@ final class Subjects {
       appendIfNotNull(primary, subjects);
       subjects.add(AUTHENTICATED_SUBJECT);
 
-      // recurse into the subject info finding all groups, equivalent identities for the person (and their groups)
+      // walk the subject info finding all groups, equivalent identities for the person (and their groups)
       SubjectInfo info = session.getSubjectInfo();
-      if (info != null) {
-
-        // index groups by membership once for lookup later
-        Map<String, Set<String>> groupMembership = indexGroupMembership(info);
-
-        // recursively inspect the people adding groups and equivalent identities
-        recurseAllPeople(info.getPerson(), primary.getValue(), subjects, groupMembership);
+      if (info != null && primary.getValue() != null) {
+        expandPeople(info, primary.getValue(), subjects);
       }
-
     }
 
     return ImmutableSet.copyOf(subjects);
@@ -179,6 +189,22 @@ final class Subjects {
     return ImmutableMap.copyOf(index);
   }
 
+  /**
+   * Builds an index of the people by their subject, a subject may be described by more than one person.
+   */
+  @VisibleForTesting
+  static ImmutableListMultimap<String, Person> indexPeople(SubjectInfo info) {
+    ImmutableListMultimap.Builder<String, Person> index = ImmutableListMultimap.builder();
+    if (info != null) {
+      for (Person person : info.getPerson()) {
+        if (person.getSubject() != null && person.getSubject().getValue() != null) {
+          index.put(person.getSubject().getValue(), person);
+        }
+      }
+    }
+    return index.build();
+  }
+
   /**
    * @return The primary subject from the session or null
    */
@@ -1,10 +1,15 @@
 package org.gbif.d1.mn.auth;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import com.google.common.collect.ImmutableSet;
 import org.dataone.ns.service.apis.v1.cn.CoordinatingNode;
+import org.dataone.ns.service.apis.v1.ObjectHandle;
 import org.dataone.ns.service.apis.v1.SystemMetadataProvider;
+import org.dataone.ns.service.exceptions.NotAuthorized;
 import org.dataone.ns.service.exceptions.ServiceFailure;
 import org.dataone.ns.service.types.v1.Builders;
+import org.dataone.ns.service.types.v1.Identifier;
 import org.dataone.ns.service.types.v1.Node;
 import org.dataone.ns.service.types.v1.Permission;
 import org.dataone.ns.service.types.v1.Session;
@@ -13,9 +18,12 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -119,6 +127,29 @@ public class AuthorizationManagerTest {
     verify(cn, times(3)).listNodes(); // required a call to the CN
   }
 
+  /**
+   * Ensures CN only methods are granted to the CNs, reusing the node list index between calls.
+   */
+  @Test
+  public void testIsAuthorizedCNOnly() throws Exception {
+    when(cn.listNodes()).thenReturn(Builders.newNodeList("org/gbif/d1/mn/auth/nodeList-1.xml"));
+    AuthorizationManagerImpl auth = new AuthorizationManagerImpl(systemMetadataProvider, cn, selfNode);
+
+    // session-9.xml represents a CN
+    Session session = Builders.newSession("org/gbif/d1/mn/auth/session-9.xml");
+    assertEquals(session, auth.checkIsAuthorized(session, Permission.WRITE));
+    assertTrue(auth.isCNNode("CN=CoordinatingNode_2"));
+    assertFalse(auth.isCNNode("CN=MemberNode_2"));
+    verify(cn, times(3)).listNodes();
+  }
+
+  @Test(expected = NotAuthorized.class)
+  public void testIsAuthorizedCNOnlyDenied() throws Exception {
+    when(cn.listNodes()).thenReturn(Builders.newNodeList("org/gbif/d1/mn/auth/nodeList-1.xml"));
+    AuthorizationManagerImpl auth = new AuthorizationManagerImpl(systemMetadataProvider, cn, selfNode);
+    auth.checkIsAuthorized(Builders.newSession("org/gbif/d1/mn/auth/session-10.xml"), Permission.WRITE);
+  }
+
   /**
    * Ensure that the detail code is correctly surfaced in the exception.
    */
@@ -161,4 +192,25 @@ public class AuthorizationManagerTest {
     assertFalse(auth.isGrantedByAccessPolicy(sysMetadata, ImmutableSet.of("O=Microsoft"), Permission.CHANGE_PERMISSION));
     assertFalse(auth.isGrantedByAccessPolicy(sysMetadata, ImmutableSet.of("O=Microsoft"), Permission.CHANGE_PERMISSION));
   }
+
+  /**
+   * Ensures the system metadata of an object handle is loaded once and not looked up again through the provider.
+   */
+  @Test
+  public void testIsAuthorizedObjectHandle() throws Exception {
+    AuthorizationManagerImpl auth = new AuthorizationManagerImpl(systemMetadataProvider, cn, selfNode);
+    SystemMetadata sysMetadata = Builders.newSystemMetadata("org/gbif/d1/mn/auth/sysMeta-1.xml");
+    AtomicInteger loads = new AtomicInteger();
+    ObjectHandle object = ObjectHandle.of(sysMetadata.getIdentifier(), () -> {
+      loads.incrementAndGet();
+      return sysMetadata;
+    });
+
+    // the subject is the rights holder
+    Session session = Builders.newSession("org/gbif/d1/mn/auth/session-1.xml");
+    assertEquals(session, auth.checkIsAuthorized(session, object, Permission.CHANGE_PERMISSION));
+    assertEquals(session, auth.checkIsAuthorized(session, object, Permission.READ));
+    assertEquals(1, loads.get());
+    verify(systemMetadataProvider, never()).getSystemMetadata(any(Session.class), any(Identifier.class));
+  }
 }
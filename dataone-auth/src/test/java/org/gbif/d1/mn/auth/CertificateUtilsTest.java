@@ -29,6 +29,7 @@ import org.junit.Test;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 /**
  * A suite of tests that use self signed certificates to verify that Sessions are correctly extracted.
@@ -145,4 +146,34 @@ public class CertificateUtilsTest {
     assertEquals(dn, session.getSubject().getValue());
     assertNull(session.getSubjectInfo());
   }
+
+  /**
+   * The same certificate presented again gets the session built the first time.
+   */
+  @Test
+  public void testSessionCache() throws Exception {
+    CertificateUtils utils = CertificateUtils.newInstance();
+    X509Certificate certificate = newCertificate("CN=Tim Robertson", personalKeyPair, caCertificate, null);
+    Session session = utils.cachedSession(certificate);
+    assertSame(session, utils.cachedSession(certificate));
+    assertEquals(1, utils.getSessionCacheStats().hitCount());
+    assertEquals(1, utils.getSessionCacheSize());
+  }
+
+  /**
+   * Certificates failing to give a session are not cached.
+   */
+  @Test
+  public void testSessionCacheFailure() throws Exception {
+    CertificateUtils utils = CertificateUtils.newInstance();
+    X509Certificate certificate = newCertificate("CN=Tim Robertson", personalKeyPair, caCertificate, "<Test/>");
+    for (int i = 0; i < 2; i++) {
+      try {
+        utils.cachedSession(certificate);
+      } catch (InvalidToken expected) {
+        // expected
+      }
+    }
+    assertEquals(0, utils.getSessionCacheSize());
+  }
 }
@@ -0,0 +1,57 @@
+package org.gbif.d1.mn.auth;
+
+import com.google.common.collect.ImmutableSet;
+import org.dataone.ns.service.types.v1.AccessPolicy;
+import org.dataone.ns.service.types.v1.AccessRule;
+import org.dataone.ns.service.types.v1.Builders;
+import org.dataone.ns.service.types.v1.Permission;
+import org.dataone.ns.service.types.v1.Subject;
+import org.junit.Test;
+
+import static org.gbif.d1.mn.auth.Subjects.PUBLIC_SUBJECT;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CompiledAccessPolicyTest {
+
+  @Test
+  public void testPublicRead() {
+    AccessPolicy policy = AccessPolicy.builder()
+      .withAllow(AccessRule.builder()
+                   .withSubject(Subject.builder().withValue(PUBLIC_SUBJECT).build())
+                   .withPermission(Permission.READ)
+                   .build())
+      .build();
+    CompiledAccessPolicy compiled = CompiledAccessPolicy.compile(policy);
+    assertTrue(compiled.isGranted(ImmutableSet.of(PUBLIC_SUBJECT), Permission.READ));
+    assertFalse(compiled.isGranted(ImmutableSet.of(PUBLIC_SUBJECT), Permission.WRITE));
+    // without the public subject nothing is granted
+    assertFalse(compiled.isGranted(ImmutableSet.of("CN=Nobody"), Permission.READ));
+  }
+
+  /**
+   * Permissions of rules naming the same subject are combined, and expanded.
+   */
+  @Test
+  public void testCombinedRules() {
+    Subject subject = Subject.builder().withValue("CN=Tim Robertson").build();
+    AccessPolicy policy = AccessPolicy.builder()
+      .withAllow(AccessRule.builder().withSubject(subject).withPermission(Permission.READ).build(),
+                 AccessRule.builder().withSubject(subject).withPermission(Permission.WRITE).build())
+      .build();
+    CompiledAccessPolicy compiled = CompiledAccessPolicy.compile(policy);
+    // probed from both sides
+    assertTrue(compiled.isGranted(ImmutableSet.of("CN=Tim Robertson"), Permission.WRITE));
+    assertTrue(compiled.isGranted(ImmutableSet.of(PUBLIC_SUBJECT, "CN=Tim Robertson", "O=GBIF"), Permission.READ));
+    assertFalse(compiled.isGranted(ImmutableSet.of("CN=Tim Robertson"), Permission.CHANGE_PERMISSION));
+  }
+
+  @Test
+  public void testCompiledOnce() throws Exception {
+    AccessPolicy policy = Builders.newSystemMetadata("org/gbif/d1/mn/auth/sysMeta-1.xml").getAccessPolicy();
+    assertSame(CompiledAccessPolicy.of(policy), CompiledAccessPolicy.of(policy));
+    assertFalse(CompiledAccessPolicy.of(null).isGranted(ImmutableSet.of(PUBLIC_SUBJECT), Permission.READ));
+  }
+}
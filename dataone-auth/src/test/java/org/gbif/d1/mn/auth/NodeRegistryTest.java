@@ -0,0 +1,36 @@
+package org.gbif.d1.mn.auth;
+
+import org.dataone.ns.service.types.v1.Builders;
+import org.dataone.ns.service.types.v1.NodeList;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NodeRegistryTest {
+
+  @Test
+  public void testRegistry() throws Exception {
+    NodeList nodeList = Builders.newNodeList("org/gbif/d1/mn/auth/nodeList-1.xml");
+    NodeRegistry registry = new NodeRegistry(nodeList);
+    assertTrue(registry.isBuiltFrom(nodeList));
+    assertFalse(registry.isBuiltFrom(Builders.newNodeList("org/gbif/d1/mn/auth/nodeList-1.xml")));
+
+    assertTrue(registry.isCN("CN=CoordinatingNode_1"));
+    assertTrue(registry.isCN("CN=CoordinatingNode_2"));
+    assertFalse(registry.isCN("CN=MemberNode_1"));
+    assertFalse(registry.isCN(null));
+
+    assertTrue(registry.isSameMN("CN=AliasForMN2", "CN=MemberNode_2"));
+    assertTrue(registry.isSameMN("CN=MemberNode_2", "CN=MemberNode_2"));
+    assertFalse(registry.isSameMN("CN=MemberNode_1", "CN=MemberNode_2"));
+    assertFalse(registry.isSameMN("CN=CoordinatingNode_1", "CN=MemberNode_2"));
+    assertFalse(registry.isSameMN("CN=Nobody", "CN=Nobody"));
+  }
+
+  @Test
+  public void testEmpty() {
+    assertFalse(NodeRegistry.EMPTY.isCN("CN=CoordinatingNode_1"));
+    assertFalse(NodeRegistry.EMPTY.isSameMN("CN=MemberNode_2", "CN=MemberNode_2"));
+  }
+}
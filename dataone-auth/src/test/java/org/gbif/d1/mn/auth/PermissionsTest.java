@@ -29,4 +29,14 @@ public class PermissionsTest {
       ImmutableSet.of(Permission.READ, Permission.WRITE, Permission.CHANGE_PERMISSION),
       Permissions.expand(ImmutableSet.of(Permission.CHANGE_PERMISSION, Permission.READ))); // write missing
   }
+
+  @Test
+  public void testExpandMask() {
+    int read = Permissions.bit(Permission.READ);
+    int write = Permissions.bit(Permission.WRITE);
+    int change = Permissions.bit(Permission.CHANGE_PERMISSION);
+    assertEquals(read, Permissions.expandMask(ImmutableSet.of(Permission.READ)));
+    assertEquals(read | write, Permissions.expandMask(ImmutableSet.of(Permission.WRITE)));
+    assertEquals(read | write | change, Permissions.expandMask(ImmutableSet.of(Permission.CHANGE_PERMISSION)));
+  }
 }
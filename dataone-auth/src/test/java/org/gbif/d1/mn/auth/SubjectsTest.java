@@ -1,15 +1,21 @@
 package org.gbif.d1.mn.auth;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import javax.xml.bind.JAXBException;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import org.dataone.ns.service.types.v1.Builders;
+import org.dataone.ns.service.types.v1.Group;
+import org.dataone.ns.service.types.v1.Person;
 import org.dataone.ns.service.types.v1.Session;
+import org.dataone.ns.service.types.v1.Subject;
+import org.dataone.ns.service.types.v1.SubjectInfo;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,6 +25,7 @@ import static org.gbif.d1.mn.auth.Subjects.PUBLIC_SUBJECT;
 import static org.gbif.d1.mn.auth.Subjects.VERIFIED_SUBJECT;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class SubjectsTest {
@@ -96,4 +103,48 @@ public class SubjectsTest {
     assertEquals(1, index.get("CN=Timo").size());
     assertEquals(1, index.get("CN=Dave Vieglas").size());
   }
+
+  /**
+   * A long chain of equivalent identities ending in a cycle, with thousands of groups, is expanded without
+   * recursing and only once per session.
+   */
+  @Test
+  public void testAllSubjectsDeepAliasChain() {
+    int people = 5000;
+    int groups = 2000;
+    List<Person> persons = Lists.newArrayList();
+    for (int i = 0; i < people; i++) {
+      persons.add(Person.builder()
+                    .withSubject(subject("CN=Person " + i))
+                    .withGivenName("Given")
+                    .withFamilyName("Family")
+                    // the last alias points back to the start
+                    .withEquivalentIdentity(subject("CN=Person " + ((i + 1) % people)))
+                    .withIsMemberOf(subject("O=Person group " + i))
+                    .build());
+    }
+    List<Group> groupList = Lists.newArrayList();
+    for (int i = 0; i < groups; i++) {
+      groupList.add(Group.builder()
+                      .withSubject(subject("O=Group " + i))
+                      .withGroupName("Group " + i)
+                      .withHasMember(subject("CN=Person " + (i * people / groups)))
+                      .build());
+    }
+    Session session = Session.builder()
+      .withSubject(subject("CN=Person 0"))
+      .withSubjectInfo(SubjectInfo.builder().withPerson(persons).withGroup(groupList).build())
+      .build();
+
+    Set<String> subjects = Subjects.allSubjects(session);
+    // every person, their own group, the listed groups and the symbolic subjects
+    assertEquals(people * 2 + groups + 2, subjects.size());
+    assertTrue(subjects.contains("CN=Person " + (people - 1)));
+    assertTrue(subjects.contains("O=Group " + (groups - 1)));
+    assertSame(subjects, Subjects.allSubjects(session));
+  }
+
+  private static Subject subject(String value) {
+    return Subject.builder().withValue(value).build();
+  }
 }
@@ -0,0 +1,104 @@
+package org.dataone.ns.service.types.v1;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.GregorianCalendar;
+import java.util.concurrent.TimeUnit;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import com.google.common.io.ByteStreams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Allocations of writing and reading the system metadata document of a create or update, comparing a marshaller
+ * created per document and copied through a String, as the DataRepoBackend did, with the {@link JaxbPool}.
+ * <p>
+ * The allocations per document are the gc.alloc.rate.norm figures of the GC profiler:
+ * <pre>
+ * java -jar dataone-benchmarks/target/benchmarks.jar JaxbPoolBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JaxbPoolBenchmark {
+
+  private JAXBContext context;
+  private JaxbPool pool;
+  private SystemMetadata sysmeta;
+  private byte[] xml;
+
+  @Setup
+  public void setUp() throws JAXBException, DatatypeConfigurationException {
+    context = JAXBContext.newInstance(SystemMetadata.class);
+    pool = JaxbPool.newInstance(SystemMetadata.class);
+    XMLGregorianCalendar now = DatatypeFactory.newInstance().newXMLGregorianCalendar(new GregorianCalendar());
+    sysmeta = SystemMetadata.builder()
+      .withIdentifier(Identifier.builder().withValue("urn:uuid:2d0c4a3b-37e9-4f6a-9a4d-4b3c1f0e7a21").build())
+      .withFormatId("eml://ecoinformatics.org/eml-2.1.1")
+      .withSize(BigInteger.valueOf(1048576))
+      .withChecksum(Checksum.builder().withAlgorithm("MD5").withValue("9e107d9d372bb6826bd81d3542a419d6").build())
+      .withSerialVersion(BigInteger.ONE)
+      .withSubmitter(Subject.builder().withValue("CN=Submitter,O=GBIF,C=DK").build())
+      .withRightsHolder(Subject.builder().withValue("CN=Rights Holder,O=GBIF,C=DK").build())
+      .withAccessPolicy(AccessPolicy.builder()
+                          .withAllow(AccessRule.builder()
+                                       .withSubject(Subject.builder().withValue("public").build())
+                                       .withPermission(Permission.READ)
+                                       .build())
+                          .build())
+      .withDateUploaded(now)
+      .withDateSysMetadataModified(now)
+      .withOriginMemberNode(NodeReference.builder().withValue("urn:node:GBIF").build())
+      .withAuthoritativeMemberNode(NodeReference.builder().withValue("urn:node:GBIF").build())
+      .build();
+    xml = ByteStreams.toByteArray(pool.marshalToStream(sysmeta));
+  }
+
+  /**
+   * New marshaller, then StringWriter to String to byte[], as DataRepoBackend.toFileContent did.
+   */
+  @Benchmark
+  public InputStream marshalPerCall() throws JAXBException {
+    StringWriter writer = new StringWriter();
+    context.createMarshaller().marshal(sysmeta, writer);
+    return new ByteArrayInputStream(writer.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Benchmark
+  public InputStream marshalPooled() throws JAXBException {
+    return pool.marshalToStream(sysmeta);
+  }
+
+  /**
+   * New unmarshaller per document, as DataRepoBackend.systemMetadata did.
+   */
+  @Benchmark
+  public SystemMetadata unmarshalPerCall() throws JAXBException {
+    return (SystemMetadata) context.createUnmarshaller().unmarshal(new ByteArrayInputStream(xml));
+  }
+
+  @Benchmark
+  public SystemMetadata unmarshalPooled() throws JAXBException {
+    return pool.unmarshal(new ByteArrayInputStream(xml), SystemMetadata.class);
+  }
+}
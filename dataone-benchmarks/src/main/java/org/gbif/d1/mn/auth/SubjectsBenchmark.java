@@ -0,0 +1,89 @@
+package org.gbif.d1.mn.auth;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+import org.dataone.ns.service.types.v1.Group;
+import org.dataone.ns.service.types.v1.Person;
+import org.dataone.ns.service.types.v1.Session;
+import org.dataone.ns.service.types.v1.Subject;
+import org.dataone.ns.service.types.v1.SubjectInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Expansion of the subjects of a session whose SubjectInfo holds thousands of groups and a deep chain of equivalent
+ * identities, once per session ({@link Subjects#expand(Session)}) and on every authorization check of the same
+ * session ({@link Subjects#allSubjects(Session)}).
+ * <pre>
+ * java -jar dataone-benchmarks/target/benchmarks.jar SubjectsBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SubjectsBenchmark {
+
+  // length of the chain of equivalent identities, each person being the alias of the next one
+  @Param({"100", "5000"})
+  public int people;
+
+  @Param({"1000", "5000"})
+  public int groups;
+
+  private Session session;
+
+  @Setup
+  public void setUp() {
+    List<Person> persons = Lists.newArrayList();
+    for (int i = 0; i < people; i++) {
+      persons.add(Person.builder()
+                    .withSubject(subject("CN=Person " + i))
+                    .withGivenName("Given")
+                    .withFamilyName("Family")
+                    .withEquivalentIdentity(subject("CN=Person " + (i + 1)))
+                    .withIsMemberOf(subject("O=Person group " + i))
+                    .build());
+    }
+    List<Group> groupList = Lists.newArrayList();
+    for (int i = 0; i < groups; i++) {
+      groupList.add(Group.builder()
+                      .withSubject(subject("O=Group " + i))
+                      .withGroupName("Group " + i)
+                      .withHasMember(subject("CN=Person " + (i % people)))
+                      .build());
+    }
+    session = Session.builder()
+      .withSubject(subject("CN=Person 0"))
+      .withSubjectInfo(SubjectInfo.builder().withPerson(persons).withGroup(groupList).build())
+      .build();
+  }
+
+  @Benchmark
+  public Set<String> expand() {
+    return Subjects.expand(session);
+  }
+
+  @Benchmark
+  public Set<String> allSubjects() {
+    return Subjects.allSubjects(session);
+  }
+
+  private static Subject subject(String value) {
+    return Subject.builder().withValue(value).build();
+  }
+}
@@ -0,0 +1,104 @@
+package org.gbif.d1.mn.backend.memory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.io.ByteStreams;
+import org.dataone.ns.service.types.v1.Identifier;
+import org.dataone.ns.service.types.v1.SystemMetadata;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of reading objects from the {@link InMemoryBackend}, alone and while other threads create and delete
+ * objects.
+ * <p>
+ * Scaling with cores shows by running the read benchmark with an increasing number of threads, e.g.:
+ * <pre>
+ * for t in 1 2 4 8; do java -jar dataone-benchmarks/target/benchmarks.jar InMemoryBackendBenchmark.read -t $t; done
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class InMemoryBackendBenchmark {
+
+  private static final int OBJECTS = 10000;
+
+  @Param({"4096"})
+  public int objectSize;
+
+  private final AtomicLong created = new AtomicLong();
+  private InMemoryBackend backend;
+  private Identifier[] pids;
+  private byte[] content;
+
+  @Setup
+  public void setUp() {
+    backend = new InMemoryBackend();
+    content = new byte[objectSize];
+    ThreadLocalRandom.current().nextBytes(content);
+    pids = new Identifier[OBJECTS];
+    for (int i = 0; i < OBJECTS; i++) {
+      pids[i] = create("object-" + i);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    backend.close();
+  }
+
+  private Identifier create(String value) {
+    Identifier pid = Identifier.builder().withValue(value).build();
+    return backend.create(null, pid, new ByteArrayInputStream(content),
+                          SystemMetadata.builder().withIdentifier(pid).build());
+  }
+
+  private long readRandom() throws IOException {
+    try (InputStream in = backend.get(pids[ThreadLocalRandom.current().nextInt(OBJECTS)])) {
+      return ByteStreams.copy(in, ByteStreams.nullOutputStream());
+    }
+  }
+
+  @Benchmark
+  public long read() throws IOException {
+    return readRandom();
+  }
+
+  /**
+   * Reads while another thread of the group writes, which must not slow the readers down.
+   */
+  @Benchmark
+  @Group("readWhileWriting")
+  @GroupThreads(3)
+  public long readers() throws IOException {
+    return readRandom();
+  }
+
+  @Benchmark
+  @Group("readWhileWriting")
+  @GroupThreads(1)
+  public Identifier writer() {
+    return backend.delete(null, create("written-" + created.incrementAndGet()));
+  }
+}
@@ -1,17 +1,31 @@
 package org.gbif.d1.cn.client;
 
-import java.util.concurrent.ExecutionException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.Invocation;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
-
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
-import org.apache.http.client.methods.RequestBuilder;
+import javax.xml.bind.JAXBException;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.dropwizard.lifecycle.Managed;
+import io.dropwizard.util.Duration;
 import org.dataone.ns.service.apis.v1.cn.CoordinatingNode;
 import org.dataone.ns.service.exceptions.ExceptionDetail;
 import org.dataone.ns.service.exceptions.InvalidToken;
@@ -20,6 +34,7 @@ import org.dataone.ns.service.exceptions.NotFound;
 import org.dataone.ns.service.exceptions.NotImplemented;
 import org.dataone.ns.service.exceptions.ServiceFailure;
 import org.dataone.ns.service.types.v1.Identifier;
+import org.dataone.ns.service.types.v1.JaxbPool;
 import org.dataone.ns.service.types.v1.Node;
 import org.dataone.ns.service.types.v1.NodeList;
 import org.dataone.ns.service.types.v1.Subject;
@@ -27,19 +42,37 @@ import org.dataone.ns.service.types.v1.SystemMetadata;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class CNClient implements CoordinatingNode {
+/**
+ * Client of the coordinating node.
+ * <p>
+ * The list of nodes is refreshed in the background at a fixed interval while the previous list keeps being served, so
+ * that neither an expiry nor an outage of the CN blocks the requests needing it. The last list received is written to
+ * a local file and read back when started, so that the node identities are known from a cold start even if the CN is
+ * unavailable.
+ */
+@ThreadSafe
+public class CNClient implements CoordinatingNode, Managed {
 
   private static final Logger LOG = LoggerFactory.getLogger(CNClient.class);
 
-  private final WebTarget node;
-
+  private static final JaxbPool JAXB = JaxbPool.newInstance(NodeList.class);
+  private static final long SHUTDOWN_TIMEOUT_SECONDS = 10L;
 
-  //This string literal is used only to access the cache
-  private static final String NODES_CACHE = "nodes";
+  private final WebTarget node;
 
-  //This cache avoids contacting the coordinating node each time the list of nodes is required
-  private final LoadingCache<String,NodeList> nodesCache;
+  private final Duration refreshInterval;
+  @Nullable
+  private final Path nodeListFile;
+  // the latest list of nodes, null until first loaded
+  private final AtomicReference<NodeList> nodes = new AtomicReference<>();
+  // time the latest list of nodes was received from the CN
+  private volatile long nodesReceived;
+  private final ScheduledExecutorService scheduler;
+  // serializes the writes of the node list file
+  private final Object saveLock = new Object();
 
+  private final Timer refreshes;
+  private final Meter refreshFailures;
 
   private Response execute(Invocation.Builder request) {
     Response response = request.get(Response.class);
@@ -55,29 +88,124 @@ public class CNClient implements CoordinatingNode {
    * Builds a CN client instance.
    * @param client jersey managed client
    * @param nodeUrl CN
+   * @param refreshInterval time between refreshes of the list of nodes
+   * @param nodeListFile file keeping the last list of nodes received, null to keep it in memory only
+   * @param metrics registry of the staleness of the list of nodes and the latency of its refreshes
    */
-  public CNClient(Client client, String nodeUrl) {
+  public CNClient(Client client, String nodeUrl, Duration refreshInterval, @Nullable Path nodeListFile,
+                  MetricRegistry metrics) {
     node = client.target(nodeUrl + "cn/v1/");
-    nodesCache = CacheBuilder.newBuilder()
-                  .expireAfterAccess(1, TimeUnit.HOURS) //expire cache every hour
-                  .build(new CacheLoader<String, NodeList>() {
-                    @Override
-                    public NodeList load(String key) throws Exception {
-                      return node.path("node/").request().accept(MediaType.APPLICATION_XML).get(NodeList.class);
-                    }
-                  });
+    this.refreshInterval = refreshInterval;
+    this.nodeListFile = nodeListFile;
+    scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                                                             .setNameFormat("cn-node-list-refresh-%d")
+                                                             .setDaemon(true).build());
+    refreshes = metrics.timer(MetricRegistry.name(CNClient.class, "nodeList", "refresh"));
+    refreshFailures = metrics.meter(MetricRegistry.name(CNClient.class, "nodeList", "refreshFailures"));
+    metrics.register(MetricRegistry.name(CNClient.class, "nodeList", "staleness"),
+                     (Gauge<Long>) this::getNodeListStaleness);
   }
 
+  /**
+   * Reads the last list of nodes saved, then refreshes it from the CN in the background.
+   */
+  @Override
+  public void start() {
+    if (nodeListFile != null && Files.exists(nodeListFile)) {
+      try (InputStream in = Files.newInputStream(nodeListFile)) {
+        nodes.compareAndSet(null, JAXB.unmarshal(in, NodeList.class));
+        nodesReceived = Files.getLastModifiedTime(nodeListFile).toMillis();
+        LOG.info("List of nodes read from {}", nodeListFile);
+      } catch (IOException | JAXBException ex) {
+        LOG.warn("Unable to read the list of nodes from {}", nodeListFile, ex);
+      }
+    }
+    scheduler.scheduleWithFixedDelay(this::refreshQuietly, 0L, refreshInterval.toMilliseconds(),
+                                     TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void stop() throws InterruptedException {
+    scheduler.shutdownNow();
+    scheduler.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Serves the latest list of nodes, only calling the CN if no list has been received or saved yet.
+   */
   @Override
   public NodeList listNodes() throws ServiceFailure {
+    NodeList current = nodes.get();
+    if (current != null) {
+      return current;
+    }
+    synchronized (this) {
+      current = nodes.get();
+      if (current == null) {
+        try {
+          current = refresh();
+        } catch (RuntimeException ex) {
+          LOG.error("Error loading list of nodes", ex);
+          throw new ServiceFailure("Error loading list of Coordinating Nodes");
+        }
+      }
+      return current;
+    }
+  }
+
+  /**
+   * @return milliseconds since the latest list of nodes was received from the CN, -1 if none has been received
+   */
+  public long getNodeListStaleness() {
+    return nodes.get() == null ? -1L : System.currentTimeMillis() - nodesReceived;
+  }
+
+  /**
+   * Refreshes the list of nodes, keeping the previous one should the CN fail to answer.
+   */
+  private void refreshQuietly() {
     try {
-      return nodesCache.get(NODES_CACHE);
-    } catch (ExecutionException ee) {
-      LOG.error("Error loading list of nodes", ee);
-      throw new ServiceFailure("Error loading list of Coordinating Nodes");
+      refresh();
+    } catch (RuntimeException ex) {
+      LOG.warn("Unable to refresh the list of nodes, serving the previous one", ex);
     }
   }
 
+  private NodeList refresh() {
+    NodeList refreshed;
+    try (Timer.Context ignored = refreshes.time()) {
+      refreshed = node.path("node/").request().accept(MediaType.APPLICATION_XML).get(NodeList.class);
+    } catch (RuntimeException ex) {
+      refreshFailures.mark();
+      throw ex;
+    }
+    nodes.set(refreshed);
+    nodesReceived = System.currentTimeMillis();
+    save();
+    return refreshed;
+  }
+
+  /**
+   * Writes the latest list of nodes to the file, replacing the previous one atomically so that a complete list is
+   * always found there. Background and on-demand refreshes save one at a time, so they don't write the temporary file
+   * concurrently, and whichever saves last writes the latest list.
+   */
+  private void save() {
+    if (nodeListFile == null) {
+      return;
+    }
+    synchronized (saveLock) {
+      Path saved = nodeListFile.resolveSibling(nodeListFile.getFileName() + ".tmp");
+      try {
+        try (OutputStream out = Files.newOutputStream(saved)) {
+          JAXB.marshal(nodes.get(), out);
+        }
+        Files.move(saved, nodeListFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (IOException | JAXBException ex) {
+        LOG.warn("Unable to save the list of nodes to {}", nodeListFile, ex);
+      }
+    }
+  }
 
   @Override
   public SystemMetadata getSystemMetadata(Identifier identifier) throws InvalidToken, NotImplemented, NotAuthorized,
@@ -8,6 +8,7 @@ import org.gbif.d1.mn.backend.BackendHealthCheck;
 import org.gbif.d1.mn.backend.MNBackend;
 import org.gbif.d1.mn.backend.impl.DataRepoBackend;
 import org.gbif.d1.mn.backend.impl.DataRepoBackendConfiguration;
+import org.gbif.d1.mn.client.MNReadClients;
 import org.gbif.d1.mn.exception.DefaultExceptionMapper;
 import org.gbif.d1.mn.logging.impl.LogbackDBLogSearchService;
 import org.gbif.d1.mn.provider.DescribeResponseHeaderProvider;
@@ -16,6 +17,12 @@ import org.gbif.d1.mn.provider.IdentifierProvider;
 import org.gbif.d1.mn.provider.PermissionProvider;
 import org.gbif.d1.mn.provider.SessionProvider;
 import org.gbif.d1.mn.provider.TierSupportFilter;
+import org.gbif.d1.mn.replication.BandwidthLimiter;
+import org.gbif.d1.mn.replication.ChunkedReplicaDownloader;
+import org.gbif.d1.mn.replication.ReplicationEngine;
+import org.gbif.d1.mn.replication.ReplicationJournal;
+import org.gbif.d1.mn.replication.ReplicationLimitsTask;
+import org.gbif.d1.mn.replication.SourceNodeReplicator;
 import org.gbif.d1.mn.resource.ArchiveResource;
 import org.gbif.d1.mn.resource.CapabilitiesResource;
 import org.gbif.d1.mn.resource.ChecksumResource;
@@ -34,11 +41,16 @@ import org.gbif.datarepo.inject.DataRepoFsModule;
 import org.gbif.datarepo.impl.conf.DataRepoConfiguration;
 import org.gbif.discovery.lifecycle.DiscoveryLifeCycle;
 
+import java.nio.file.Paths;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.module.jaxb.JaxbAnnotationModule;
 import com.google.common.eventbus.EventBus;
 import io.dropwizard.Application;
 import io.dropwizard.client.JerseyClientBuilder;
 import io.dropwizard.forms.MultiPartBundle;
+import io.dropwizard.lifecycle.Managed;
 import io.dropwizard.server.AbstractServerFactory;
 import io.dropwizard.setup.Bootstrap;
 import io.dropwizard.setup.Environment;
@@ -77,7 +89,14 @@ public class MNApplication extends Application<DataRepoBackendConfiguration> {
     EventBus metadataChangeBus = new EventBus();
 
     Node self = configuration.getNode();
-    CertificateUtils certificateUtils = CertificateUtils.newInstance(configuration.getTrustedOIDs());
+    CertificateUtils certificateUtils =
+      CertificateUtils.newInstance(configuration.getTrustedOIDs(), configuration.getSessionCacheMaxSize(),
+                                   configuration.getSessionCacheTtl().getQuantity(),
+                                   configuration.getSessionCacheTtl().getUnit());
+    environment.metrics().register(MetricRegistry.name(CertificateUtils.class, "sessions", "hitRatio"),
+                                   (Gauge<Double>) () -> certificateUtils.getSessionCacheStats().hitRate());
+    environment.metrics().register(MetricRegistry.name(CertificateUtils.class, "sessions", "size"),
+                                   (Gauge<Long>) certificateUtils::getSessionCacheSize);
 
     //JAXB binding module
     environment.getObjectMapper().registerModules(new JaxbAnnotationModule());
@@ -100,7 +119,10 @@ public class MNApplication extends Application<DataRepoBackendConfiguration> {
     DataRepoFsModule dataRepoFsModule = getDataRepoFsModule(configuration, environment);
 
     MNBackend backend = getBackend(configuration, environment, dataRepoFsModule);
-    AuthorizationManager auth = AuthorizationManagers.newAuthorizationManager(backend, cn, self);
+    if (backend instanceof Managed) {
+      environment.lifecycle().manage((Managed) backend);
+    }
+    AuthorizationManager auth = AuthorizationManagers.newAuthorizationManager(backend, cn, self, certificateUtils);
 
     // RESTful resources
     environment.jersey().register(new CapabilitiesResource(self, certificateUtils));
@@ -118,16 +140,39 @@ public class MNApplication extends Application<DataRepoBackendConfiguration> {
 
     metadataChangeBus.register(new DirtyMetadataListener(cn, backend));
     environment.jersey().register(new DirtySystemMetadataResource(metadataChangeBus, auth));
-    environment.jersey().register(new ReplicateResource(metadataChangeBus, new JerseyClientBuilder(environment), cn,
-                                                        auth, backend));
+    MNReadClients mnReadClients =
+      new MNReadClients(new JerseyClientBuilder(environment).using(configuration.getReplication().getJerseyClient())
+                          .build("MNReadClients"), configuration.getReplication().getClientIdleTimeout());
+    environment.lifecycle().manage(mnReadClients);
+    BandwidthLimiter bandwidthLimiter =
+      new BandwidthLimiter(configuration.getReplication().getGlobalBandwidth().toBytes(),
+                           configuration.getReplication().getNodeBandwidth().toBytes(), environment.metrics());
+    environment.admin().addTask(new ReplicationLimitsTask(bandwidthLimiter));
+    ChunkedReplicaDownloader downloader =
+      new ChunkedReplicaDownloader(Paths.get(configuration.getReplication().getStagingDir()),
+                                   configuration.getReplication().getChunkSize().toBytes(),
+                                   configuration.getReplication().getChunkParallelism(),
+                                   configuration.getReplication().getWorkers(), bandwidthLimiter);
+    environment.lifecycle().manage(downloader);
+    ReplicationEngine replicationEngine =
+      new ReplicationEngine(configuration.getReplication(),
+                            new SourceNodeReplicator(mnReadClients, downloader, bandwidthLimiter, backend),
+                            new ReplicationJournal(Paths.get(configuration.getReplication().getJournalFile())),
+                            environment.metrics());
+    environment.lifecycle().manage(replicationEngine);
+    environment.jersey().register(new ReplicateResource(replicationEngine, cn, auth));
 
     // health checks
     environment.healthChecks().register("backend", new BackendHealthCheck(backend));
   }
 
   private static CoordinatingNode coordinatingNode(MNConfiguration configuration, Environment environment) {
-    return new CNClient(new JerseyClientBuilder(environment).using(configuration.getJerseyClient())
-                          .build("CNClient"), configuration.getCoordinatingNodeUrl());
+    CNClient cnClient = new CNClient(new JerseyClientBuilder(environment).using(configuration.getJerseyClient())
+                                       .build("CNClient"), configuration.getCoordinatingNodeUrl(),
+                                     configuration.getNodeListRefreshInterval(),
+                                     Paths.get(configuration.getNodeListFile()), environment.metrics());
+    environment.lifecycle().manage(cnClient);
+    return cnClient;
   }
 
   /**
@@ -137,7 +182,7 @@ public class MNApplication extends Application<DataRepoBackendConfiguration> {
                                         DataRepoFsModule dataRepoModule) {
     return new DataRepoBackend(dataRepoModule.dataRepository(environment.getObjectMapper()),
                                dataRepoModule.doiRegistrationService(environment.getObjectMapper()),
-                               configuration);
+                               configuration, environment.metrics());
   }
 
   /**
@@ -1,12 +1,14 @@
 package org.gbif.d1.mn;
 
 import org.gbif.d1.mn.auth.AuthorizationManager;
+import org.gbif.d1.mn.replication.ReplicationConfiguration;
 
 import java.util.List;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.Lists;
 import io.dropwizard.Configuration;
+import io.dropwizard.util.Duration;
 import io.dropwizard.client.HttpClientConfiguration;
 import io.dropwizard.client.JerseyClientConfiguration;
 import org.dataone.ns.service.types.v1.Node;
@@ -30,6 +32,20 @@ public class MNConfiguration extends Configuration {
 
   private List<String> trustedOIDs = Lists.newArrayList(AuthorizationManager.DEFAULT_OID_SUBJECT_INFO);
 
+  //Number of sessions cached by client certificate, zero disables the cache
+  private long sessionCacheMaxSize = 10000;
+
+  //Time after which a cached session is built again from its certificate, unless the certificate expires before
+  private Duration sessionCacheTtl = Duration.hours(1);
+
+  //Time between refreshes of the list of nodes from the coordinating node
+  private Duration nodeListRefreshInterval = Duration.minutes(15);
+
+  //File keeping the last list of nodes received, used until the coordinating node answers after a restart
+  private String nodeListFile = "nodelist.xml";
+
+  private ReplicationConfiguration replication = new ReplicationConfiguration();
+
   public Tier getTier(){
     return Tier.TIER4;
   }
@@ -65,4 +81,49 @@ public class MNConfiguration extends Configuration {
   public void setTrustedOIDs(List<String> trustedOIDs) {
     this.trustedOIDs = trustedOIDs;
   }
+
+  @JsonProperty
+  public long getSessionCacheMaxSize() {
+    return sessionCacheMaxSize;
+  }
+
+  public void setSessionCacheMaxSize(long sessionCacheMaxSize) {
+    this.sessionCacheMaxSize = sessionCacheMaxSize;
+  }
+
+  @JsonProperty
+  public Duration getSessionCacheTtl() {
+    return sessionCacheTtl;
+  }
+
+  public void setSessionCacheTtl(Duration sessionCacheTtl) {
+    this.sessionCacheTtl = sessionCacheTtl;
+  }
+
+  @JsonProperty
+  public Duration getNodeListRefreshInterval() {
+    return nodeListRefreshInterval;
+  }
+
+  public void setNodeListRefreshInterval(Duration nodeListRefreshInterval) {
+    this.nodeListRefreshInterval = nodeListRefreshInterval;
+  }
+
+  @JsonProperty
+  public String getNodeListFile() {
+    return nodeListFile;
+  }
+
+  public void setNodeListFile(String nodeListFile) {
+    this.nodeListFile = nodeListFile;
+  }
+
+  @JsonProperty
+  public ReplicationConfiguration getReplication() {
+    return replication;
+  }
+
+  public void setReplication(ReplicationConfiguration replication) {
+    this.replication = replication;
+  }
 }
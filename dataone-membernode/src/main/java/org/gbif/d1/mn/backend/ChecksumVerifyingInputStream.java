@@ -0,0 +1,189 @@
+package org.gbif.d1.mn.backend;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.google.common.io.BaseEncoding;
+import org.dataone.ns.service.exceptions.InvalidSystemMetadata;
+import org.dataone.ns.service.types.v1.Checksum;
+import org.dataone.ns.service.types.v1.SystemMetadata;
+
+/**
+ * Stream of an object being stored, which computes its checksums and size while it is read and compares them with the
+ * ones declared in the system metadata.
+ * <p>
+ * The declared checksum algorithm, and any other requested, are computed in the same pass that stores the object.
+ * Reaching the end of the stream with a checksum or size not matching the declared ones fails the read with an
+ * {@link IOException}, so the consumer aborts before the object is stored. Backends then call {@link #verify()} to turn
+ * the failure into an {@link InvalidSystemMetadata}.
+ */
+@NotThreadSafe
+public class ChecksumVerifyingInputStream extends FilterInputStream {
+
+  private static final int SKIP_BUFFER_SIZE = 8192;
+
+  @Nullable
+  private final Checksum expectedChecksum;
+  @Nullable
+  private final BigInteger expectedSize;
+  // algorithm -> digest being computed, the declared algorithm first
+  private final Map<String, MessageDigest> digests = new LinkedHashMap<>();
+  private final Map<String, Checksum> checksums = new LinkedHashMap<>();
+  private long size;
+  private boolean eof;
+  @Nullable
+  private String mismatch;
+
+  /**
+   * @param in object stream
+   * @param sysmeta system metadata declaring the checksum and size of the object
+   * @param algorithms checksum algorithms to compute in addition to the declared one
+   * @throws InvalidSystemMetadata if a checksum algorithm is not supported
+   */
+  public ChecksumVerifyingInputStream(InputStream in, SystemMetadata sysmeta, String... algorithms) {
+    super(in);
+    expectedChecksum = sysmeta.getChecksum();
+    expectedSize = sysmeta.getSize();
+    if (expectedChecksum != null) {
+      addDigest(expectedChecksum.getAlgorithm());
+    }
+    for (String algorithm : algorithms) {
+      addDigest(algorithm);
+    }
+  }
+
+  private void addDigest(String algorithm) {
+    if (!digests.containsKey(algorithm)) {
+      try {
+        digests.put(algorithm, MessageDigest.getInstance(algorithm));
+      } catch (NoSuchAlgorithmException ex) {
+        throw new InvalidSystemMetadata("Unsupported checksum algorithm " + algorithm);
+      }
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    int b = in.read();
+    if (b == -1) {
+      end();
+    } else {
+      size++;
+      for (MessageDigest digest : digests.values()) {
+        digest.update((byte) b);
+      }
+    }
+    return b;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    int read = in.read(b, off, len);
+    if (read == -1) {
+      end();
+    } else {
+      size += read;
+      for (MessageDigest digest : digests.values()) {
+        digest.update(b, off, read);
+      }
+    }
+    return read;
+  }
+
+  /**
+   * Skipped bytes are read, since they are part of the checksum.
+   */
+  @Override
+  public long skip(long n) throws IOException {
+    byte[] buffer = new byte[(int) Math.min(n, SKIP_BUFFER_SIZE)];
+    long skipped = 0;
+    while (skipped < n) {
+      int read = read(buffer, 0, (int) Math.min(n - skipped, buffer.length));
+      if (read == -1) {
+        break;
+      }
+      skipped += read;
+    }
+    return skipped;
+  }
+
+  @Override
+  public boolean markSupported() {
+    return false;
+  }
+
+  @Override
+  public synchronized void mark(int readlimit) {
+    // NOP, not supported
+  }
+
+  @Override
+  public synchronized void reset() throws IOException {
+    throw new IOException("Mark/reset not supported");
+  }
+
+  /**
+   * Computes the checksums once the end of the stream is reached and compares them with the declared ones.
+   */
+  private void end() throws IOException {
+    if (!eof) {
+      eof = true;
+      for (Map.Entry<String, MessageDigest> digest : digests.entrySet()) {
+        checksums.put(digest.getKey(), Checksum.builder()
+                                         .withAlgorithm(digest.getKey())
+                                         .withValue(BaseEncoding.base16().lowerCase().encode(digest.getValue().digest()))
+                                         .build());
+      }
+      if (expectedSize != null && expectedSize.longValue() != size) {
+        mismatch = "Object size " + size + " does not match the declared size " + expectedSize;
+      } else if (expectedChecksum != null
+                 && !checksums.get(expectedChecksum.getAlgorithm()).getValue()
+                   .equalsIgnoreCase(expectedChecksum.getValue())) {
+        mismatch = "Object " + expectedChecksum.getAlgorithm() + " checksum "
+                   + checksums.get(expectedChecksum.getAlgorithm()).getValue()
+                   + " does not match the declared checksum " + expectedChecksum.getValue();
+      }
+    }
+    if (mismatch != null) {
+      throw new IOException(mismatch);
+    }
+  }
+
+  /**
+   * Asserts the whole object has been read and matches the declared checksum and size.
+   *
+   * @throws InvalidSystemMetadata if the object doesn't match or it hasn't been read completely
+   */
+  public void verify() {
+    if (mismatch != null) {
+      throw new InvalidSystemMetadata(mismatch);
+    }
+    if (!eof) {
+      throw new InvalidSystemMetadata("Object truncated after " + size + " bytes");
+    }
+  }
+
+  /**
+   * @return checksum computed with the given algorithm, absent if it wasn't requested or the stream hasn't been read
+   * completely
+   */
+  public Optional<Checksum> getChecksum(String algorithm) {
+    return Optional.ofNullable(checksums.get(algorithm));
+  }
+
+  /**
+   * @return number of bytes read so far
+   */
+  public long getSize() {
+    return size;
+  }
+}
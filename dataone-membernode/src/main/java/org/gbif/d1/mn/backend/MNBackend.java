@@ -1,11 +1,18 @@
 package org.gbif.d1.mn.backend;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.Date;
+import java.util.Optional;
 
 import javax.annotation.Nullable;
 
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Closeables;
+import org.dataone.ns.service.apis.v1.ObjectHandle;
 import org.dataone.ns.service.apis.v1.SystemMetadataProvider;
+import org.dataone.ns.service.exceptions.ServiceFailure;
+import org.dataone.ns.service.exceptions.VersionMismatch;
 import org.dataone.ns.service.types.v1.Checksum;
 import org.dataone.ns.service.types.v1.DescribeResponse;
 import org.dataone.ns.service.types.v1.Identifier;
@@ -31,12 +38,28 @@ public interface MNBackend extends SystemMetadataProvider {
    */
   Checksum checksum(Identifier identifier, String checksumAlgorithm);
 
+  /**
+   * Provides the checksum for a resolved object.
+   *
+   * @see #checksum(Identifier, String)
+   */
+  default Checksum checksum(ObjectHandle object, String checksumAlgorithm) {
+    return checksum(object.getIdentifier(), checksumAlgorithm);
+  }
+
   /**
    * Indicates the back-end can be closed which might close resources, and flush caches.
    * Once closed, the back-end will not be reopened.
    */
   void close();
 
+  /**
+   * Stores a new object. Implementations must reject the object, without making it visible, if its content doesn't
+   * match the checksum and size declared in the system metadata.
+   *
+   * @throws org.dataone.ns.service.exceptions.InvalidSystemMetadata if the checksum or size don't match the object
+   * @see ChecksumVerifyingInputStream
+   */
   Identifier create(Session session, Identifier pid, InputStream object, SystemMetadata sysmeta);
 
   /**
@@ -56,6 +79,15 @@ public interface MNBackend extends SystemMetadataProvider {
    */
   DescribeResponse describe(Identifier identifier);
 
+  /**
+   * Returns a description of a resolved object.
+   *
+   * @see #describe(Identifier)
+   */
+  default DescribeResponse describe(ObjectHandle object) {
+    return describe(object.getIdentifier());
+  }
+
   Identifier generateIdentifier(Session session, String scheme, String fragment);
 
   /**
@@ -66,6 +98,69 @@ public interface MNBackend extends SystemMetadataProvider {
    */
   InputStream get(Identifier identifier);
 
+  /**
+   * Gets a stream to a resolved object.
+   *
+   * @see #get(Identifier)
+   */
+  default InputStream get(ObjectHandle object) {
+    return get(object.getIdentifier());
+  }
+
+  /**
+   * Gets a stream to a range of bytes of the identified object. Implementations should override this to avoid reading
+   * the bytes before the range.
+   *
+   * @param identifier for the object
+   * @param offset position of the first byte to read
+   * @param length number of bytes to read, fewer are returned if the object ends before
+   * @return the stream or null if not found
+   */
+  default InputStream get(Identifier identifier, long offset, long length) {
+    InputStream in = get(identifier);
+    if (in == null) {
+      return null;
+    }
+    try {
+      ByteStreams.skipFully(in, offset);
+      return ByteStreams.limit(in, length);
+    } catch (IOException ex) {
+      Closeables.closeQuietly(in);
+      throw new ServiceFailure("Error reading object " + identifier.getValue());
+    }
+  }
+
+  /**
+   * Gets a stream to a range of bytes of a resolved object.
+   *
+   * @see #get(Identifier, long, long)
+   */
+  default InputStream get(ObjectHandle object, long offset, long length) {
+    return get(object.getIdentifier(), offset, length);
+  }
+
+  /**
+   * Opens a range of bytes of a resolved object, as a file channel of the whole object for back-ends storing objects as
+   * local files, which lets the REST layer serve them without copying the bytes through the heap. The content is
+   * opened only once whatever its form, and the caller closes it.
+   *
+   * @return the content, by default the stream of {@link #get(ObjectHandle, long, long)}
+   */
+  default ObjectContent content(ObjectHandle object, long offset, long length) {
+    return ObjectContent.of(get(object, offset, length));
+  }
+
+  /**
+   * Opens the system metadata of a resolved object as the XML document stored by the back-end, an optional capability
+   * which lets the REST layer serve it without unmarshalling and marshalling it again. The document must be the XML
+   * representation of {@link ObjectHandle#getSystemMetadata()}, valid against the DataONE types schema.
+   *
+   * @return the stream or empty if the back-end doesn't store the document as it must be served
+   */
+  default Optional<InputStream> systemMetadataXml(ObjectHandle object) {
+    return Optional.empty();
+  }
+
   /**
    * Gets a stream to the identified object.
    *
@@ -97,6 +192,18 @@ public interface MNBackend extends SystemMetadataProvider {
    */
   SystemMetadata systemMetadata(Identifier identifier);
 
+  /**
+   * Resolves the identified object, so that the operations of a single request can share a single lookup of the object
+   * and of its system metadata. Implementations are expected to override this together with the methods accepting
+   * an {@link ObjectHandle}, the default defers all the work to {@link #systemMetadata(Identifier)}.
+   *
+   * @param identifier for the object
+   * @return a handle to the object, valid for the current request only
+   */
+  default ObjectHandle resolve(Identifier identifier) {
+    return ObjectHandle.of(identifier, () -> systemMetadata(identifier));
+  }
+
   /**
    *
    * @param session
@@ -114,5 +221,17 @@ public interface MNBackend extends SystemMetadataProvider {
    */
   long getEstimateCapacity();
 
+  /**
+   * Replaces the system metadata of an object as a compare-and-set on its serial version: the system metadata must
+   * carry the serial version stored, or none, and is stored with that serial version incremented.
+   *
+   * @throws VersionMismatch if the serial version isn't the one stored
+   */
   boolean updateMetadata(Session session, Identifier pid, SystemMetadata sysmeta);
+
+  /**
+   * Replaces the system metadata of an object with the authoritative copy held by the coordinating node, which is
+   * stored as it is, serial version included.
+   */
+  boolean synchronizeMetadata(Session session, Identifier pid, SystemMetadata sysmeta);
 }
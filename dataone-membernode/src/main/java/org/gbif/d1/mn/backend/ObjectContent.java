@@ -0,0 +1,58 @@
+package org.gbif.d1.mn.backend;
+
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.util.Optional;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Opened content of an object, either as a file channel of the whole object or as a stream of the requested range.
+ * <p>
+ * Back-ends storing objects as local files return the channel so that the REST layer serves them without copying the
+ * bytes through the heap, seeking the range itself. The content is opened once, and the caller closes whichever is
+ * present.
+ */
+@Immutable
+public final class ObjectContent {
+
+  @Nullable
+  private final FileChannel channel;
+  @Nullable
+  private final InputStream stream;
+
+  private ObjectContent(@Nullable FileChannel channel, @Nullable InputStream stream) {
+    this.channel = channel;
+    this.stream = stream;
+  }
+
+  /**
+   * @param channel of the whole object
+   */
+  public static ObjectContent of(FileChannel channel) {
+    return new ObjectContent(Preconditions.checkNotNull(channel), null);
+  }
+
+  /**
+   * @param stream of the requested range of the object
+   */
+  public static ObjectContent of(InputStream stream) {
+    return new ObjectContent(null, Preconditions.checkNotNull(stream));
+  }
+
+  /**
+   * @return the channel of the whole object, or empty if the content is a stream
+   */
+  public Optional<FileChannel> getChannel() {
+    return Optional.ofNullable(channel);
+  }
+
+  /**
+   * @return the stream of the requested range, or empty if the content is a channel
+   */
+  public Optional<InputStream> getStream() {
+    return Optional.ofNullable(stream);
+  }
+}
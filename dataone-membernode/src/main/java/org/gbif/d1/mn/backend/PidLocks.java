@@ -0,0 +1,82 @@
+package org.gbif.d1.mn.backend;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Striped;
+import org.dataone.ns.service.exceptions.VersionMismatch;
+import org.dataone.ns.service.types.v1.Identifier;
+import org.dataone.ns.service.types.v1.SystemMetadata;
+
+/**
+ * Locks serializing the mutations of an object, shared by the back-ends.
+ * <p>
+ * Identifiers are hashed onto a fixed number of stripes, so that the read-modify-write sequences on an object (create,
+ * update, updateMetadata, archive, etc.) run one at a time while mutations of unrelated objects rarely contend. Within
+ * the lock, {@link #nextSerialVersion} rejects changes made against a stale copy of the system metadata.
+ */
+@ThreadSafe
+public final class PidLocks {
+
+  private static final int DEFAULT_STRIPES = 1024;
+
+  private final Striped<Lock> stripes;
+
+  public PidLocks() {
+    this(DEFAULT_STRIPES);
+  }
+
+  public PidLocks(int stripes) {
+    this.stripes = Striped.lazyWeakLock(stripes);
+  }
+
+  /**
+   * Runs the action holding the locks of all the identifiers. The locks are acquired in a consistent order, so that
+   * mutations involving several objects, such as an update obsoleting an object, can't deadlock each other.
+   *
+   * @param pids identifiers of the objects mutated, null values are ignored
+   */
+  public <T> T withLocks(Supplier<T> action, Identifier... pids) {
+    List<String> keys = Arrays.stream(pids).filter(Objects::nonNull).map(Identifier::getValue)
+      .collect(Collectors.toList());
+    // in stripe order, the same stripe might appear more than once but the locks are reentrant
+    List<Lock> locks = Lists.newArrayList(stripes.bulkGet(keys));
+    int held = 0;
+    try {
+      for (Lock lock : locks) {
+        lock.lock();
+        held++;
+      }
+      return action.get();
+    } finally {
+      for (int i = held - 1; i >= 0; i--) {
+        locks.get(i).unlock();
+      }
+    }
+  }
+
+  /**
+   * Compares the serial version of a change of system metadata with the one stored, as a compare-and-set: the change
+   * must have been made against the stored serial version, which is then incremented.
+   *
+   * @param current the system metadata stored
+   * @param proposed serial version the change was made against, null to increment the one stored unconditionally
+   * @return the serial version to store
+   * @throws VersionMismatch if the proposed serial version isn't the one stored
+   */
+  public static BigInteger nextSerialVersion(SystemMetadata current, @Nullable BigInteger proposed) {
+    BigInteger stored = current.getSerialVersion() == null ? BigInteger.ONE : current.getSerialVersion();
+    if (proposed != null && !proposed.equals(stored)) {
+      throw new VersionMismatch("Serial version " + proposed + " doesn't match the stored serial version " + stored);
+    }
+    return stored.add(BigInteger.ONE);
+  }
+}
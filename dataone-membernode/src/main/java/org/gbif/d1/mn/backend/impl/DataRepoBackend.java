@@ -6,8 +6,11 @@ import org.gbif.api.model.common.paging.Pageable;
 import org.gbif.api.model.common.paging.PagingRequest;
 import org.gbif.api.model.common.paging.PagingResponse;
 import org.gbif.api.vocabulary.IdentifierType;
+import org.gbif.d1.mn.backend.ChecksumVerifyingInputStream;
 import org.gbif.d1.mn.backend.Health;
 import org.gbif.d1.mn.backend.MNBackend;
+import org.gbif.d1.mn.backend.ObjectContent;
+import org.gbif.d1.mn.backend.PidLocks;
 import org.gbif.datarepo.api.DataRepository;
 import org.gbif.datarepo.api.model.DataPackage;
 import org.gbif.datarepo.api.model.DataPackageFile;
@@ -15,11 +18,13 @@ import org.gbif.datarepo.api.model.FileInputContent;
 import org.gbif.registry.doi.DoiType;
 import org.gbif.registry.doi.registration.DoiRegistrationService;
 
-import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.StringWriter;
 import java.math.BigInteger;
-import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Collections;
 import java.util.Date;
 import java.util.GregorianCalendar;
@@ -29,21 +34,38 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.TimeZone;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
-import javax.xml.bind.JAXBContext;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
 import javax.xml.bind.JAXBException;
 import javax.xml.datatype.DatatypeConfigurationException;
 import javax.xml.datatype.DatatypeFactory;
 import javax.xml.datatype.XMLGregorianCalendar;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Closeables;
+import com.google.common.io.CountingInputStream;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.dropwizard.lifecycle.Managed;
+import org.dataone.ns.service.apis.v1.ObjectHandle;
 import org.dataone.ns.service.types.v1.AccessPolicy;
 import org.dataone.ns.service.types.v1.AccessRule;
 import org.dataone.ns.service.types.v1.Checksum;
 import org.dataone.ns.service.types.v1.DescribeResponse;
 import org.dataone.ns.service.types.v1.Identifier;
+import org.dataone.ns.service.types.v1.JaxbPool;
 import org.dataone.ns.service.types.v1.NodeReference;
 import org.dataone.ns.service.types.v1.ObjectInfo;
 import org.dataone.ns.service.types.v1.ObjectList;
@@ -57,9 +79,8 @@ import org.slf4j.LoggerFactory;
 /**
  * Implementation of Member Node Backend supported on the GBIF Data Repo.
  */
-public class DataRepoBackend implements MNBackend {
+public class DataRepoBackend implements MNBackend, Managed {
 
-  private static final int MAX_PAGE_SIZE = 20;
   private static final String DATA_ONE_TAG_PREFIX = "DataOne";
   private static final String DEFAULT_FORMAT_ID = "application/octet-stream";
 
@@ -68,22 +89,27 @@ public class DataRepoBackend implements MNBackend {
   private static final String CHECKSUM_ALGORITHM  = "MD5";
   private static final String CONTENT_FILE  = "content";
   private static final String SYS_METADATA_FILE  = "dataone_system_metadata.xml";
-  private static final JAXBContext JAXB_CONTEXT = getSystemMetadataJaxbContext();
+  private static final Pattern UUID_PATTERN =
+    Pattern.compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+  // documents are validated when written, so that the stored bytes can be served as they are
+  private static final JaxbPool JAXB = JaxbPool.newInstance(JaxbPool.dataoneTypesSchema(), SystemMetadata.class);
 
   private final DataRepository dataRepository;
   private final DoiRegistrationService doiRegistrationService;
   private final DataRepoBackendConfiguration configuration;
-
-  /**
-   * Initializes a JAXBContext.
-   */
-  private static JAXBContext getSystemMetadataJaxbContext() {
-    try {
-      return JAXBContext.newInstance(SystemMetadata.class);
-    } catch (Exception ex) {
-      throw new RuntimeException(ex);
-    }
-  }
+  private final SystemMetadataCache systemMetadataCache;
+  private final IdentifierIndex identifierIndex;
+  private final IdentifierFilter identifierFilter;
+  private final MetricRegistry metricRegistry;
+  private final String identifierIndexSize;
+  private final String identifierFilterInsertions;
+  // serializes the mutations of each object
+  private final PidLocks pidLocks = new PidLocks();
+  // loads the identifier index and filter, one load at a time
+  private final ScheduledExecutorService identifierLoader =
+    Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("identifier-loader-%d")
+                                                 .setDaemon(true).build());
+  private volatile Future<?> initialLoad;
 
   /**
    * Gets the checksum of a data package.
@@ -122,13 +148,11 @@ public class DataRepoBackend implements MNBackend {
    */
   private static FileInputContent toFileContent(SystemMetadata sysmeta) throws InvalidSystemMetadata {
     try {
-      StringWriter xmlMetadata = new StringWriter();
-      JAXB_CONTEXT.createMarshaller().marshal(sysmeta, xmlMetadata);
-      return FileInputContent.from(SYS_METADATA_FILE,
-                                   wrapInInputStream(xmlMetadata.toString()));
+      return FileInputContent.from(SYS_METADATA_FILE, JAXB.marshalToStream(sysmeta));
     } catch (JAXBException ex) {
-      LOG.error("Error reading xml metadata", ex);
-      throw new InvalidSystemMetadata("Error reading system metadata");
+      LOG.error("Invalid system metadata", ex);
+      throw new InvalidSystemMetadata("System metadata is not valid: "
+                                      + Optional.ofNullable(ex.getLinkedException()).orElse(ex).getMessage());
     }
   }
 
@@ -142,9 +166,11 @@ public class DataRepoBackend implements MNBackend {
 
   /**
    *  Asserts that an pid exist, throws IdentifierNotUnique otherwise.
+   *  The data repository is always queried, since a filter miss can't rule out packages created by other clients.
    */
   private void assertNotExists(Identifier pid) {
-    if (dataRepository.getByAlternativeIdentifier(pid.getValue()).isPresent()) {
+    if (identifierIndex.get(pid.getValue()).isPresent()
+        || dataRepository.getByAlternativeIdentifier(pid.getValue()).isPresent()) {
       throw new IdentifierNotUnique("Identifier already exists", pid.getValue());
     }
   }
@@ -155,23 +181,80 @@ public class DataRepoBackend implements MNBackend {
     }
   }
 
-  /**
-   * Wraps a String in a ByteArrayInputStream.
-   */
-  private static InputStream wrapInInputStream(String in) {
-    return new ByteArrayInputStream(in.getBytes(StandardCharsets.UTF_8));
-  }
-
   /**
    * Full constructor.
    * @param dataRepository data repository implementation
    * @param doiRegistrationService registration service
+   * @param configuration backend configuration
+   * @param metricRegistry registry where the cache metrics are published
    */
   public DataRepoBackend(DataRepository dataRepository, DoiRegistrationService doiRegistrationService,
-                         DataRepoBackendConfiguration configuration) {
+                         DataRepoBackendConfiguration configuration, MetricRegistry metricRegistry) {
     this.dataRepository = dataRepository;
     this.doiRegistrationService = doiRegistrationService;
     this.configuration = configuration;
+    this.metricRegistry = metricRegistry;
+    // metrics are named after the data repository, so that backends of different repositories can share the registry
+    String repository = configuration.getDataRepoConfiguration().getDataRepoName();
+    systemMetadataCache = new SystemMetadataCache(configuration.getSystemMetadataCacheMaxWeight(),
+                                                  configuration.getSystemMetadataCacheExpiry(), metricRegistry,
+                                                  repository);
+    identifierIndex = new IdentifierIndex(dataRepository, configuration.getIdentifierLoadPageSize());
+    identifierIndexSize = MetricRegistry.name(IdentifierIndex.class, repository, "size");
+    metricRegistry.register(identifierIndexSize, (Gauge<Integer>) identifierIndex::size);
+    identifierFilter = new IdentifierFilter(dataRepository, configuration.getIdentifierLoadPageSize(),
+                                            configuration.getIdentifierFilterExpectedInsertions(),
+                                            configuration.getIdentifierFilterFpp());
+    identifierFilterInsertions = MetricRegistry.name(IdentifierFilter.class, repository, "insertions");
+    metricRegistry.register(identifierFilterInsertions, (Gauge<Long>) identifierFilter::insertions);
+  }
+
+  /**
+   * Loads the identifier index and filter in the background, so that startup isn't delayed by paging through all the
+   * data packages and identifiers of the data repository. Until then the index misses and the filter might contain
+   * every identifier, so requests received meanwhile are resolved against the data repository. The filter is then reloaded periodically to pick up data packages created
+   * by other clients of the data repository.
+   */
+  @Override
+  public void start() {
+    initialLoad = identifierLoader.submit(() -> {
+      try {
+        identifierIndex.load();
+      } catch (Exception ex) {
+        LOG.error("Error loading the identifier index, identifiers are looked up in the data repository", ex);
+      }
+      loadIdentifierFilter();
+    });
+    long interval = configuration.getIdentifierFilterReloadInterval().toMilliseconds();
+    identifierLoader.scheduleWithFixedDelay(this::loadIdentifierFilter, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  private void loadIdentifierFilter() {
+    try {
+      identifierFilter.load();
+    } catch (Exception ex) {
+      LOG.error("Error loading the identifier filter", ex);
+    }
+  }
+
+  /**
+   * Waits for the identifier index and filter loaded by {@link #start()}.
+   */
+  @VisibleForTesting
+  void awaitInitialLoad() throws InterruptedException, ExecutionException {
+    initialLoad.get();
+  }
+
+  /**
+   * Also removes the metrics of this backend, so that another backend of the same repository can be created.
+   */
+  @Override
+  public void stop() {
+    identifierLoader.shutdownNow();
+    systemMetadataCache.removeMetrics();
+    metricRegistry.remove(identifierIndexSize);
+    metricRegistry.remove(identifierFilterInsertions);
+    close();
   }
 
   @Override
@@ -180,6 +263,12 @@ public class DataRepoBackend implements MNBackend {
     return getAndConsume(identifier, DataRepoBackend::dataPackageChecksum);
   }
 
+  @Override
+  public Checksum checksum(ObjectHandle object, String checksumAlgorithm) {
+    validateChecksum(checksumAlgorithm);
+    return dataPackageChecksum(toDataPackage(object));
+  }
+
   @Override
   public void close() {
     // NOP
@@ -188,6 +277,10 @@ public class DataRepoBackend implements MNBackend {
 
   @Override
   public Identifier create(Session session, Identifier pid, InputStream object, SystemMetadata sysmeta) {
+    return pidLocks.withLocks(() -> createDataPackage(session, pid, object, sysmeta), pid);
+  }
+
+  private Identifier createDataPackage(Session session, Identifier pid, InputStream object, SystemMetadata sysmeta) {
     try {
       assertNotExists(pid);
       DataPackage dataPackage = new DataPackage();
@@ -202,11 +295,56 @@ public class DataRepoBackend implements MNBackend {
       dataPackage.setCreated(creationDate);
       dataPackage.setModified(creationDate);
       dataPackage.addTag(DATA_ONE_TAG_PREFIX);
-      dataRepository.create(dataPackage, Lists.newArrayList(toFileContent(object), toFileContent(sysmeta)), false);
+      Path staged = stage(object, sysmeta);
+      DataPackage created;
+      try (InputStream content = Files.newInputStream(staged)) {
+        created = dataRepository.create(dataPackage,
+                                        Lists.newArrayList(toFileContent(content), toFileContent(sysmeta)), false);
+      } finally {
+        deleteStaged(staged);
+      }
+      identifierIndex.put(pid.getValue(), created.getKey());
+      identifierFilter.put(pid.getValue());
+      identifierFilter.put(created.getKey().toString());
       return pid;
     } catch (JAXBException ex) {
       LOG.error("Error processing metadata", ex);
       throw new InvalidSystemMetadata("Error registering data package metadata");
+    } catch (IOException ex) {
+      LOG.error("Error reading the staged content of {}", pid.getValue(), ex);
+      throw new ServiceFailure("Error reading the data object");
+    }
+  }
+
+  /**
+   * Copies the object to a temporary file, verifying it against the checksum and size of the system metadata, so that
+   * the data repository only receives verified content and a package is never visible with a corrupt object.
+   *
+   * @throws InvalidSystemMetadata if the object doesn't match the system metadata, or it is truncated
+   */
+  private static Path stage(InputStream object, SystemMetadata sysmeta) {
+    ChecksumVerifyingInputStream verifying = new ChecksumVerifyingInputStream(object, sysmeta);
+    Path staged = null;
+    try {
+      staged = Files.createTempFile("dataone-", ".staged");
+      Files.copy(verifying, staged, StandardCopyOption.REPLACE_EXISTING);
+      return staged;
+    } catch (IOException ex) {
+      if (staged != null) {
+        deleteStaged(staged);
+      }
+      // the copy fails on a checksum or size mismatch
+      verifying.verify();
+      LOG.error("Error staging a data object", ex);
+      throw new ServiceFailure("Error staging the data object");
+    }
+  }
+
+  private static void deleteStaged(Path staged) {
+    try {
+      Files.deleteIfExists(staged);
+    } catch (IOException ex) {
+      LOG.warn("Unable to delete the staged object {}", staged, ex);
     }
   }
 
@@ -214,22 +352,30 @@ public class DataRepoBackend implements MNBackend {
   @Override
   public Identifier delete(Session session, Identifier pid) {
     LOG.info("Deleting data package {}, session: {}", pid, session);
-    return getAndConsume(pid, dataPackage -> {
+    return pidLocks.withLocks(() -> getAndConsume(pid, dataPackage -> {
                                                 dataRepository.delete(dataPackage.getKey());
+                                                systemMetadataCache.invalidate(pid, dataPackage.getKey());
+                                                // still found in the data repository, as deleted
+                                                identifierIndex.remove(pid.getValue(), dataPackage.getKey());
                                                 return pid;
-                                              });
+                                              }), pid);
   }
 
   @Override
   public DescribeResponse describe(Identifier identifier) {
-    return getAndConsume(identifier, dataPackage -> {
-                                      SystemMetadata systemMetadata = systemMetadata(identifier);
-                                      return new DescribeResponse(systemMetadata.getFormatId(),
-                                                                  systemMetadata.getSize(),
-                                                                  dataPackage.getModified(),
-                                                                  systemMetadata.getChecksum(),
-                                                                  systemMetadata.getSerialVersion());
-                                      });
+    return describe(resolve(identifier));
+  }
+
+  @Override
+  public DescribeResponse describe(ObjectHandle object) {
+    SystemMetadata systemMetadata = object.getSystemMetadata();
+    return new DescribeResponse(systemMetadata.getFormatId(),
+                                systemMetadata.getSize(),
+                                Optional.ofNullable(systemMetadata.getDateSysMetadataModified())
+                                  .map(date -> date.toGregorianCalendar().getTime())
+                                  .orElseGet(() -> toDataPackage(object).getModified()),
+                                systemMetadata.getChecksum(),
+                                systemMetadata.getSerialVersion());
   }
 
   @Override
@@ -245,9 +391,57 @@ public class DataRepoBackend implements MNBackend {
 
   @Override
   public InputStream get(Identifier identifier) {
-    return getAndConsume(identifier, dataPackage ->
-            dataRepository.getFileInputStream(dataPackage.getKey(), dataPackage.getFiles().iterator().next().getFileName())
-          ).orElseThrow(() -> new NotFound("Content file not found for identifier", identifier.getValue()));
+    return get(resolve(identifier));
+  }
+
+  @Override
+  public InputStream get(ObjectHandle object) {
+    DataPackage dataPackage = toDataPackage(object);
+    String contentFile = dataPackage.getFiles().iterator().next().getFileName();
+    return dataRepository.getFileInputStream(dataPackage.getKey(), contentFile)
+            .orElseThrow(() -> new NotFound("Content file not found for identifier",
+                                            object.getIdentifier().getValue()));
+  }
+
+  @Override
+  public InputStream get(Identifier identifier, long offset, long length) {
+    return get(resolve(identifier), offset, length);
+  }
+
+  /**
+   * Seeks to the offset when the repository stores the content as a local file, skips to it otherwise.
+   */
+  @Override
+  public InputStream get(ObjectHandle object, long offset, long length) {
+    return range(object, get(object), offset, length);
+  }
+
+  /**
+   * The channel of the content when the repository stores it as a local file, the stream of the range otherwise.
+   */
+  @Override
+  public ObjectContent content(ObjectHandle object, long offset, long length) {
+    InputStream in = get(object);
+    if (in instanceof FileInputStream) {
+      // closing the channel closes the stream
+      return ObjectContent.of(((FileInputStream) in).getChannel());
+    }
+    return ObjectContent.of(range(object, in, offset, length));
+  }
+
+  private static InputStream range(ObjectHandle object, InputStream in, long offset, long length) {
+    try {
+      if (in instanceof FileInputStream) {
+        ((FileInputStream) in).getChannel().position(offset);
+      } else {
+        ByteStreams.skipFully(in, offset);
+      }
+      return ByteStreams.limit(in, length);
+    } catch (IOException ex) {
+      Closeables.closeQuietly(in);
+      LOG.error("Error reading content of {}", object.getIdentifier().getValue(), ex);
+      throw new ServiceFailure("Error reading content file");
+    }
   }
 
   @Override
@@ -258,46 +452,136 @@ public class DataRepoBackend implements MNBackend {
   @Override
   public ObjectList listObjects(NodeReference self, Date fromDate, @Nullable Date toDate, @Nullable String formatId,
                                 @Nullable Boolean replicaStatus, @Nullable Integer start, @Nullable Integer count) {
+    int maxPageSize = configuration.getMaxPageSize();
     Pageable pagingRequest = new PagingRequest(Optional.ofNullable(start).orElse(0),
                                                Optional.ofNullable(count)
-                                                      .map(value -> Integer.min(value, MAX_PAGE_SIZE))
-                                                      .orElse(MAX_PAGE_SIZE));
+                                                      .map(value -> Integer.min(value, maxPageSize))
+                                                      .orElse(maxPageSize));
     PagingResponse<DataPackage> response =
             dataRepository.list(null, pagingRequest, fromDate, toDate, false, null, null, formatId);
-    return ObjectList.builder().withCount(Optional.ofNullable(response.getResults()).map(List::size).orElse(0))
+    List<DataPackage> results = Optional.ofNullable(response.getResults()).orElse(Collections.emptyList());
+    return ObjectList.builder().withCount(results.size())
       .withStart(Long.valueOf(response.getOffset()).intValue())
       .withTotal(Optional.ofNullable(response.getCount()).orElse(0L).intValue())
-      .withObjectInfo(response.getResults().stream()
-                        .map(dataPackage -> {
-                          PagingResponse<org.gbif.datarepo.api.model.Identifier> identifiers =
-                            dataRepository.listIdentifiers(null, null, null, dataPackage.getKey(), null,
-                                                         org.gbif.datarepo.api.model.Identifier.RelationType.IsAlternativeOf,
-                                                         null);
-                          SystemMetadata systemMetadata = systemMetadata(dataPackage);
-                          return ObjectInfo.builder()
-                          .withIdentifier(identifiers.getResults().isEmpty()? systemMetadata.getIdentifier() :
-                                          Identifier.builder()
-                                            .withValue(identifiers.getResults().get(0).getIdentifier()).build())
-                          .withFormatId(getFormatId(dataPackage))
-                          .withChecksum(systemMetadata.getChecksum())
-                          .withDateSysMetadataModified(toXmlGregorianCalendar(dataPackage
-                                                                                .getModified()))
-                          .withSize(systemMetadata.getSize())
-                          .build();
-                        })
-                        .collect(Collectors.toList()))
+      .withObjectInfo(results.stream().map(this::objectInfo).collect(Collectors.toList()))
       .build();
   }
 
+  /**
+   * Builds the ObjectInfo of a data package with the same identifier, checksum and size as its system metadata, so
+   * listings agree with getSystemMetadata. The system metadata file is read only the first time a package is listed,
+   * afterwards its checksum and size come from the summary kept by the cache and its identifier from the index.
+   */
+  private ObjectInfo objectInfo(DataPackage dataPackage) {
+    Identifier identifier;
+    Checksum checksum;
+    BigInteger size;
+    Optional<SystemMetadataCache.Summary> summary = systemMetadataCache.getSummary(dataPackage.getKey());
+    if (isPublishedHere(dataPackage) && summary.isPresent()) {
+      identifier = alternativeIdentifier(dataPackage).orElseGet(() -> pid(dataPackage));
+      checksum = summary.get().getChecksum();
+      size = summary.get().getSize();
+    } else {
+      // for packages not published here this is built from the data package, no file is read
+      SystemMetadata systemMetadata = systemMetadata(dataPackage);
+      identifier = systemMetadata.getIdentifier();
+      checksum = systemMetadata.getChecksum();
+      size = systemMetadata.getSize();
+    }
+    return ObjectInfo.builder()
+            .withIdentifier(identifier)
+            .withFormatId(getFormatId(dataPackage))
+            .withChecksum(checksum)
+            .withDateSysMetadataModified(toXmlGregorianCalendar(dataPackage.getModified()))
+            .withSize(size)
+            .build();
+  }
+
+  /**
+   * Gets the DataONE identifier of a data package published here from the identifier index, or from the data
+   * repository if the package was created after the index was loaded, by another client of the data repository.
+   */
+  private Identifier pid(DataPackage dataPackage) {
+    Optional<String> pid = identifierIndex.pid(dataPackage.getKey());
+    if (!pid.isPresent()) {
+      PagingResponse<org.gbif.datarepo.api.model.Identifier> identifiers =
+        dataRepository.listIdentifiers(null, null, null, dataPackage.getKey(), null,
+                                       org.gbif.datarepo.api.model.Identifier.RelationType.IsAlternativeOf, null);
+      pid = Optional.ofNullable(identifiers.getResults())
+              .flatMap(results -> results.stream().findFirst())
+              .map(org.gbif.datarepo.api.model.Identifier::getIdentifier);
+      pid.ifPresent(value -> identifierIndex.put(value, dataPackage.getKey()));
+    }
+    return pid.map(value -> Identifier.builder().withValue(value).build())
+            .orElseGet(() -> systemMetadata(dataPackage).getIdentifier());
+  }
+
+  /**
+   * Gets the DataONE identifier stored as alternative identifier of the data package, if it was loaded with it.
+   */
+  private static Optional<Identifier> alternativeIdentifier(DataPackage dataPackage) {
+    return Optional.ofNullable(dataPackage.getRelatedIdentifiers())
+            .flatMap(identifiers -> identifiers.stream()
+                                      .filter(identifier -> org.gbif.datarepo.api.model.Identifier.RelationType
+                                                              .IsAlternativeOf == identifier.getRelationType())
+                                      .findFirst())
+            .map(identifier -> Identifier.builder().withValue(identifier.getIdentifier()).build());
+  }
+
+  @Override
+  public ObjectHandle resolve(Identifier identifier) {
+    return getAndConsume(identifier, dataPackage -> new DataPackageHandle(identifier, dataPackage));
+  }
+
+  /**
+   * Gets the data package of a handle, without a lookup if it was resolved by this backend.
+   */
+  private DataPackage toDataPackage(ObjectHandle object) {
+    if (object instanceof DataPackageHandle) {
+      return ((DataPackageHandle) object).dataPackage;
+    }
+    return getAndConsume(object.getIdentifier(), dataPackage -> dataPackage);
+  }
+
+  /**
+   * Available for the packages published through this repository, whose system metadata file was validated when
+   * written, unless the file predates the serialVersion being stored and is completed when read.
+   */
+  @Override
+  public Optional<InputStream> systemMetadataXml(ObjectHandle object) {
+    DataPackage dataPackage = toDataPackage(object);
+    if (!isPublishedHere(dataPackage)
+        || !systemMetadataCache.getEntry(dataPackage.getKey(), () -> loadSystemMetadata(dataPackage)).isAsStored()) {
+      return Optional.empty();
+    }
+    return dataRepository.getFileInputStream(dataPackage.getKey(), SYS_METADATA_FILE);
+  }
+
   @Override
   public SystemMetadata systemMetadata(Identifier identifier) {
-    return getAndConsume(identifier,  dataPackage -> Optional.ofNullable(systemMetadata(dataPackage)))
-            .orElseThrow(() -> new NotFound("Metadata Not Found for Identifier", identifier.getValue()));
+    return systemMetadataCache.getIfPresent(identifier)
+            .orElseGet(() -> getAndConsume(identifier, dataPackage -> {
+                               SystemMetadata systemMetadata = systemMetadata(dataPackage);
+                               systemMetadataCache.index(identifier, dataPackage.getKey());
+                               return Optional.ofNullable(systemMetadata);
+                             })
+            .orElseThrow(() -> new NotFound("Metadata Not Found for Identifier", identifier.getValue())));
   }
 
+  /**
+   * Gets the SystemMetadata of a data package, reading it from the cache if possible.
+   */
   private SystemMetadata systemMetadata(DataPackage dataPackage) {
-    if(!dataPackage.getPublishedIn().equalsIgnoreCase(configuration.getDataRepoConfiguration().getDataRepoName())) {
-      return SystemMetadata.builder().withIdentifier(Identifier.builder().withValue(dataPackage.getKey().toString())
+    return systemMetadataCache.get(dataPackage.getKey(), () -> loadSystemMetadata(dataPackage));
+  }
+
+  /**
+   * Loads the SystemMetadata of a data package, packages not published through this repository get a metadata
+   * derived from the data package itself.
+   */
+  private SystemMetadataCache.Entry loadSystemMetadata(DataPackage dataPackage) {
+    if(!isPublishedHere(dataPackage)) {
+      SystemMetadata metadata = SystemMetadata.builder().withIdentifier(Identifier.builder().withValue(dataPackage.getKey().toString())
                                                        .build())
               .withChecksum(Checksum.builder().withValue(dataPackage.getChecksum()).withAlgorithm("MD5").build())
               .withDateSysMetadataModified(toXmlGregorianCalendar(dataPackage.getModified()))
@@ -313,8 +597,16 @@ public class DataRepoBackend implements MNBackend {
                                                .withSubject(Subject.builder().withValue("public").build()).build()).build())
               .withOriginMemberNode(configuration.getNode().getIdentifier())
               .build();
+      return new SystemMetadataCache.Entry(metadata, SystemMetadataCache.DEFAULT_WEIGHT);
     }
-    return systemMetadata(dataPackage.getKey());
+    return readSystemMetadata(dataPackage.getKey());
+  }
+
+  /**
+   * Is the data package published through this repository, i.e. does it have a system metadata file.
+   */
+  private boolean isPublishedHere(DataPackage dataPackage) {
+    return dataPackage.getPublishedIn().equalsIgnoreCase(configuration.getDataRepoConfiguration().getDataRepoName());
   }
 
   /**
@@ -325,18 +617,21 @@ public class DataRepoBackend implements MNBackend {
   }
 
   /**
-   * Extracts the SystemMetadata from the data package UUID.
+   * Reads the SystemMetadata file of the data package UUID, bypassing the cache.
    */
-  private SystemMetadata systemMetadata(UUID dataPackageKey) {
+  private SystemMetadataCache.Entry readSystemMetadata(UUID dataPackageKey) {
     return  dataRepository.getFileInputStream(dataPackageKey, SYS_METADATA_FILE)
               .map(file -> {
-                try {
-                  SystemMetadata metadata = (SystemMetadata)JAXB_CONTEXT.createUnmarshaller().unmarshal(file);
-                  if (metadata.getSerialVersion() == null) {
-                    return metadata.newCopyBuilder().withSerialVersion(BigInteger.ONE).build();
+                try (CountingInputStream in = new CountingInputStream(file)) {
+                  SystemMetadata metadata = JAXB.unmarshal(in, SystemMetadata.class);
+                  // files written before the serialVersion was stored
+                  boolean asStored = metadata.getSerialVersion() != null;
+                  if (!asStored) {
+                    metadata = metadata.newCopyBuilder().withSerialVersion(BigInteger.ONE).build();
                   }
-                  return metadata;
-                } catch (JAXBException ex) {
+                  return new SystemMetadataCache.Entry(metadata, (int) Math.min(in.getCount(), Integer.MAX_VALUE),
+                                                       asStored);
+                } catch (JAXBException | IOException ex) {
                   LOG.error("Error reading XML system metadata", ex);
                   throw new InvalidSystemMetadata("Error reading system metadata");
                 }
@@ -367,11 +662,11 @@ public class DataRepoBackend implements MNBackend {
   @Override
   public Identifier update(Session session, Identifier pid, InputStream object, Identifier newPid,
                            SystemMetadata sysmeta) {
-    return getAndConsume(pid, dataPackage -> {
+    return pidLocks.withLocks(() -> getAndConsume(pid, dataPackage -> {
             validateUpdateMetadata(sysmeta, pid);
             assertNotExists(newPid);
             assertIsAuthorized(session, dataPackage);
-            SystemMetadata obsoletedMetadata = getSystemMetadata(session, pid);
+            SystemMetadata obsoletedMetadata = loadSystemMetadata(dataPackage).getSystemMetadata();
             validateIsObsoleted(obsoletedMetadata);
             Date dateNow = new Date();
             XMLGregorianCalendar now = toXmlGregorianCalendar(dateNow);
@@ -383,33 +678,50 @@ public class DataRepoBackend implements MNBackend {
                                   Collections.singletonList(toFileContent(obsoletedMetadata.newCopyBuilder()
                                                                             .withObsoletedBy(newPid)
                                                                             .withDateSysMetadataModified(now)
+                                                                            .withSerialVersion(
+                                                                              PidLocks.nextSerialVersion(
+                                                                                obsoletedMetadata, null))
                                                                             .build())),
                                   DataRepository.UpdateMode.APPEND);
+            systemMetadataCache.invalidate(pid, dataPackage.getKey());
             return create(session, newPid, object, sysmeta.newCopyBuilder()
                                                     .withDateSysMetadataModified(now)
                                                     .withObsoletes(pid)
                                                     .build());
-        });
+        }), pid, newPid);
 
   }
 
   @Override
   public boolean updateMetadata(Session session, Identifier pid, SystemMetadata sysmeta) {
-    return getAndConsume(pid, dataPackage -> {
-        validateUpdateMetadata(sysmeta, pid);
+    validateUpdateMetadata(sysmeta, pid);
+    return replaceMetadata(session, pid, current -> sysmeta.newCopyBuilder()
+      .withDateSysMetadataModified(toXmlGregorianCalendar(new Date()))
+      .withSerialVersion(PidLocks.nextSerialVersion(current, sysmeta.getSerialVersion()))
+      .build());
+  }
+
+  @Override
+  public boolean synchronizeMetadata(Session session, Identifier pid, SystemMetadata sysmeta) {
+    return replaceMetadata(session, pid, current -> sysmeta);
+  }
+
+  /**
+   * Stores the system metadata derived from the current one, holding the lock of the object. The copy of the
+   * coordinating node is not validated, it might for instance be obsoleted by an object held elsewhere.
+   */
+  private boolean replaceMetadata(Session session, Identifier pid, Function<SystemMetadata, SystemMetadata> update) {
+    return pidLocks.withLocks(() -> getAndConsume(pid, dataPackage -> {
         assertIsAuthorized(session, dataPackage);
         if (dataPackage.getDeleted() != null) {
           throw new NotFound("Deleted objects can't be updated", pid.getValue());
         }
-        dataRepository.update(dataPackage,
-                              Collections.singletonList(toFileContent(sysmeta.newCopyBuilder()
-                                                                        .withDateSysMetadataModified(
-                                                                          toXmlGregorianCalendar(new Date()))
-                                                                        .build())),
+        SystemMetadata updated = update.apply(loadSystemMetadata(dataPackage).getSystemMetadata());
+        dataRepository.update(dataPackage, Collections.singletonList(toFileContent(updated)),
                               DataRepository.UpdateMode.APPEND);
+        systemMetadataCache.invalidate(pid, dataPackage.getKey());
         return Boolean.TRUE;
-    });
-
+    }), pid);
   }
 
   @Override
@@ -419,17 +731,20 @@ public class DataRepoBackend implements MNBackend {
 
   @Override
   public void archive(Session session, Identifier identifier) {
-    getAndConsume(identifier, dataPackage -> {
+    pidLocks.withLocks(() -> getAndConsume(identifier, dataPackage -> {
         assertIsAuthorized(session, dataPackage);
-        SystemMetadata metadata = systemMetadata(dataPackage.getKey()).newCopyBuilder()
+        SystemMetadata current = readSystemMetadata(dataPackage.getKey()).getSystemMetadata();
+        SystemMetadata metadata = current.newCopyBuilder()
                                                   .withArchived(Boolean.TRUE)
+                                                  .withSerialVersion(PidLocks.nextSerialVersion(current, null))
                                                   .withDateSysMetadataModified(toXmlGregorianCalendar(new Date())).build();
         dataRepository.update(dataPackage,
                               Collections.singletonList(toFileContent(metadata)),
                               DataRepository.UpdateMode.APPEND);
         dataRepository.archive(dataPackage.getKey());
+        systemMetadataCache.invalidate(identifier, dataPackage.getKey());
         return Void.TYPE;
-    });
+    }), identifier);
   }
 
   private static boolean isAuthorized(Session session, DataPackage dataPackage, Permission action) {
@@ -448,7 +763,7 @@ public class DataRepoBackend implements MNBackend {
    */
   private <T> T getAndConsume(Identifier identifier, Function<DataPackage,T> mapper) {
     //Only DataPackages tagged as 'DataOne' are shared throw this service
-    return asUUID(identifier).map(dataRepository::get).orElseGet(() -> dataRepository.getByAlternativeIdentifier(identifier.getValue()))
+    return dataPackage(identifier)
             .filter(dataPackage -> publishingRepos(dataPackage).contains(configuration.getDataRepoConfiguration()
                                                                            .getDataRepoName()))
             .map(mapper::apply)
@@ -470,15 +785,64 @@ public class DataRepoBackend implements MNBackend {
   }
 
   /**
-   * Try to parse the identifier as an UUID.
+   * Finds the data package of an identifier, which is either a DataONE identifier or the key of a data package.
+   * The data repository is queried by alternative identifier on a miss of the identifier index. It is not queried at
+   * all for identifiers that the identifier filter doesn't contain only if the filter is configured as authoritative,
+   * since it misses the data packages created by other clients until it is reloaded.
    */
-  private Optional<UUID> asUUID(Identifier identifier) {
-    try {
-      return Optional.of(UUID.fromString(identifier.getValue()));
-    } catch (Exception ex) {
-      LOG.info("Identifier is not an UUID {}", identifier, ex);
+  private Optional<DataPackage> dataPackage(Identifier identifier) {
+    if (configuration.isIdentifierFilterAuthoritative() && !identifierFilter.mightContain(identifier.getValue())) {
       return Optional.empty();
     }
+    Optional<UUID> indexedKey = identifierIndex.get(identifier.getValue());
+    if (indexedKey.isPresent()) {
+      return indexedKey.flatMap(dataRepository::get);
+    }
+    Optional<DataPackage> dataPackage = asUUID(identifier).flatMap(dataRepository::get);
+    if (!dataPackage.isPresent()) {
+      dataPackage = dataRepository.getByAlternativeIdentifier(identifier.getValue());
+      dataPackage.ifPresent(value -> identifierIndex.put(identifier.getValue(), value.getKey()));
+    }
+    return dataPackage;
   }
 
+  /**
+   * Gets the identifier as an UUID, if it has the UUID format.
+   */
+  private static Optional<UUID> asUUID(Identifier identifier) {
+    return Optional.ofNullable(identifier.getValue())
+            .filter(value -> UUID_PATTERN.matcher(value).matches())
+            .map(UUID::fromString);
+  }
+
+  /**
+   * Handle to an object resolved to a data package, the system metadata is read on first use.
+   */
+  @ThreadSafe
+  private class DataPackageHandle implements ObjectHandle {
+
+    private final Identifier identifier;
+    private final DataPackage dataPackage;
+    @GuardedBy("this")
+    private SystemMetadata systemMetadata;
+
+    private DataPackageHandle(Identifier identifier, DataPackage dataPackage) {
+      this.identifier = identifier;
+      this.dataPackage = dataPackage;
+    }
+
+    @Override
+    public Identifier getIdentifier() {
+      return identifier;
+    }
+
+    @Override
+    public synchronized SystemMetadata getSystemMetadata() {
+      if (systemMetadata == null) {
+        systemMetadata = systemMetadata(dataPackage);
+        systemMetadataCache.index(identifier, dataPackage.getKey());
+      }
+      return systemMetadata;
+    }
+  }
 }
@@ -14,6 +14,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.dropwizard.logging.LoggingFactory;
 import io.dropwizard.logging.LoggingUtil;
+import io.dropwizard.util.Duration;
 
 /**
  * Configuration settings of a backend supported on the GBIF data repo.
@@ -29,6 +30,32 @@ public class DataRepoBackendConfiguration extends MNConfiguration {
 
   private long storageCapacity;
 
+  //Maximum number of objects returned by a listObjects page, each object listed for the first time costs a read of its
+  //system metadata document
+  private int maxPageSize = 20;
+
+  //Number of identifiers read per data repository query when loading the identifier index and filter
+  private int identifierLoadPageSize = 1000;
+
+  //Number of identifiers the filter of known identifiers is sized for
+  private long identifierFilterExpectedInsertions = 1000000L;
+
+  //False positive probability of the filter of known identifiers
+  private double identifierFilterFpp = 0.01;
+
+  //How often the filter of known identifiers is reloaded to see data packages created by other applications
+  private Duration identifierFilterReloadInterval = Duration.hours(1);
+
+  //Whether this node is the only application creating data packages in the data repository, so that identifiers the
+  //filter doesn't contain are answered as not found without querying the data repository
+  private boolean identifierFilterAuthoritative;
+
+  //Maximum size in bytes of the system metadata kept in memory
+  private long systemMetadataCacheMaxWeight = 64L * 1024L * 1024L;
+
+  //Upper bound on how long changes made outside this node can go unnoticed
+  private Duration systemMetadataCacheExpiry = Duration.minutes(10);
+
   @JsonProperty
   public DataRepoConfiguration getDataRepoConfiguration() {
     return dataRepoConfiguration;
@@ -56,6 +83,78 @@ public class DataRepoBackendConfiguration extends MNConfiguration {
     this.storageCapacity = storageCapacity;
   }
 
+  @JsonProperty
+  public int getMaxPageSize() {
+    return maxPageSize;
+  }
+
+  public void setMaxPageSize(int maxPageSize) {
+    this.maxPageSize = maxPageSize;
+  }
+
+  @JsonProperty
+  public int getIdentifierLoadPageSize() {
+    return identifierLoadPageSize;
+  }
+
+  public void setIdentifierLoadPageSize(int identifierLoadPageSize) {
+    this.identifierLoadPageSize = identifierLoadPageSize;
+  }
+
+  @JsonProperty
+  public long getIdentifierFilterExpectedInsertions() {
+    return identifierFilterExpectedInsertions;
+  }
+
+  public void setIdentifierFilterExpectedInsertions(long identifierFilterExpectedInsertions) {
+    this.identifierFilterExpectedInsertions = identifierFilterExpectedInsertions;
+  }
+
+  @JsonProperty
+  public double getIdentifierFilterFpp() {
+    return identifierFilterFpp;
+  }
+
+  public void setIdentifierFilterFpp(double identifierFilterFpp) {
+    this.identifierFilterFpp = identifierFilterFpp;
+  }
+
+  @JsonProperty
+  public Duration getIdentifierFilterReloadInterval() {
+    return identifierFilterReloadInterval;
+  }
+
+  public void setIdentifierFilterReloadInterval(Duration identifierFilterReloadInterval) {
+    this.identifierFilterReloadInterval = identifierFilterReloadInterval;
+  }
+
+  @JsonProperty
+  public boolean isIdentifierFilterAuthoritative() {
+    return identifierFilterAuthoritative;
+  }
+
+  public void setIdentifierFilterAuthoritative(boolean identifierFilterAuthoritative) {
+    this.identifierFilterAuthoritative = identifierFilterAuthoritative;
+  }
+
+  @JsonProperty
+  public long getSystemMetadataCacheMaxWeight() {
+    return systemMetadataCacheMaxWeight;
+  }
+
+  public void setSystemMetadataCacheMaxWeight(long systemMetadataCacheMaxWeight) {
+    this.systemMetadataCacheMaxWeight = systemMetadataCacheMaxWeight;
+  }
+
+  @JsonProperty
+  public Duration getSystemMetadataCacheExpiry() {
+    return systemMetadataCacheExpiry;
+  }
+
+  public void setSystemMetadataCacheExpiry(Duration systemMetadataCacheExpiry) {
+    this.systemMetadataCacheExpiry = systemMetadataCacheExpiry;
+  }
+
   /**
    * DataOne implementation Tier.
    * This service implement up to tier 4.
@@ -0,0 +1,147 @@
+package org.gbif.d1.mn.backend.impl;
+
+import org.gbif.api.model.common.paging.PagingRequest;
+import org.gbif.api.model.common.paging.PagingResponse;
+import org.gbif.datarepo.api.DataRepository;
+import org.gbif.datarepo.api.model.DataPackage;
+import org.gbif.datarepo.api.model.Identifier;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bloom filter of the data package keys and DataONE identifiers held by the data repository, used to answer that an
+ * identifier is unknown without querying the data repository.
+ * <p>
+ * The filter is populated with {@link #load()} and the backend adds the identifiers it creates. Deleted data packages
+ * are kept by the data repository and loaded too, so nothing has to be removed and their identifiers can't be
+ * reused. Data packages created by other clients of the data repository are only seen once the filter is loaded
+ * again, so a miss is conclusive only where no other client creates data packages. Until it is loaded every identifier
+ * might be contained.
+ */
+@ThreadSafe
+class IdentifierFilter {
+
+  private static final Logger LOG = LoggerFactory.getLogger(IdentifierFilter.class);
+
+  private final DataRepository dataRepository;
+  private final int pageSize;
+  private final long expectedInsertions;
+  private final double fpp;
+
+  @GuardedBy("this")
+  private BloomFilter<CharSequence> filter;
+  // filter being loaded, it replaces the current one once complete
+  @GuardedBy("this")
+  private BloomFilter<CharSequence> next;
+  @GuardedBy("this")
+  private long insertions;
+  @GuardedBy("this")
+  private long nextInsertions;
+  private volatile boolean loaded;
+
+  /**
+   * @param expectedInsertions number of identifiers the filter is sized for
+   * @param fpp false positive probability wanted once expectedInsertions identifiers are added
+   */
+  IdentifierFilter(DataRepository dataRepository, int pageSize, long expectedInsertions, double fpp) {
+    this.dataRepository = dataRepository;
+    this.pageSize = pageSize;
+    this.expectedInsertions = expectedInsertions;
+    this.fpp = fpp;
+    filter = newBloomFilter();
+  }
+
+  private BloomFilter<CharSequence> newBloomFilter() {
+    return BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), expectedInsertions, fpp);
+  }
+
+  /**
+   * Pages through all the data packages and all the alternative identifiers of the data repository, deleted ones
+   * included, adding them to a new filter which replaces the current one once complete. Identifiers put meanwhile are
+   * added to both.
+   */
+  void load() {
+    LOG.info("Loading identifier filter");
+    synchronized (this) {
+      next = newBloomFilter();
+      nextInsertions = 0;
+    }
+    long offset = 0;
+    List<DataPackage> dataPackages;
+    do {
+      // deleted data packages are not filtered out
+      PagingResponse<DataPackage> response =
+        dataRepository.list(null, new PagingRequest(offset, pageSize), null, null, null, null, null, null);
+      dataPackages = response.getResults();
+      if (dataPackages != null) {
+        synchronized (this) {
+          dataPackages.forEach(dataPackage -> putNext(dataPackage.getKey().toString()));
+        }
+        offset += dataPackages.size();
+      }
+    } while (dataPackages != null && dataPackages.size() == pageSize);
+    // the listed data packages don't carry their identifiers, they are listed separately
+    offset = 0;
+    List<Identifier> identifiers;
+    do {
+      PagingResponse<Identifier> response =
+        dataRepository.listIdentifiers(null, new PagingRequest(offset, pageSize), null, null, null,
+                                       Identifier.RelationType.IsAlternativeOf, null);
+      identifiers = response.getResults();
+      if (identifiers != null) {
+        synchronized (this) {
+          identifiers.forEach(identifier -> putNext(identifier.getIdentifier()));
+        }
+        offset += identifiers.size();
+      }
+    } while (identifiers != null && identifiers.size() == pageSize);
+    synchronized (this) {
+      filter = next;
+      insertions = nextInsertions;
+      next = null;
+    }
+    loaded = true;
+    LOG.info("Identifier filter loaded with {} identifiers", insertions());
+  }
+
+  @GuardedBy("this")
+  private void putNext(String identifier) {
+    if (next.put(identifier)) {
+      nextInsertions++;
+    }
+  }
+
+  synchronized void put(String identifier) {
+    if (filter.put(identifier) && ++insertions == expectedInsertions) {
+      LOG.warn("Identifier filter holds {} identifiers, its false positive rate will degrade from now on",
+               expectedInsertions);
+    }
+    if (next != null) {
+      putNext(identifier);
+    }
+  }
+
+  /**
+   * @return false if the identifier is definitely not held by the data repository
+   */
+  boolean mightContain(String identifier) {
+    if (!loaded) {
+      return true;
+    }
+    synchronized (this) {
+      return filter.mightContain(identifier);
+    }
+  }
+
+  synchronized long insertions() {
+    return insertions;
+  }
+}
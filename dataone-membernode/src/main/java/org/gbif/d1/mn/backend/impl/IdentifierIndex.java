@@ -0,0 +1,88 @@
+package org.gbif.d1.mn.backend.impl;
+
+import org.gbif.api.model.common.paging.PagingRequest;
+import org.gbif.api.model.common.paging.PagingResponse;
+import org.gbif.datarepo.api.DataRepository;
+import org.gbif.datarepo.api.model.Identifier;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local index of DataONE identifiers, stored as alternative identifiers in the data repository, to the key of the data
+ * package holding them.
+ * <p>
+ * The index is rebuilt from the data repository with {@link #load()}, the backend adds the identifiers it creates or
+ * finds in the data repository and removes the ones it deletes. Data packages created by other clients of the data
+ * repository are missing until found, so a miss is never conclusive and callers must fall back to querying the data
+ * repository. Deleted data packages are kept by the data repository, so the identifiers removed are still found there
+ * and can't be reused.
+ */
+@ThreadSafe
+class IdentifierIndex {
+
+  private static final Logger LOG = LoggerFactory.getLogger(IdentifierIndex.class);
+
+  private final DataRepository dataRepository;
+  private final int pageSize;
+  private final ConcurrentMap<String, UUID> keys = new ConcurrentHashMap<>();
+  // data package key -> DataONE identifier
+  private final ConcurrentMap<UUID, String> pids = new ConcurrentHashMap<>();
+
+  IdentifierIndex(DataRepository dataRepository, int pageSize) {
+    this.dataRepository = dataRepository;
+    this.pageSize = pageSize;
+  }
+
+  /**
+   * Pages through all the alternative identifiers of the data repository adding them to the index.
+   */
+  void load() {
+    LOG.info("Loading identifier index");
+    long offset = 0;
+    List<Identifier> results;
+    do {
+      PagingResponse<Identifier> response =
+        dataRepository.listIdentifiers(null, new PagingRequest(offset, pageSize), null, null, null,
+                                       Identifier.RelationType.IsAlternativeOf, null);
+      results = response.getResults();
+      if (results != null) {
+        results.forEach(identifier -> put(identifier.getIdentifier(), identifier.getDataPackageKey()));
+        offset += results.size();
+      }
+    } while (results != null && results.size() == pageSize);
+    LOG.info("Identifier index loaded with {} identifiers", keys.size());
+  }
+
+  Optional<UUID> get(String pid) {
+    return Optional.ofNullable(keys.get(pid));
+  }
+
+  /**
+   * @return the DataONE identifier held by the data package
+   */
+  Optional<String> pid(UUID key) {
+    return Optional.ofNullable(pids.get(key));
+  }
+
+  void put(String pid, UUID key) {
+    keys.put(pid, key);
+    pids.put(key, pid);
+  }
+
+  void remove(String pid, UUID key) {
+    keys.remove(pid, key);
+    pids.remove(key, pid);
+  }
+
+  int size() {
+    return keys.size();
+  }
+}
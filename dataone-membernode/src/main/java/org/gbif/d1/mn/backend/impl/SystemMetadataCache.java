@@ -0,0 +1,211 @@
+package org.gbif.d1.mn.backend.impl;
+
+import java.math.BigInteger;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.dropwizard.util.Duration;
+import org.dataone.ns.service.types.v1.Checksum;
+import org.dataone.ns.service.types.v1.Identifier;
+import org.dataone.ns.service.types.v1.SystemMetadata;
+
+/**
+ * A bounded cache of {@link SystemMetadata} indexed by data package key and by DataONE identifier.
+ * <p>
+ * Entries are weighed by the size in bytes of the XML document they were read from, so the bound is a memory budget
+ * rather than an entry count. Writers must call {@link #invalidate(Identifier, UUID)} once the stored system metadata
+ * changes.
+ * <p>
+ * The checksum and size of every system metadata loaded are also kept in a compact summary, which outlives the full
+ * entry since they never change for an object. Listings are built from the summaries without reading the documents.
+ * <p>
+ * Hit, miss and eviction counts are published to the provided {@link MetricRegistry}, under the name of the cache so
+ * that several caches can share the registry.
+ */
+@ThreadSafe
+class SystemMetadataCache {
+
+  /**
+   * Weight used for entries that are not backed by an XML document (e.g. system metadata built from a data package).
+   */
+  static final int DEFAULT_WEIGHT = 1024;
+
+  /**
+   * Approximate size in bytes of a summary, used to fit the summaries in the same budget as the entries.
+   */
+  private static final int SUMMARY_WEIGHT = 256;
+
+  private final Cache<UUID, Entry> byKey;
+  // DataONE identifier value -> data package key, used to skip the data package lookup on reads
+  private final Cache<String, UUID> keysByPid;
+  // data package key -> checksum and size of its system metadata
+  private final Cache<UUID, Summary> summaries;
+  private final MetricRegistry metrics;
+  private final String metricsPrefix;
+
+  /**
+   * @param name distinguishes the metrics of this cache from the ones of other caches in the same registry
+   */
+  SystemMetadataCache(long maximumWeight, Duration expiry, MetricRegistry metrics, String name) {
+    byKey = CacheBuilder.newBuilder()
+      .maximumWeight(maximumWeight)
+      .weigher((UUID key, Entry entry) -> entry.getWeight())
+      .expireAfterWrite(expiry.toMilliseconds(), TimeUnit.MILLISECONDS)
+      .recordStats()
+      .build();
+    keysByPid = CacheBuilder.newBuilder()
+      .maximumSize(Math.max(1L, maximumWeight / DEFAULT_WEIGHT))
+      .expireAfterWrite(expiry.toMilliseconds(), TimeUnit.MILLISECONDS)
+      .build();
+    summaries = CacheBuilder.newBuilder()
+      .maximumSize(Math.max(1L, maximumWeight / SUMMARY_WEIGHT))
+      .build();
+    this.metrics = metrics;
+    metricsPrefix = MetricRegistry.name(SystemMetadataCache.class, name);
+    metrics.register(MetricRegistry.name(metricsPrefix, "hits"), (Gauge<Long>) () -> byKey.stats().hitCount());
+    metrics.register(MetricRegistry.name(metricsPrefix, "misses"), (Gauge<Long>) () -> byKey.stats().missCount());
+    metrics.register(MetricRegistry.name(metricsPrefix, "evictions"),
+                     (Gauge<Long>) () -> byKey.stats().evictionCount());
+    metrics.register(MetricRegistry.name(metricsPrefix, "size"), (Gauge<Long>) byKey::size);
+  }
+
+  /**
+   * Removes the metrics of this cache from the registry, so that another cache of the same name can be created.
+   */
+  void removeMetrics() {
+    metrics.removeMatching((name, metric) -> name.startsWith(metricsPrefix + '.'));
+  }
+
+  /**
+   * Gets the system metadata of a data package, using the loader on a cache miss.
+   * Exceptions thrown by the loader are propagated as they are.
+   */
+  SystemMetadata get(UUID key, Callable<Entry> loader) {
+    return getEntry(key, loader).getSystemMetadata();
+  }
+
+  /**
+   * Gets the cache entry of a data package, using the loader on a cache miss.
+   * Exceptions thrown by the loader are propagated as they are.
+   */
+  Entry getEntry(UUID key, Callable<Entry> loader) {
+    try {
+      Entry entry = byKey.get(key, loader);
+      if (summaries.getIfPresent(key) == null) {
+        summaries.put(key, new Summary(entry.getSystemMetadata()));
+      }
+      return entry;
+    } catch (ExecutionException | UncheckedExecutionException ex) {
+      throw Throwables.propagate(ex.getCause());
+    }
+  }
+
+  /**
+   * Gets the cached system metadata of an object, if both the identifier and its data package are known to the cache.
+   */
+  Optional<SystemMetadata> getIfPresent(Identifier pid) {
+    return Optional.ofNullable(keysByPid.getIfPresent(pid.getValue()))
+      .map(byKey::getIfPresent)
+      .map(Entry::getSystemMetadata);
+  }
+
+  /**
+   * Gets the cached system metadata of a data package, without loading it.
+   */
+  Optional<SystemMetadata> getIfPresent(UUID key) {
+    return Optional.ofNullable(byKey.getIfPresent(key)).map(Entry::getSystemMetadata);
+  }
+
+  /**
+   * Gets the checksum and size of the system metadata of a data package, if it has been loaded before.
+   */
+  Optional<Summary> getSummary(UUID key) {
+    return Optional.ofNullable(summaries.getIfPresent(key));
+  }
+
+  /**
+   * Associates a DataONE identifier to the data package holding it.
+   */
+  void index(Identifier pid, UUID key) {
+    keysByPid.put(pid.getValue(), key);
+  }
+
+  /**
+   * Removes the entries of an object whose system metadata has changed or has been deleted, its summary is kept.
+   */
+  void invalidate(Identifier pid, UUID key) {
+    keysByPid.invalidate(pid.getValue());
+    byKey.invalidate(key);
+  }
+
+  /**
+   * A cached system metadata along with its weight, and whether it is the stored XML document as it is.
+   */
+  @Immutable
+  static class Entry {
+
+    private final SystemMetadata systemMetadata;
+    private final int weight;
+    private final boolean asStored;
+
+    Entry(SystemMetadata systemMetadata, int weight) {
+      this(systemMetadata, weight, false);
+    }
+
+    Entry(SystemMetadata systemMetadata, int weight, boolean asStored) {
+      this.systemMetadata = systemMetadata;
+      this.weight = weight;
+      this.asStored = asStored;
+    }
+
+    SystemMetadata getSystemMetadata() {
+      return systemMetadata;
+    }
+
+    int getWeight() {
+      return weight;
+    }
+
+    /**
+     * @return true if the system metadata was read from an XML document without filling in any field, so the document
+     * can be served instead
+     */
+    boolean isAsStored() {
+      return asStored;
+    }
+  }
+
+  /**
+   * The fields of a system metadata that are listed, and never change once the object is created.
+   */
+  @Immutable
+  static class Summary {
+
+    private final Checksum checksum;
+    private final BigInteger size;
+
+    private Summary(SystemMetadata systemMetadata) {
+      checksum = systemMetadata.getChecksum();
+      size = systemMetadata.getSize();
+    }
+
+    Checksum getChecksum() {
+      return checksum;
+    }
+
+    BigInteger getSize() {
+      return size;
+    }
+  }
+}
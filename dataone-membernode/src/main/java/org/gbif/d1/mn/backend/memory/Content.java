@@ -0,0 +1,53 @@
+package org.gbif.d1.mn.backend.memory;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * The bytes of a persisted object, which are never modified once stored.
+ */
+@ThreadSafe
+interface Content {
+
+  long size();
+
+  /**
+   * Opens a range of the bytes, which are read without being copied. The stream must be closed so that the storage
+   * can be reused once the object is deleted.
+   *
+   * @param length number of bytes to read, fewer are returned if the content ends before
+   * @return the stream, or empty if the content has been released by a concurrent deletion
+   */
+  Optional<InputStream> open(long offset, long length);
+
+  /**
+   * Frees the storage once the object is deleted, streams already open can still be read until closed.
+   */
+  void release();
+
+  /**
+   * Content held in a heap byte array.
+   */
+  static Content of(byte[] data) {
+    return new Content() {
+      @Override
+      public long size() {
+        return data.length;
+      }
+
+      @Override
+      public Optional<InputStream> open(long offset, long length) {
+        int from = (int) Math.min(offset, data.length);
+        return Optional.of(new ByteBufferInputStream(ByteBuffer.wrap(data, from,
+                                                                     (int) Math.min(length, data.length - from))));
+      }
+
+      @Override
+      public void release() {
+        // garbage collected
+      }
+    };
+  }
+}
@@ -1,30 +1,39 @@
 package org.gbif.d1.mn.backend.memory;
 
+import org.gbif.d1.mn.backend.ChecksumVerifyingInputStream;
 import org.gbif.d1.mn.backend.Health;
 import org.gbif.d1.mn.backend.MNBackend;
+import org.gbif.d1.mn.backend.PidLocks;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Collections;
 import java.util.Date;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
-import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.Immutable;
 import javax.annotation.concurrent.ThreadSafe;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Maps;
 import com.google.common.io.ByteStreams;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.dataone.ns.service.exceptions.IdentifierNotUnique;
+import org.dataone.ns.service.exceptions.NotFound;
 import org.dataone.ns.service.exceptions.ServiceFailure;
 import org.dataone.ns.service.types.v1.Checksum;
 import org.dataone.ns.service.types.v1.DescribeResponse;
@@ -37,13 +46,21 @@ import org.dataone.ns.service.types.v1.Session;
 import org.dataone.ns.service.types.v1.SystemMetadata;
 
 /**
- * An in-memory implementation of the back-end, suitable for testing only.
+ * An in-memory implementation of the back-end, suitable for testing and as a baseline of the REST layer.
+ * <p>
+ * Objects are kept in concurrent maps and their content is never modified once stored, so readers never block and
+ * streams read the stored bytes without copying them. Mutations of an object are serialized by {@link PidLocks}.
+ * <p>
+ * The content is kept on the heap, or off the heap with a capacity beyond which it is spilled to a local file, see
+ * {@link OffHeapStore}.
  */
 @ThreadSafe
 public class InMemoryBackend implements MNBackend {
 
-  private static final byte[] EMPTY_BYTE_ARRAY = new byte[0];
-  private final Object lock = new Object();
+  // objects without a modification date are listed first, and only when no date range is requested
+  private static final long NO_DATE = Long.MIN_VALUE;
+  // serializes the read-modify-write sequences on each object
+  private final PidLocks pidLocks = new PidLocks();
 
   private static Map<String, Function<InputStream, String>> CHECKSUM_FUNCTIONS =
           ImmutableMap.of(
@@ -72,15 +89,37 @@ public class InMemoryBackend implements MNBackend {
                     }
                   });
 
-  @GuardedBy("lock")
-  private final LinkedHashMap<Identifier, PersistedObject> data;
+  private final ConcurrentMap<Identifier, Entry> data = new ConcurrentHashMap<>();
+  // indexes answering listObjects, (modification date, insertion sequence) -> identifier
+  private final ConcurrentNavigableMap<IndexKey, Identifier> byModified = new ConcurrentSkipListMap<>();
+  // format -> (modification date, insertion sequence) -> identifier
+  private final ConcurrentMap<String, ConcurrentNavigableMap<IndexKey, Identifier>> byFormat =
+    new ConcurrentHashMap<>();
+  private final AtomicLong sequence = new AtomicLong();
+  // null when the content is kept on the heap
+  @Nullable
+  private final OffHeapStore offHeap;
 
   public InMemoryBackend() {
-    data = Maps.newLinkedHashMap();
+    offHeap = null;
   }
 
+  /**
+   * Keeps the content off the heap.
+   *
+   * @param capacity bytes of content kept in memory
+   * @param spillFile file receiving the least recently read content once the capacity is exceeded
+   */
+  public InMemoryBackend(long capacity, Path spillFile) throws IOException {
+    offHeap = new OffHeapStore(capacity, spillFile);
+  }
+
+  /**
+   * @param data objects to start with, in insertion order
+   */
   public InMemoryBackend(LinkedHashMap<Identifier, PersistedObject> data) {
-    this.data = data;
+    offHeap = null;
+    data.forEach(this::insert);
   }
 
   @Override
@@ -90,7 +129,12 @@ public class InMemoryBackend implements MNBackend {
       throw new UnsupportedOperationException("Unkown checksumAlgorithm " + checksumAlgorithm);
     }
 
-    String checksumStr = CHECKSUM_FUNCTIONS.get(checksumAlgorithm.toLowerCase()).apply(get(pid));
+    String checksumStr;
+    try (InputStream in = get(pid)) {
+      checksumStr = CHECKSUM_FUNCTIONS.get(checksumAlgorithm.toLowerCase()).apply(in);
+    } catch (IOException e) {
+      checksumStr = null;
+    }
     if(checksumStr == null){
       throw new ServiceFailure("Unable to compute checksum");
     }
@@ -99,41 +143,108 @@ public class InMemoryBackend implements MNBackend {
   }
 
   /**
-   * Does nothing (by design).
+   * Deletes the spill file of the off-heap content, does nothing otherwise.
    */
   @Override
   public void close() {
+    if (offHeap != null) {
+      try {
+        offHeap.close();
+      } catch (IOException e) {
+        throw new ServiceFailure("Unable to close the off-heap store", e);
+      }
+    }
   }
 
   /**
    * Warning: Does not close the input stream.
+   * The object is read and verified against the checksum and size of the system metadata before being stored.
    */
   @Override
   public Identifier create(Session session, Identifier pid, InputStream object, SystemMetadata sysmeta) {
+    ChecksumVerifyingInputStream verifying = new ChecksumVerifyingInputStream(object, sysmeta);
+    Content content;
+    try {
+      content = offHeap == null ? Content.of(ByteStreams.toByteArray(verifying))
+        : offHeap.store(verifying, sysmeta.getSize() == null ? -1 : sysmeta.getSize().longValue());
+    } catch (IOException e) {
+      verifying.verify();
+      throw new ServiceFailure("Unable to read the data object from the input stream", e);
+    }
     try {
-      synchronized (lock) {
+      verifying.verify();
+      return pidLocks.withLocks(() -> {
         if (data.containsKey(pid)) {
           throw new IdentifierNotUnique("Cannot create object which already exists", pid.getValue());
-        } else {
-          Date now = new Date();
-          data.put(pid, new PersistedObject(ByteStreams.toByteArray(object), sysmeta, now, now));
-          return pid;
         }
-      }
-    } catch (IOException e) {
-      throw new ServiceFailure("Unable to read the data object from the input stream", e);
+        Date now = new Date();
+        insert(pid, new PersistedObject(content, sysmeta, now, now));
+        return pid;
+      }, pid);
+    } catch (RuntimeException e) {
+      content.release();
+      throw e;
     }
   }
 
+  /**
+   * Stores an object, visible to readers once it is in the map of objects. Callers hold the lock of the object.
+   */
+  private void insert(Identifier pid, PersistedObject object) {
+    Entry entry = new Entry(new IndexKey(modified(object.getSysmeta()), sequence.incrementAndGet()), object);
+    index(pid, entry);
+    data.put(pid, entry);
+  }
+
   @Override
   public Identifier delete(Session session, Identifier pid) {
-    Identifier deletedPid = null;
-    synchronized (lock) {
-      if (data.remove(pid) != null) {
-        deletedPid = pid;
+    return pidLocks.withLocks(() -> {
+      Entry removed = data.remove(pid);
+      if (removed == null) {
+        return null;
       }
+      unindex(removed, null);
+      removed.object.getContent().release();
+      return pid;
+    }, pid);
+  }
+
+  /**
+   * Adds the entry to the indexes, before it is put in the map of objects.
+   * <p>
+   * Readers only take the index entries matching the current entry of the object, so while an object is being moved
+   * in the indexes it is listed at either its previous or its new position, but never twice.
+   */
+  private void index(Identifier pid, Entry entry) {
+    byModified.put(entry.key, pid);
+    entry.formatId().ifPresent(formatId -> byFormat.computeIfAbsent(formatId, key -> new ConcurrentSkipListMap<>())
+      .put(entry.key, pid));
+  }
+
+  /**
+   * Removes the index entries of a previous entry of an object, once it has been replaced in the map of objects.
+   *
+   * @param replacement the current entry of the object, null if it has been deleted
+   */
+  private void unindex(Entry previous, @Nullable Entry replacement) {
+    boolean moved = replacement == null || !previous.key.equals(replacement.key);
+    if (moved) {
+      byModified.remove(previous.key);
     }
-    return deletedPid;
+    previous.formatId()
+      .filter(formatId -> moved || !replacement.formatId().equals(previous.formatId()))
+      .map(byFormat::get)
+      .ifPresent(index -> index.remove(previous.key));
+  }
+
+  /**
+   * @return the modification date in epoch milliseconds, {@link #NO_DATE} if unknown
+   */
+  private static long modified(@Nullable SystemMetadata sysmeta) {
+    if (sysmeta == null || sysmeta.getDateSysMetadataModified() == null) {
+      return NO_DATE;
+    }
+    return sysmeta.getDateSysMetadataModified().toGregorianCalendar().getTimeInMillis();
   }
 
   @Override
@@ -146,19 +257,25 @@ public class InMemoryBackend implements MNBackend {
     return null;
   }
 
+  /**
+   * Reads the stored bytes without copying them, since they are never modified.
+   */
   @Override
   public InputStream get(Identifier pid) {
-    byte[] copy = null;
-    synchronized (lock) {
-      if (data.containsKey(pid)) {
-        copy = data.get(pid).getData().clone();
-      }
-    }
-    if (copy != null) {
-      return new ByteArrayInputStream(copy);
-    } else {
-      return new ByteArrayInputStream(EMPTY_BYTE_ARRAY);
-    }
+    return get(pid, 0, Long.MAX_VALUE);
+  }
+
+  /**
+   * Slices the stored bytes, without copying them.
+   *
+   * @throws NotFound if the object doesn't exist, or is deleted before its content is opened
+   */
+  @Override
+  public InputStream get(Identifier pid, long offset, long length) {
+    Entry entry = data.get(pid);
+    return Optional.ofNullable(entry)
+      .flatMap(found -> found.object.getContent().open(offset, length))
+      .orElseThrow(() -> new NotFound("Object not found", pid.getValue()));
   }
 
   @Override
@@ -175,8 +292,8 @@ public class InMemoryBackend implements MNBackend {
   }
 
   /**
-   * Does a full scan of the in memory objects to return a list that match the criteria. Being a full scan, this is
-   * hardly performance oriented, but this is not intended for anything more than testing a few objects.
+   * Lists the objects matching the criteria, ordered by modification date. The date range and format are looked up in
+   * the indexes, only the replica status is tested object by object.
    */
   @Override
   public ObjectList listObjects(NodeReference self, Date fromDate, @Nullable Date toDate, @Nullable String formatId,
@@ -200,12 +317,8 @@ public class InMemoryBackend implements MNBackend {
 
   @Override
   public SystemMetadata systemMetadata(Identifier pid) {
-    synchronized (lock) {
-      if (data.containsKey(pid)) {
-        return data.get(pid).getSysmeta();
-      }
-    }
-    return null;
+    Entry entry = data.get(pid);
+    return entry == null ? null : entry.object.getSysmeta();
   }
 
   @Override
@@ -222,18 +335,25 @@ public class InMemoryBackend implements MNBackend {
     start = Optional.ofNullable(start).orElse(0);
     count = Optional.ofNullable(count).orElse(1000);
 
-    // Filter the objects to find those matching the criteria
-    // the static factories in Filters returns "alwaysTrue" for null values
-    Predicate<PersistedObject> filter = Filters.after(fromDate)
-                                          .and(Filters.before(toDate))
-                                          .and(Filters.formatId(formatId))
-                                          .and(Filters.replicaStatus(replicaStatus, self));
-    List<PersistedObject> satisfied = null; // candidate objects meeting the filter criteria
-    synchronized (lock) {
-      satisfied = data.values().stream().filter(filter).skip(start).limit(count).collect(Collectors.toList());
+    NavigableMap<IndexKey, Identifier> index = formatId == null ? byModified : byFormat.get(formatId);
+    // the bounds of the date range are exclusive
+    long from = fromDate != null ? fromDate.getTime() + 1 : toDate != null ? NO_DATE + 1 : NO_DATE;
+    if (index == null || (toDate != null && from >= toDate.getTime())) {
+      return Collections.emptyList();
     }
+    NavigableMap<IndexKey, Identifier> range = toDate == null ? index.tailMap(IndexKey.first(from), true)
+      : index.subMap(IndexKey.first(from), true, IndexKey.first(toDate.getTime()), false);
 
-    return satisfied;
+    // the static factories in Filters returns "alwaysTrue" for null values
+    Predicate<PersistedObject> filter = Filters.replicaStatus(replicaStatus, self);
+    // index entries of objects being moved or deleted meanwhile are skipped
+    return range.entrySet().stream()
+      .map(indexed -> Optional.ofNullable(data.get(indexed.getValue()))
+        .filter(entry -> entry.key.equals(indexed.getKey()))
+        .filter(entry -> formatId == null || entry.formatId().equals(Optional.of(formatId))))
+      .filter(Optional::isPresent)
+      .map(entry -> entry.get().object)
+      .filter(filter).skip(start).limit(count).collect(Collectors.toList());
   }
 
   @Override
@@ -243,11 +363,106 @@ public class InMemoryBackend implements MNBackend {
 
   @Override
   public long getEstimateCapacity() {
-    return Runtime.getRuntime().freeMemory();
+    return offHeap == null ? Runtime.getRuntime().freeMemory() : offHeap.getRemaining();
   }
 
+  /**
+   * Replaces the system metadata, whose serial version must be the stored one.
+   */
   @Override
   public boolean updateMetadata(Session session, Identifier pid, SystemMetadata sysmeta) {
-    return true;
+    return replaceMetadata(pid, current -> sysmeta.newCopyBuilder()
+      .withSerialVersion(PidLocks.nextSerialVersion(current, sysmeta.getSerialVersion()))
+      .build());
+  }
+
+  /**
+   * Replaces the system metadata with the one given, as it is.
+   */
+  @Override
+  public boolean synchronizeMetadata(Session session, Identifier pid, SystemMetadata sysmeta) {
+    return replaceMetadata(pid, current -> sysmeta);
+  }
+
+  private boolean replaceMetadata(Identifier pid, Function<SystemMetadata, SystemMetadata> update) {
+    return pidLocks.withLocks(() -> {
+      Entry current = data.get(pid);
+      if (current == null) {
+        throw new NotFound("Cannot update the system metadata of an object which doesn't exist", pid.getValue());
+      }
+      SystemMetadata updated = update.apply(current.object.getSysmeta());
+      // keeps its insertion sequence, so that it keeps its position among the objects modified at the same time
+      Entry replacement = new Entry(new IndexKey(modified(updated), current.key.sequence),
+                                    new PersistedObject(current.object.getContent(), updated,
+                                                        current.object.getCreated(), new Date()));
+      index(pid, replacement);
+      data.put(pid, replacement);
+      unindex(current, replacement);
+      return Boolean.TRUE;
+    }, pid);
+  }
+
+  /**
+   * A stored object and its position in the indexes.
+   */
+  @Immutable
+  private static final class Entry {
+
+    private final IndexKey key;
+    private final PersistedObject object;
+
+    private Entry(IndexKey key, PersistedObject object) {
+      this.key = key;
+      this.object = object;
+    }
+
+    private Optional<String> formatId() {
+      return Optional.ofNullable(object.getSysmeta()).map(SystemMetadata::getFormatId);
+    }
+  }
+
+  /**
+   * Position of an object in the indexes, the insertion sequence orders the objects modified at the same time.
+   */
+  @Immutable
+  private static final class IndexKey implements Comparable<IndexKey> {
+
+    private final long modified;
+    private final long sequence;
+
+    private IndexKey(long modified, long sequence) {
+      this.modified = modified;
+      this.sequence = sequence;
+    }
+
+    /**
+     * @return a key before all the objects modified at the given time
+     */
+    private static IndexKey first(long modified) {
+      return new IndexKey(modified, Long.MIN_VALUE);
+    }
+
+    @Override
+    public int compareTo(IndexKey other) {
+      int result = Long.compare(modified, other.modified);
+      return result != 0 ? result : Long.compare(sequence, other.sequence);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof IndexKey)) {
+        return false;
+      }
+      IndexKey other = (IndexKey) obj;
+      return modified == other.modified && sequence == other.sequence;
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(modified) * 31 + Long.hashCode(sequence);
+    }
   }
 }
@@ -0,0 +1,379 @@
+package org.gbif.d1.mn.backend.memory;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.google.common.base.Preconditions;
+import org.dataone.ns.service.exceptions.ServiceFailure;
+
+/**
+ * Stores the content of objects outside of the heap, so that large datasets don't weigh on garbage collection.
+ * <p>
+ * Content is written into chunks of a few size classes, carved out of direct buffer slabs. Each slab serves one size
+ * class at a time and keeps its own free chunks, so once all of them are free the slab is dropped, and its memory
+ * returned when it is garbage collected, instead of staying reserved for its size class. Content of a known size
+ * takes chunks of the largest class and a tail of the smallest class it fits in, content of an unknown size takes
+ * chunks of growing classes, so the bytes are never copied to grow a buffer.
+ * <p>
+ * The capacity bounds the slabs allocated, whole, rather than the chunks in use. Once it is exceeded, the least
+ * recently read content is spilled to a local file and read from there, memory mapped. Space in the spill file is not
+ * reused, it is freed when the store is closed.
+ */
+@ThreadSafe
+class OffHeapStore implements Closeable {
+
+  private static final int[] SIZE_CLASSES = {4 * 1024, 16 * 1024, 64 * 1024, 256 * 1024, 1024 * 1024};
+  private static final int MAX_SLAB_SIZE = 4 * 1024 * 1024;
+  // spilling frees slabs down to this fraction of the capacity, so that it doesn't happen on every store
+  private static final double LOW_WATERMARK = 0.9;
+  // the largest region mapped at once
+  private static final long MAX_MAPPING = 1024L * 1024 * 1024;
+
+  private final long capacity;
+  // a power of two, at most a quarter of the capacity so that spilling can free whole slabs
+  private final int slabSize;
+  // the largest size class fitting in a slab
+  private final int maxSizeClass;
+  private final Path spillFile;
+  private final FileChannel spill;
+  private final AtomicLong spillEnd = new AtomicLong();
+  // slabs with free chunks, per size class
+  @GuardedBy("slabLock")
+  private final List<Set<Slab>> partial = new ArrayList<>();
+  private final Object slabLock = new Object();
+  // bytes of the slabs allocated
+  private final AtomicLong used = new AtomicLong();
+  private final Set<Stored> resident = ConcurrentHashMap.newKeySet();
+  private final Object spillLock = new Object();
+
+  /**
+   * @param capacity bytes of the slabs kept in memory, content larger than a quarter of it spans several slabs
+   * @param spillFile file receiving the content once the capacity is exceeded, deleted when closed
+   */
+  OffHeapStore(long capacity, Path spillFile) throws IOException {
+    Preconditions.checkArgument(capacity > 0, "The capacity must be positive");
+    this.capacity = capacity;
+    slabSize = (int) Math.max(SIZE_CLASSES[0], Math.min(MAX_SLAB_SIZE, Long.highestOneBit(capacity / 4)));
+    int largest = 0;
+    while (largest + 1 < SIZE_CLASSES.length && SIZE_CLASSES[largest + 1] <= slabSize) {
+      largest++;
+    }
+    maxSizeClass = largest;
+    this.spillFile = spillFile;
+    spill = FileChannel.open(spillFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                             StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+    for (int i = 0; i < SIZE_CLASSES.length; i++) {
+      partial.add(new LinkedHashSet<>());
+    }
+  }
+
+  /**
+   * Reads the stream into chunks until the end of the stream, which is not closed.
+   *
+   * @param sizeHint expected number of bytes, negative if unknown
+   */
+  Content store(InputStream in, long sizeHint) throws IOException {
+    List<Chunk> chunks = new ArrayList<>();
+    ReadableByteChannel channel = Channels.newChannel(in);
+    long size = 0;
+    try {
+      boolean eof = false;
+      while (!eof) {
+        Chunk chunk = allocate(sizeClass(sizeHint >= 0 ? sizeHint - size : size));
+        chunks.add(chunk);
+        while (chunk.buffer.hasRemaining() && !eof) {
+          eof = channel.read(chunk.buffer) < 0;
+        }
+        chunk.buffer.flip();
+        size += chunk.buffer.remaining();
+        if (!chunk.buffer.hasRemaining()) {
+          // the end of the stream was only detected by this chunk
+          chunks.remove(chunks.size() - 1);
+          free(chunk);
+        }
+      }
+    } catch (IOException | RuntimeException ex) {
+      chunks.forEach(this::free);
+      throw ex;
+    }
+    Stored stored = new Stored(chunks, size);
+    resident.add(stored);
+    try {
+      if (used.get() > capacity) {
+        spill();
+      }
+    } catch (IOException | RuntimeException ex) {
+      // the caller never gets the content to release it
+      stored.release();
+      throw ex;
+    }
+    return stored;
+  }
+
+  /**
+   * @return the size class for the remaining bytes, or for the bytes read so far if the size is unknown
+   */
+  private int sizeClass(long bytes) {
+    for (int i = 0; i < maxSizeClass; i++) {
+      if (bytes <= SIZE_CLASSES[i]) {
+        return i;
+      }
+    }
+    return maxSizeClass;
+  }
+
+  private Chunk allocate(int sizeClass) {
+    synchronized (slabLock) {
+      Set<Slab> slabs = partial.get(sizeClass);
+      Slab slab;
+      if (slabs.isEmpty()) {
+        slab = new Slab(ByteBuffer.allocateDirect(slabSize), SIZE_CLASSES[sizeClass]);
+        used.addAndGet(slabSize);
+        slabs.add(slab);
+      } else {
+        slab = slabs.iterator().next();
+      }
+      ByteBuffer buffer = slab.free.pop();
+      slab.inUse++;
+      if (slab.free.isEmpty()) {
+        slabs.remove(slab);
+      }
+      return new Chunk(slab, sizeClass, buffer);
+    }
+  }
+
+  private void free(Chunk chunk) {
+    chunk.buffer.clear();
+    synchronized (slabLock) {
+      Slab slab = chunk.slab;
+      slab.free.push(chunk.buffer);
+      slab.inUse--;
+      if (slab.inUse == 0) {
+        // dropped, a slab of any size class is allocated when needed
+        partial.get(chunk.sizeClass).remove(slab);
+        used.addAndGet(-slabSize);
+      } else if (slab.free.size() == 1) {
+        partial.get(chunk.sizeClass).add(slab);
+      }
+    }
+  }
+
+  /**
+   * Writes the least recently read content to the spill file until the slabs allocated are below the low watermark.
+   * Content being read is skipped, its chunks can't be reused yet.
+   */
+  private void spill() throws IOException {
+    synchronized (spillLock) {
+      List<Stored> candidates = resident.stream().sorted(Comparator.comparingLong(stored -> stored.lastRead))
+        .collect(Collectors.toList());
+      for (Stored stored : candidates) {
+        if (used.get() <= capacity * LOW_WATERMARK) {
+          return;
+        }
+        stored.spill();
+      }
+    }
+  }
+
+  /**
+   * @return bytes that can still be stored, in memory and in the spill file
+   */
+  long getRemaining() {
+    long memory = Math.max(capacity - used.get(), 0);
+    try {
+      return memory + Files.getFileStore(spillFile).getUsableSpace();
+    } catch (IOException ex) {
+      return memory;
+    }
+  }
+
+  long getUsed() {
+    return used.get();
+  }
+
+  /**
+   * Deletes the spill file, the slabs are garbage collected with the store.
+   */
+  @Override
+  public void close() throws IOException {
+    spill.close();
+  }
+
+  /**
+   * Content held in chunks, or in the spill file once spilled.
+   */
+  private final class Stored implements Content {
+
+    private final long size;
+    @GuardedBy("this")
+    private List<Chunk> chunks;
+    // position in the spill file, negative while in memory
+    @GuardedBy("this")
+    private long spilledAt = -1;
+    // streams open, plus one until released
+    @GuardedBy("this")
+    private int references = 1;
+    @GuardedBy("this")
+    private boolean released;
+    private volatile long lastRead = System.nanoTime();
+
+    private Stored(List<Chunk> chunks, long size) {
+      this.chunks = chunks;
+      this.size = size;
+    }
+
+    @Override
+    public long size() {
+      return size;
+    }
+
+    @Override
+    public Optional<InputStream> open(long offset, long length) {
+      lastRead = System.nanoTime();
+      long from = Math.min(offset, size);
+      long to = from + Math.min(length, size - from);
+      List<InputStream> parts = new ArrayList<>();
+      synchronized (this) {
+        if (released) {
+          return Optional.empty();
+        }
+        if (spilledAt < 0) {
+          long chunkStart = 0;
+          for (Chunk chunk : chunks) {
+            long chunkEnd = chunkStart + chunk.buffer.limit();
+            if (chunkEnd > from && chunkStart < to) {
+              ByteBuffer view = chunk.buffer.duplicate();
+              view.limit((int) (Math.min(chunkEnd, to) - chunkStart));
+              view.position((int) (Math.max(chunkStart, from) - chunkStart));
+              parts.add(new ByteBufferInputStream(view));
+            }
+            chunkStart = chunkEnd;
+          }
+        } else {
+          try {
+            for (long position = from; position < to; position += MAX_MAPPING) {
+              parts.add(new ByteBufferInputStream(spill.map(FileChannel.MapMode.READ_ONLY, spilledAt + position,
+                                                            Math.min(MAX_MAPPING, to - position))));
+            }
+          } catch (IOException ex) {
+            throw new ServiceFailure("Unable to read spilled content: " + ex.getMessage());
+          }
+        }
+        references++;
+      }
+      AtomicBoolean closed = new AtomicBoolean();
+      return Optional.of(new FilterInputStream(new SequenceInputStream(Collections.enumeration(parts))) {
+        @Override
+        public void close() throws IOException {
+          super.close();
+          if (closed.compareAndSet(false, true)) {
+            unreference();
+          }
+        }
+      });
+    }
+
+    /**
+     * Marks the content released within the same lock as {@link #open}, so that no stream is opened afterwards.
+     */
+    @Override
+    public void release() {
+      resident.remove(this);
+      synchronized (this) {
+        if (released) {
+          return;
+        }
+        released = true;
+      }
+      unreference();
+    }
+
+    private synchronized void unreference() {
+      references--;
+      if (references == 0 && chunks != null) {
+        chunks.forEach(OffHeapStore.this::free);
+        chunks = null;
+      }
+    }
+
+    /**
+     * Moves the chunks to the spill file, unless the content is being read or has been released.
+     */
+    private synchronized void spill() throws IOException {
+      if (references != 1 || chunks == null) {
+        return;
+      }
+      long position = spillEnd.getAndAdd(size);
+      long written = position;
+      for (Chunk chunk : chunks) {
+        ByteBuffer view = chunk.buffer.duplicate();
+        while (view.hasRemaining()) {
+          written += spill.write(view, written);
+        }
+      }
+      chunks.forEach(OffHeapStore.this::free);
+      chunks = null;
+      spilledAt = position;
+      resident.remove(this);
+    }
+  }
+
+  /**
+   * Direct memory carved into the chunks of one size class.
+   */
+  private static final class Slab {
+
+    @GuardedBy("slabLock")
+    private final Deque<ByteBuffer> free = new ArrayDeque<>();
+    @GuardedBy("slabLock")
+    private int inUse;
+
+    private Slab(ByteBuffer memory, int chunkSize) {
+      for (int position = 0; position < memory.capacity(); position += chunkSize) {
+        memory.limit(position + chunkSize).position(position);
+        free.add(memory.slice());
+      }
+    }
+  }
+
+  /**
+   * Buffer of a slab holding part of a content.
+   */
+  private static final class Chunk {
+
+    private final Slab slab;
+    private final int sizeClass;
+    private final ByteBuffer buffer;
+
+    private Chunk(Slab slab, int sizeClass, ByteBuffer buffer) {
+      this.slab = slab;
+      this.sizeClass = sizeClass;
+      this.buffer = buffer;
+    }
+  }
+}
@@ -12,24 +12,31 @@ import org.dataone.ns.service.types.v1.SystemMetadata;
 @Immutable
 class PersistedObject {
 
-  private final byte[] data;
+  private final Content content;
   private final SystemMetadata sysmeta;
   private final Date created;
   private final Date modified;
 
   public PersistedObject(byte[] data, SystemMetadata sysmeta, Date created, Date modified) {
-    this.data = data;
+    this(Content.of(data), sysmeta, created, modified);
+  }
+
+  public PersistedObject(Content content, SystemMetadata sysmeta, Date created, Date modified) {
+    this.content = content;
     this.sysmeta = sysmeta;
     this.created = created;
     this.modified = modified;
   }
 
-  public Date getCreated() {
-    return created;
+  /**
+   * @return the data, on or off the heap
+   */
+  public Content getContent() {
+    return content;
   }
 
-  public byte[] getData() {
-    return data;
+  public Date getCreated() {
+    return created;
   }
 
   public Date getModified() {
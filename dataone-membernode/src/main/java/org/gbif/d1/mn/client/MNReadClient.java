@@ -2,14 +2,18 @@ package org.gbif.d1.mn.client;
 
 import java.io.InputStream;
 import java.util.Date;
+import java.util.Optional;
 import javax.annotation.Nullable;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 
 import org.dataone.ns.service.apis.v1.mn.MNRead;
 import org.dataone.ns.service.exceptions.ExceptionDetail;
+import org.dataone.ns.service.exceptions.ServiceFailure;
 import org.dataone.ns.service.types.v1.DescribeResponse;
 import org.dataone.ns.service.types.v1.Identifier;
 import org.dataone.ns.service.types.v1.ObjectList;
@@ -62,4 +66,26 @@ public class MNReadClient implements MNRead {
   public InputStream getReplica(Identifier pid) {
     return node.path("replica/" + pid.getValue()).request(MediaType.APPLICATION_OCTET_STREAM).get(InputStream.class);
   }
+
+  /**
+   * Reads a range of bytes of a replica using an HTTP Range request.
+   *
+   * @param offset position of the first byte to read
+   * @param length number of bytes to read
+   * @return the range, or empty if the node ignores range requests and answers with the whole replica, which is then
+   * better read with a single {@link #getReplica(Identifier)} than once per range
+   */
+  public Optional<InputStream> getReplica(Identifier pid, long offset, long length) {
+    Response response = node.path("replica/" + pid.getValue()).request(MediaType.APPLICATION_OCTET_STREAM)
+      .header(HttpHeaders.RANGE, "bytes=" + offset + '-' + (offset + length - 1))
+      .get();
+    if (response.getStatus() == Response.Status.PARTIAL_CONTENT.getStatusCode()) {
+      return Optional.of(response.readEntity(InputStream.class));
+    }
+    response.close();
+    if (response.getStatus() == Response.Status.OK.getStatusCode()) {
+      return Optional.empty();
+    }
+    throw new ServiceFailure("Unexpected status " + response.getStatus() + " reading replica " + pid.getValue());
+  }
 }
@@ -0,0 +1,77 @@
+package org.gbif.d1.mn.client;
+
+import java.util.concurrent.TimeUnit;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.ws.rs.client.Client;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import io.dropwizard.lifecycle.Managed;
+import io.dropwizard.util.Duration;
+
+/**
+ * Registry of {@link MNReadClient} instances keyed by the base URL of the member node.
+ * <p>
+ * All the instances share the same Jersey client, and therefore the same pool of keep-alive connections, whose size
+ * per node and lifetime are set by the client configuration (maxConnectionsPerRoute, keepAlive, timeToLive). Instances
+ * not used for the idle timeout are evicted from the registry, which only discards their web targets: pooled
+ * connections are not closed by the eviction but when they expire, and all of them when the registry is stopped.
+ */
+@ThreadSafe
+public class MNReadClients implements Managed {
+
+  private final Client client;
+
+  //This cache avoids building a new target each time a node is contacted
+  private final LoadingCache<String, MNReadClient> clients;
+
+  /**
+   * @param client jersey managed client, closed when the registry is stopped
+   * @param idleTimeout time after which an instance not used is evicted, its connections are left to the pool
+   */
+  public MNReadClients(Client client, Duration idleTimeout) {
+    this(client, idleTimeout, Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  MNReadClients(Client client, Duration idleTimeout, Ticker ticker) {
+    this.client = client;
+    clients = CacheBuilder.newBuilder()
+      .ticker(ticker)
+      .expireAfterAccess(idleTimeout.toMilliseconds(), TimeUnit.MILLISECONDS)
+      .build(new CacheLoader<String, MNReadClient>() {
+        @Override
+        public MNReadClient load(String baseURL) {
+          return new MNReadClient(client, baseURL);
+        }
+      });
+  }
+
+  /**
+   * @return the client of the member node with the given base URL
+   */
+  public MNReadClient get(String baseURL) {
+    return clients.getUnchecked(baseURL);
+  }
+
+  /**
+   * @return number of member nodes with a client in the registry
+   */
+  public long size() {
+    return clients.size();
+  }
+
+  @Override
+  public void start() {
+    // NOP
+  }
+
+  @Override
+  public void stop() {
+    clients.invalidateAll();
+    client.close();
+  }
+}
@@ -0,0 +1,120 @@
+package org.gbif.d1.mn.provider;
+
+import java.math.BigInteger;
+import java.util.Date;
+import java.util.Optional;
+import javax.annotation.Nullable;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+
+import org.dataone.ns.service.types.v1.Checksum;
+import org.dataone.ns.service.types.v1.SystemMetadata;
+
+/**
+ * HTTP cache validators of an object, derived from its system metadata.
+ * <p>
+ * The content of an object never changes, and any change of its system metadata increments the serial version, so the
+ * checksum and serial version together are a strong entity tag of the content of the object. The system metadata
+ * document is served as XML or JSON, byte for byte as stored or marshalled, so it only gets the weak form of the tag,
+ * and varies on the Accept header. The modification date is the one of the system metadata.
+ */
+public final class CacheValidators {
+
+  // not for instantiation
+  private CacheValidators() {
+  }
+
+  /**
+   * @return strong entity tag, absent if the checksum is unknown
+   */
+  public static Optional<EntityTag> etag(@Nullable Checksum checksum, @Nullable BigInteger serialVersion) {
+    if (checksum == null || checksum.getValue() == null) {
+      return Optional.empty();
+    }
+    return Optional.of(new EntityTag(checksum.getAlgorithm() + ':' + checksum.getValue() + ':'
+                                     + Optional.ofNullable(serialVersion).orElse(BigInteger.ONE)));
+  }
+
+  public static Optional<EntityTag> etag(SystemMetadata sysmeta) {
+    return etag(sysmeta.getChecksum(), sysmeta.getSerialVersion());
+  }
+
+  /**
+   * @return weak entity tag of the system metadata document, the same for all its representations
+   */
+  public static Optional<EntityTag> weakEtag(SystemMetadata sysmeta) {
+    return etag(sysmeta).map(tag -> new EntityTag(tag.getValue(), true));
+  }
+
+  public static Optional<Date> lastModified(SystemMetadata sysmeta) {
+    return Optional.ofNullable(sysmeta.getDateSysMetadataModified())
+      .map(date -> date.toGregorianCalendar().getTime());
+  }
+
+  /**
+   * @return value of the entity tag as it appears in the ETag and If-Range headers
+   */
+  public static String quoted(EntityTag etag) {
+    return '"' + etag.getValue() + '"';
+  }
+
+  /**
+   * Adds the ETag and Last-Modified headers.
+   */
+  public static void writeHeaders(Optional<EntityTag> etag, Optional<Date> lastModified,
+                                  MultivaluedMap<String, Object> httpHeaders) {
+    etag.ifPresent(tag -> httpHeaders.putSingle(HttpHeaders.ETAG, tag));
+    lastModified.ifPresent(date -> httpHeaders.putSingle(HttpHeaders.LAST_MODIFIED, date));
+  }
+
+  /**
+   * Evaluates the conditional headers of the request (If-None-Match, If-Modified-Since, etc.) against the system
+   * metadata, so that they are answered before reading the content of the object.
+   *
+   * @return the response to return instead of the object, e.g. 304 Not Modified, absent if the request must proceed
+   */
+  public static Optional<Response> evaluatePreconditions(Request request, SystemMetadata sysmeta) {
+    return evaluatePreconditions(request, etag(sysmeta), lastModified(sysmeta));
+  }
+
+  /**
+   * Evaluates the conditional headers of the request against the given validators.
+   *
+   * @return the response to return instead of the representation, absent if the request must proceed
+   */
+  public static Optional<Response> evaluatePreconditions(Request request, Optional<EntityTag> etag,
+                                                         Optional<Date> lastModified) {
+    Response.ResponseBuilder builder;
+    if (etag.isPresent() && lastModified.isPresent()) {
+      builder = request.evaluatePreconditions(lastModified.get(), etag.get());
+    } else if (etag.isPresent()) {
+      builder = request.evaluatePreconditions(etag.get());
+    } else if (lastModified.isPresent()) {
+      builder = request.evaluatePreconditions(lastModified.get());
+    } else {
+      builder = null;
+    }
+    return Optional.ofNullable(builder).map(response -> {
+      etag.ifPresent(response::tag);
+      lastModified.ifPresent(response::lastModified);
+      return response.build();
+    });
+  }
+
+  /**
+   * Adds the ETag and Last-Modified headers of the system metadata to a response.
+   */
+  public static Response.ResponseBuilder withHeaders(Response.ResponseBuilder response, SystemMetadata sysmeta) {
+    return withHeaders(response, etag(sysmeta), lastModified(sysmeta));
+  }
+
+  public static Response.ResponseBuilder withHeaders(Response.ResponseBuilder response, Optional<EntityTag> etag,
+                                                     Optional<Date> lastModified) {
+    etag.ifPresent(response::tag);
+    lastModified.ifPresent(response::lastModified);
+    return response;
+  }
+}
@@ -43,7 +43,9 @@ public class DescribeResponseHeaderProvider implements MessageBodyWriter<Describ
                                       + describeResponse.getChecksum().getValue(), httpHeaders);
     });
     writeHeader("DataONE-SerialVersion", describeResponse.getSerialVersion(), httpHeaders);
-    writeHeader("Last-Modified", describeResponse.getLastModified(), httpHeaders);
+    CacheValidators.writeHeaders(CacheValidators.etag(describeResponse.getChecksum(),
+                                                      describeResponse.getSerialVersion()),
+                                 Optional.ofNullable(describeResponse.getLastModified()), httpHeaders);
     writeHeader("Content-Length", describeResponse.getContentLength(), httpHeaders);
   }
 
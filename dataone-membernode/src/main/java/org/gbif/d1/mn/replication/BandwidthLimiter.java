@@ -0,0 +1,148 @@
+package org.gbif.d1.mn.replication;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.RateLimiter;
+
+/**
+ * Token buckets limiting the bandwidth used by replication, globally and per source node, so that replication doesn't
+ * starve the requests served by this node.
+ * <p>
+ * Rates are in bytes per second, a rate of zero or less means unlimited. Rates can be changed at runtime.
+ */
+@ThreadSafe
+public class BandwidthLimiter {
+
+  private final Meter bytes;
+  private volatile long nodeRate;
+  // null when unlimited
+  @Nullable
+  private volatile RateLimiter global;
+  // source node identifier -> limiter, only for limited nodes
+  private final ConcurrentMap<String, RateLimiter> nodes = new ConcurrentHashMap<>();
+  // source node identifier -> rate set explicitly, overriding the default node rate
+  private final ConcurrentMap<String, Long> nodeRates = new ConcurrentHashMap<>();
+
+  /**
+   * @param globalRate bytes per second of all the replication transfers
+   * @param nodeRate default bytes per second of the transfers from each source node
+   */
+  public BandwidthLimiter(long globalRate, long nodeRate, MetricRegistry metrics) {
+    setGlobalRate(globalRate);
+    this.nodeRate = nodeRate;
+    bytes = metrics.meter(MetricRegistry.name(BandwidthLimiter.class, "bytes"));
+  }
+
+  /**
+   * Wraps a stream read from a source node, blocking reads while the node or global bandwidth is exhausted.
+   */
+  public InputStream throttle(String node, InputStream in) {
+    return new FilterInputStream(in) {
+      @Override
+      public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+          acquire(node, 1);
+        }
+        return b;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+        if (read > 0) {
+          acquire(node, read);
+        }
+        return read;
+      }
+    };
+  }
+
+  /**
+   * Takes bytes from the global bucket and the bucket of the node, waiting until they are available.
+   */
+  public void acquire(String node, int count) {
+    RateLimiter globalLimiter = global;
+    if (globalLimiter != null) {
+      globalLimiter.acquire(count);
+    }
+    RateLimiter nodeLimiter = nodeLimiter(node);
+    if (nodeLimiter != null) {
+      nodeLimiter.acquire(count);
+    }
+    bytes.mark(count);
+  }
+
+  @Nullable
+  private RateLimiter nodeLimiter(String node) {
+    long rate = nodeRates.getOrDefault(node, nodeRate);
+    if (rate <= 0) {
+      return null;
+    }
+    RateLimiter limiter = nodes.computeIfAbsent(node, key -> RateLimiter.create(rate));
+    if ((long) limiter.getRate() != rate) {
+      limiter.setRate(rate);
+    }
+    return limiter;
+  }
+
+  /**
+   * @return bytes per second of all the replication transfers, zero if unlimited
+   */
+  public long getGlobalRate() {
+    RateLimiter globalLimiter = global;
+    return globalLimiter == null ? 0 : (long) globalLimiter.getRate();
+  }
+
+  public synchronized void setGlobalRate(long rate) {
+    if (rate <= 0) {
+      global = null;
+    } else if (global == null) {
+      global = RateLimiter.create(rate);
+    } else {
+      global.setRate(rate);
+    }
+  }
+
+  /**
+   * @return default bytes per second of the transfers from each source node, zero if unlimited
+   */
+  public long getNodeRate() {
+    return Math.max(nodeRate, 0);
+  }
+
+  public void setNodeRate(long rate) {
+    nodeRate = rate;
+  }
+
+  /**
+   * Overrides the default rate of a source node.
+   */
+  public void setNodeRate(String node, long rate) {
+    nodeRates.put(node, rate);
+  }
+
+  /**
+   * Reverts a source node to the default rate.
+   */
+  public void resetNodeRate(String node) {
+    nodeRates.remove(node);
+  }
+
+  /**
+   * @return source node identifier -> rate, of the nodes whose rate has been overridden
+   */
+  public Map<String, Long> getNodeRates() {
+    return ImmutableMap.copyOf(nodeRates);
+  }
+}
@@ -0,0 +1,242 @@
+package org.gbif.d1.mn.replication;
+
+import org.gbif.d1.mn.client.MNReadClient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.google.common.base.Throwables;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.dropwizard.lifecycle.Managed;
+import org.dataone.ns.service.types.v1.Identifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Downloads replicas in fixed-size chunks using HTTP Range requests, so that a failed transfer is resumed from the
+ * chunks already downloaded instead of from the first byte.
+ * <p>
+ * The chunks of a replica are fetched in parallel from the source node and staged in a directory per identifier. A
+ * chunk is first written to a partial file and renamed once complete, so only complete chunks are found when resuming.
+ * Nodes ignoring range requests are detected by their first answer, the replica is then read once in a single stream.
+ */
+@ThreadSafe
+public class ChunkedReplicaDownloader implements Managed {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ChunkedReplicaDownloader.class);
+
+  private static final String CHUNK_PREFIX = "chunk-";
+  private static final String PARTIAL_SUFFIX = ".part";
+
+  private final Path stagingDir;
+  private final long chunkSize;
+  private final int parallelism;
+  private final BandwidthLimiter limiter;
+  private final ExecutorService executor;
+
+  /**
+   * @param stagingDir directory where the chunks are staged
+   * @param chunkSize size in bytes of each chunk
+   * @param parallelism number of chunks of the same replica fetched concurrently
+   * @param workers number of replicas downloaded concurrently, the pool has as many threads as chunks fetched at once
+   * @param limiter bandwidth limits of the transfers
+   */
+  public ChunkedReplicaDownloader(Path stagingDir, long chunkSize, int parallelism, int workers,
+                                  BandwidthLimiter limiter) {
+    this.stagingDir = stagingDir;
+    this.chunkSize = chunkSize;
+    this.parallelism = parallelism;
+    this.limiter = limiter;
+    executor = Executors.newFixedThreadPool(parallelism * workers,
+                                            new ThreadFactoryBuilder().setNameFormat("replication-chunk-%d")
+                                              .setDaemon(true).build());
+  }
+
+  /**
+   * @return size in bytes of each chunk, smaller objects are not worth downloading in chunks
+   */
+  public long getChunkSize() {
+    return chunkSize;
+  }
+
+  /**
+   * Downloads the chunks of the replica not staged yet.
+   *
+   * @param client of the source node
+   * @param node source node identifier
+   * @param pid replica identifier
+   * @param size replica size in bytes
+   * @return the staged replica, to be discarded once stored
+   * @throws IOException if a chunk can't be downloaded, the chunks downloaded are kept to resume later
+   */
+  public ByteSource download(MNReadClient client, String node, Identifier pid, long size) throws IOException {
+    Path dir = Files.createDirectories(stagingDir(pid));
+    int chunks = (int) ((size + chunkSize - 1) / chunkSize);
+    List<Integer> missing = new ArrayList<>();
+    for (int index = 0; index < chunks; index++) {
+      Path chunk = dir.resolve(CHUNK_PREFIX + index);
+      if (!Files.exists(chunk) || Files.size(chunk) != chunkLength(index, size)) {
+        missing.add(index);
+      }
+    }
+    if (missing.size() < chunks) {
+      LOG.info("Resuming download of {}, {} of {} chunks staged", pid.getValue(), chunks - missing.size(), chunks);
+    }
+
+    // each lane fetches every n-th missing chunk sequentially, until the node is found to ignore range requests
+    AtomicBoolean rangesIgnored = new AtomicBoolean();
+    List<Future<?>> lanes = new ArrayList<>();
+    for (int lane = 0; lane < Math.min(parallelism, missing.size()); lane++) {
+      int first = lane;
+      lanes.add(executor.submit(() -> {
+        for (int i = first; i < missing.size() && !rangesIgnored.get(); i += parallelism) {
+          int index = missing.get(i);
+          if (!fetch(client, node, pid, dir, index, index * chunkSize, chunkLength(index, size))) {
+            rangesIgnored.set(true);
+          }
+        }
+        return null;
+      }));
+    }
+    try {
+      for (Future<?> lane : lanes) {
+        lane.get();
+      }
+    } catch (ExecutionException ex) {
+      lanes.forEach(lane -> lane.cancel(true));
+      Throwables.propagateIfInstanceOf(ex.getCause(), IOException.class);
+      throw Throwables.propagate(ex.getCause());
+    } catch (InterruptedException ex) {
+      lanes.forEach(lane -> lane.cancel(true));
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted downloading " + pid.getValue(), ex);
+    }
+    if (rangesIgnored.get()) {
+      LOG.info("Node {} ignores range requests, downloading {} in a single stream", node, pid.getValue());
+      fetchSequentially(client, node, pid, dir, size);
+    }
+
+    List<ByteSource> sources = new ArrayList<>(chunks);
+    for (int index = 0; index < chunks; index++) {
+      sources.add(asByteSource(dir.resolve(CHUNK_PREFIX + index)));
+    }
+    return ByteSource.concat(sources);
+  }
+
+  /**
+   * @return false if the node ignores the range request, nothing is staged then
+   */
+  private boolean fetch(MNReadClient client, String node, Identifier pid, Path dir, int index, long offset,
+                        long length) throws IOException {
+    Optional<InputStream> range = client.getReplica(pid, offset, length);
+    if (!range.isPresent()) {
+      return false;
+    }
+    try (InputStream in = limiter.throttle(node, range.get())) {
+      stage(in, pid, dir, index, length);
+    }
+    return true;
+  }
+
+  /**
+   * Reads the whole replica once, staging the chunks still missing and skipping over the ones already staged.
+   */
+  private void fetchSequentially(MNReadClient client, String node, Identifier pid, Path dir, long size)
+    throws IOException {
+    int chunks = (int) ((size + chunkSize - 1) / chunkSize);
+    try (InputStream in = limiter.throttle(node, client.getReplica(pid))) {
+      for (int index = 0; index < chunks; index++) {
+        Path chunk = dir.resolve(CHUNK_PREFIX + index);
+        long length = chunkLength(index, size);
+        if (Files.exists(chunk) && Files.size(chunk) == length) {
+          ByteStreams.skipFully(in, length);
+        } else {
+          stage(ByteStreams.limit(in, length), pid, dir, index, length);
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes a chunk to a partial file, renamed once complete. Partial files are unique, so that a chunk being written
+   * by a lane still running can't be mixed with the same chunk read from the whole replica.
+   */
+  private static void stage(InputStream in, Identifier pid, Path dir, int index, long length) throws IOException {
+    Path partial = Files.createTempFile(dir, CHUNK_PREFIX + index + '-', PARTIAL_SUFFIX);
+    try {
+      Files.copy(in, partial, StandardCopyOption.REPLACE_EXISTING);
+      if (Files.size(partial) != length) {
+        throw new IOException("Chunk " + index + " of " + pid.getValue() + " truncated after " + Files.size(partial)
+                              + " bytes");
+      }
+      Files.move(partial, dir.resolve(CHUNK_PREFIX + index), StandardCopyOption.ATOMIC_MOVE,
+                 StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(partial);
+    }
+    LOG.debug("Chunk {} of {} downloaded", index, pid.getValue());
+  }
+
+  private static ByteSource asByteSource(Path file) {
+    return new ByteSource() {
+      @Override
+      public InputStream openStream() throws IOException {
+        return Files.newInputStream(file);
+      }
+    };
+  }
+
+  private long chunkLength(int index, long size) {
+    return Math.min(chunkSize, size - index * chunkSize);
+  }
+
+  /**
+   * Deletes the staged chunks of a replica.
+   */
+  public void discard(Identifier pid) throws IOException {
+    Path dir = stagingDir(pid);
+    if (Files.exists(dir)) {
+      try (Stream<Path> files = Files.list(dir)) {
+        for (Path file : files.collect(Collectors.toList())) {
+          Files.delete(file);
+        }
+      }
+      Files.delete(dir);
+    }
+  }
+
+  /**
+   * Directory of the chunks of a replica, named after a hash of the identifier which might not be a valid file name.
+   */
+  private Path stagingDir(Identifier pid) {
+    return stagingDir.resolve(Hashing.sha1().hashString(pid.getValue(), StandardCharsets.UTF_8).toString());
+  }
+
+  @Override
+  public void start() throws IOException {
+    Files.createDirectories(stagingDir);
+  }
+
+  @Override
+  public void stop() {
+    executor.shutdownNow();
+  }
+}
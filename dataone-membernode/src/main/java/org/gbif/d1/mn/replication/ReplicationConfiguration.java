@@ -0,0 +1,194 @@
+package org.gbif.d1.mn.replication;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.client.JerseyClientConfiguration;
+import io.dropwizard.util.Duration;
+import io.dropwizard.util.Size;
+
+/**
+ * Configuration settings of the replication engine.
+ */
+public class ReplicationConfiguration {
+
+  //Maximum number of replication tasks waiting or running, further requests are refused
+  private int queueCapacity = 1000;
+
+  //Number of replication tasks run concurrently
+  private int workers = 4;
+
+  //Number of replication tasks run concurrently against the same source node
+  private int maxConcurrencyPerNode = 2;
+
+  //Number of times a task is run before giving up
+  private int maxAttempts = 5;
+
+  //Delay before the first retry, doubled on every further retry
+  private Duration initialBackoff = Duration.seconds(10);
+
+  //Upper bound of the delay between retries
+  private Duration maxBackoff = Duration.minutes(10);
+
+  //Time after which the client of a source node not contacted is discarded, connections expire with the keepAlive and
+  //timeToLive settings of the jerseyClient below
+  private Duration clientIdleTimeout = Duration.minutes(10);
+
+  //Client of the source nodes, apart from the one of the coordinating node so that long transfers don't hold its
+  //connections, its timeout bounds the wait for each read of a transfer
+  private JerseyClientConfiguration jerseyClient = new JerseyClientConfiguration();
+
+  //Objects larger than this are downloaded in chunks of this size using HTTP Range requests
+  private Size chunkSize = Size.megabytes(64);
+
+  //Number of chunks of the same object downloaded concurrently
+  private int chunkParallelism = 4;
+
+  //Directory where the downloaded chunks are staged until the object is stored
+  private String stagingDir = "replication-staging";
+
+  //Bytes per second of all the replication transfers, 0 for unlimited
+  private Size globalBandwidth = Size.bytes(0);
+
+  //Bytes per second of the replication transfers from each source node, 0 for unlimited
+  private Size nodeBandwidth = Size.bytes(0);
+
+  //Tasks of objects larger by this size wait one second more in the queue, 0 to queue tasks in the order accepted
+  private Size prioritySizePerSecond = Size.megabytes(1);
+
+  //File where the pending replication tasks are recorded, to be run again after a restart
+  private String journalFile = "replication.journal";
+
+  @JsonProperty
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  public void setQueueCapacity(int queueCapacity) {
+    this.queueCapacity = queueCapacity;
+  }
+
+  @JsonProperty
+  public int getWorkers() {
+    return workers;
+  }
+
+  public void setWorkers(int workers) {
+    this.workers = workers;
+  }
+
+  @JsonProperty
+  public int getMaxConcurrencyPerNode() {
+    return maxConcurrencyPerNode;
+  }
+
+  public void setMaxConcurrencyPerNode(int maxConcurrencyPerNode) {
+    this.maxConcurrencyPerNode = maxConcurrencyPerNode;
+  }
+
+  @JsonProperty
+  public int getMaxAttempts() {
+    return maxAttempts;
+  }
+
+  public void setMaxAttempts(int maxAttempts) {
+    this.maxAttempts = maxAttempts;
+  }
+
+  @JsonProperty
+  public Duration getInitialBackoff() {
+    return initialBackoff;
+  }
+
+  public void setInitialBackoff(Duration initialBackoff) {
+    this.initialBackoff = initialBackoff;
+  }
+
+  @JsonProperty
+  public Duration getMaxBackoff() {
+    return maxBackoff;
+  }
+
+  public void setMaxBackoff(Duration maxBackoff) {
+    this.maxBackoff = maxBackoff;
+  }
+
+  @JsonProperty
+  public Size getChunkSize() {
+    return chunkSize;
+  }
+
+  public void setChunkSize(Size chunkSize) {
+    this.chunkSize = chunkSize;
+  }
+
+  @JsonProperty
+  public int getChunkParallelism() {
+    return chunkParallelism;
+  }
+
+  public void setChunkParallelism(int chunkParallelism) {
+    this.chunkParallelism = chunkParallelism;
+  }
+
+  @JsonProperty
+  public String getStagingDir() {
+    return stagingDir;
+  }
+
+  public void setStagingDir(String stagingDir) {
+    this.stagingDir = stagingDir;
+  }
+
+  @JsonProperty
+  public Size getGlobalBandwidth() {
+    return globalBandwidth;
+  }
+
+  public void setGlobalBandwidth(Size globalBandwidth) {
+    this.globalBandwidth = globalBandwidth;
+  }
+
+  @JsonProperty
+  public Size getNodeBandwidth() {
+    return nodeBandwidth;
+  }
+
+  public void setNodeBandwidth(Size nodeBandwidth) {
+    this.nodeBandwidth = nodeBandwidth;
+  }
+
+  @JsonProperty
+  public Size getPrioritySizePerSecond() {
+    return prioritySizePerSecond;
+  }
+
+  public void setPrioritySizePerSecond(Size prioritySizePerSecond) {
+    this.prioritySizePerSecond = prioritySizePerSecond;
+  }
+
+  @JsonProperty
+  public String getJournalFile() {
+    return journalFile;
+  }
+
+  public void setJournalFile(String journalFile) {
+    this.journalFile = journalFile;
+  }
+
+  @JsonProperty
+  public Duration getClientIdleTimeout() {
+    return clientIdleTimeout;
+  }
+
+  public void setClientIdleTimeout(Duration clientIdleTimeout) {
+    this.clientIdleTimeout = clientIdleTimeout;
+  }
+
+  @JsonProperty
+  public JerseyClientConfiguration getJerseyClient() {
+    return jerseyClient;
+  }
+
+  public void setJerseyClient(JerseyClientConfiguration jerseyClient) {
+    this.jerseyClient = jerseyClient;
+  }
+}
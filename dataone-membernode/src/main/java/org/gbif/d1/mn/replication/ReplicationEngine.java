@@ -0,0 +1,263 @@
+package org.gbif.d1.mn.replication;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ComparisonChain;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.dropwizard.lifecycle.Managed;
+import org.dataone.ns.service.exceptions.InsufficientResources;
+import org.dataone.ns.service.exceptions.ServiceFailure;
+import org.dataone.ns.service.types.v1.SystemMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs replication tasks in the background, so that replication requests can be acknowledged as soon as they are
+ * accepted.
+ * <p>
+ * The number of accepted tasks that have not completed yet is bounded, and only one task per identifier is accepted at
+ * a time. Tasks are run by a fixed pool of workers, with a cap on the number of concurrent tasks against each source
+ * node. Failed tasks are retried with an exponential backoff up to a maximum number of attempts.
+ * <p>
+ * Tasks waiting for a worker are ordered by the size of the object and the time they were accepted, so small objects
+ * are replicated first without starving the older requests of large ones.
+ * <p>
+ * Tasks are recorded in a {@link ReplicationJournal} before being accepted, and the ones pending when the engine
+ * stopped are run again when it starts.
+ */
+@ThreadSafe
+public class ReplicationEngine implements Managed {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ReplicationEngine.class);
+
+  // delay before trying again a task whose source node is busy with other tasks
+  private static final long NODE_BUSY_DELAY_MS = 1000L;
+  private static final long SHUTDOWN_TIMEOUT_SECONDS = 30L;
+  private static final BigInteger THOUSAND = BigInteger.valueOf(1000L);
+
+  private final ReplicationConfiguration configuration;
+  private final Replicator replicator;
+  private final ReplicationJournal journal;
+  // identifier -> task accepted and not completed yet
+  private final ConcurrentMap<String, ReplicationTask> pending = new ConcurrentHashMap<>();
+  // source node identifier -> permits of concurrent tasks against it
+  private final ConcurrentMap<String, Semaphore> nodePermits = new ConcurrentHashMap<>();
+  private final ThreadPoolExecutor workers;
+  // breaks ties between tasks of the same priority, in the order they are queued
+  private final AtomicLong sequence = new AtomicLong();
+  private final ScheduledExecutorService scheduler;
+
+  private final Meter succeeded;
+  private final Meter retried;
+  private final Meter failed;
+
+  public ReplicationEngine(ReplicationConfiguration configuration, Replicator replicator, ReplicationJournal journal,
+                           MetricRegistry metrics) {
+    this.configuration = configuration;
+    this.replicator = replicator;
+    this.journal = journal;
+    workers = new ThreadPoolExecutor(configuration.getWorkers(), configuration.getWorkers(), 0L, TimeUnit.MILLISECONDS,
+                                     new PriorityBlockingQueue<>(),
+                                     new ThreadFactoryBuilder().setNameFormat("replication-worker-%d").build());
+    scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                                                             .setNameFormat("replication-scheduler-%d")
+                                                             .setDaemon(true).build());
+    succeeded = metrics.meter(MetricRegistry.name(ReplicationEngine.class, "succeeded"));
+    retried = metrics.meter(MetricRegistry.name(ReplicationEngine.class, "retried"));
+    failed = metrics.meter(MetricRegistry.name(ReplicationEngine.class, "failed"));
+    metrics.register(MetricRegistry.name(ReplicationEngine.class, "pending"), (Gauge<Integer>) pending::size);
+    metrics.register(MetricRegistry.name(ReplicationEngine.class, "queued"),
+                     (Gauge<Integer>) () -> workers.getQueue().size());
+  }
+
+  /**
+   * Accepts a task to be run in the background.
+   *
+   * @return false if a task for the same identifier is already pending, in which case this one is ignored
+   * @throws InsufficientResources if the maximum number of pending tasks has been reached
+   * @throws ServiceFailure if the task can't be recorded in the journal
+   */
+  public synchronized boolean submit(ReplicationTask task) {
+    String identifier = task.getIdentifier().getValue();
+    if (pending.containsKey(identifier)) {
+      LOG.info("Replication of {} is already pending, request ignored", identifier);
+      return false;
+    }
+    if (pending.size() >= configuration.getQueueCapacity()) {
+      throw new InsufficientResources("Too many pending replication requests, try again later");
+    }
+    try {
+      journal.accepted(task);
+    } catch (IOException ex) {
+      LOG.error("Error writing replication task {} to the journal", task, ex);
+      throw new ServiceFailure("Unable to record the replication request");
+    }
+    pending.put(identifier, task);
+    LOG.debug("Replication task accepted: {}", task);
+    execute(task);
+    return true;
+  }
+
+  /**
+   * @return number of tasks accepted and not completed yet
+   */
+  public int getPending() {
+    return pending.size();
+  }
+
+  private void execute(ReplicationTask task) {
+    try {
+      workers.execute(new PrioritizedRun(task));
+    } catch (RejectedExecutionException ex) {
+      LOG.info("Replication engine stopped, task {} left in the journal", task);
+    }
+  }
+
+  /**
+   * Queue position of a task: the time it was accepted, delayed one second per configured amount of bytes.
+   */
+  private long priority(ReplicationTask task) {
+    long sizePerSecond = configuration.getPrioritySizePerSecond().toBytes();
+    SystemMetadata sysmeta = task.getSystemMetadata();
+    if (sizePerSecond <= 0 || sysmeta == null || sysmeta.getSize() == null) {
+      return task.getAccepted();
+    }
+    // in milliseconds, and not overflowing the priority of huge objects
+    BigInteger delay = sysmeta.getSize().multiply(THOUSAND).divide(BigInteger.valueOf(sizePerSecond));
+    if (delay.compareTo(BigInteger.valueOf(Long.MAX_VALUE - task.getAccepted())) > 0) {
+      return Long.MAX_VALUE;
+    }
+    return task.getAccepted() + delay.longValue();
+  }
+
+  /**
+   * Run of a task ordered in the queue of the workers.
+   */
+  private class PrioritizedRun implements Runnable, Comparable<PrioritizedRun> {
+
+    private final ReplicationTask task;
+    private final long priority;
+    private final long seq;
+
+    private PrioritizedRun(ReplicationTask task) {
+      this.task = task;
+      priority = priority(task);
+      seq = sequence.getAndIncrement();
+    }
+
+    @Override
+    public void run() {
+      ReplicationEngine.this.run(task);
+    }
+
+    @Override
+    public int compareTo(PrioritizedRun other) {
+      return ComparisonChain.start().compare(priority, other.priority).compare(seq, other.seq).result();
+    }
+  }
+
+  private void schedule(ReplicationTask task, long delayMs) {
+    try {
+      scheduler.schedule(() -> execute(task), delayMs, TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException ex) {
+      LOG.info("Replication engine stopped, task {} left in the journal", task);
+    }
+  }
+
+  private void run(ReplicationTask task) {
+    Semaphore permits = nodePermits.computeIfAbsent(task.getSourceNode().getIdentifier().getValue(),
+                                                    node -> new Semaphore(configuration.getMaxConcurrencyPerNode()));
+    if (!permits.tryAcquire()) {
+      schedule(task, NODE_BUSY_DELAY_MS);
+      return;
+    }
+    try {
+      LOG.info("Replicating {}, attempt {}", task.getIdentifier().getValue(), task.getAttempt() + 1);
+      replicator.replicate(task);
+      succeeded.mark();
+      complete(task);
+    } catch (Exception ex) {
+      if (task.getAttempt() + 1 < configuration.getMaxAttempts()) {
+        long delay = backoff(task.getAttempt());
+        LOG.warn("Error replicating {}, retrying in {}ms", task.getIdentifier().getValue(), delay, ex);
+        retried.mark();
+        schedule(task.nextAttempt(), delay);
+      } else {
+        LOG.error("Error replicating {}, giving up after {} attempts", task.getIdentifier().getValue(),
+                  configuration.getMaxAttempts(), ex);
+        failed.mark();
+        abandon(task);
+        complete(task);
+      }
+    } finally {
+      permits.release();
+    }
+  }
+
+  private void abandon(ReplicationTask task) {
+    try {
+      replicator.abandon(task);
+    } catch (Exception ex) {
+      LOG.warn("Error abandoning the replication of {}", task.getIdentifier().getValue(), ex);
+    }
+  }
+
+  /**
+   * Delay before the next attempt, doubling for each failed attempt up to the maximum backoff.
+   */
+  private long backoff(int attempt) {
+    long maxBackoff = configuration.getMaxBackoff().toMilliseconds();
+    long backoff = configuration.getInitialBackoff().toMilliseconds() << Math.min(attempt, 30);
+    return backoff < 0 ? maxBackoff : Math.min(backoff, maxBackoff);
+  }
+
+  private void complete(ReplicationTask task) {
+    pending.remove(task.getIdentifier().getValue());
+    try {
+      journal.completed(task);
+    } catch (IOException ex) {
+      // the task is run again after a restart, finding the object already stored
+      LOG.error("Error writing the completion of replication task {} to the journal", task, ex);
+    }
+  }
+
+  /**
+   * Runs again the tasks that were pending when the engine stopped, regardless of the queue capacity.
+   */
+  @Override
+  public synchronized void start() throws IOException {
+    for (ReplicationTask task : journal.open()) {
+      pending.put(task.getIdentifier().getValue(), task);
+      execute(task);
+    }
+  }
+
+  /**
+   * Stops accepting tasks and waits for the running ones to finish, tasks not completed are kept in the journal.
+   */
+  @Override
+  public void stop() throws Exception {
+    scheduler.shutdownNow();
+    workers.shutdown();
+    if (!workers.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+      LOG.warn("Replication tasks still running after {} seconds, interrupting them", SHUTDOWN_TIMEOUT_SECONDS);
+      workers.shutdownNow();
+    }
+    journal.close();
+  }
+}
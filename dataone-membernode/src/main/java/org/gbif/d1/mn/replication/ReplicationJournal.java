@@ -0,0 +1,242 @@
+package org.gbif.d1.mn.replication;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.xml.bind.JAXBException;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
+import org.dataone.ns.service.types.v1.Identifier;
+import org.dataone.ns.service.types.v1.JaxbPool;
+import org.dataone.ns.service.types.v1.Node;
+import org.dataone.ns.service.types.v1.NodeReference;
+import org.dataone.ns.service.types.v1.Subject;
+import org.dataone.ns.service.types.v1.SystemMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only file recording the replication tasks accepted and completed, so that the pending ones survive a restart.
+ * <p>
+ * Each line is either an accepted task or the completion of a task, with all the values Base64 encoded except the time
+ * the task was accepted, so replayed tasks keep their priority. Every write is forced to disk before returning. Once
+ * enough tasks have completed the file is rewritten with only the pending tasks, and atomically moved in place of the
+ * current one.
+ */
+@ThreadSafe
+public class ReplicationJournal implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ReplicationJournal.class);
+
+  private static final String ACCEPTED = "A";
+  private static final String COMPLETED = "C";
+  private static final char SEPARATOR = '\t';
+  private static final Joiner JOINER = Joiner.on(SEPARATOR);
+  private static final Splitter SPLITTER = Splitter.on(SEPARATOR);
+  private static final JaxbPool JAXB = JaxbPool.newInstance(SystemMetadata.class);
+  // number of completed tasks after which the journal is compacted
+  private static final int COMPACTION_THRESHOLD = 1000;
+
+  private final Path file;
+
+  @GuardedBy("this")
+  private FileChannel channel;
+  // identifier -> journal line of the tasks accepted and not completed
+  @GuardedBy("this")
+  private final Map<String, String> pending = new LinkedHashMap<>();
+  @GuardedBy("this")
+  private int completedSinceCompaction;
+
+  public ReplicationJournal(Path file) {
+    this.file = file;
+  }
+
+  /**
+   * Reads the journal, compacts it and opens it for writing.
+   *
+   * @return the tasks accepted and not completed, in the order they were accepted
+   */
+  public synchronized List<ReplicationTask> open() throws IOException {
+    List<ReplicationTask> tasks = new ArrayList<>();
+    if (Files.exists(file)) {
+      for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+        read(line);
+      }
+      for (String line : pending.values()) {
+        tasks.add(toTask(line));
+      }
+    }
+    if (file.getParent() != null) {
+      Files.createDirectories(file.getParent());
+    }
+    compact();
+    LOG.info("Replication journal {} opened with {} pending tasks", file, tasks.size());
+    return tasks;
+  }
+
+  private void read(String line) {
+    try {
+      List<String> values = SPLITTER.splitToList(line);
+      if (ACCEPTED.equals(values.get(0))) {
+        toTask(line); // validates the line
+        pending.put(decode(values.get(1)), line);
+      } else if (COMPLETED.equals(values.get(0))) {
+        pending.remove(decode(values.get(1)));
+      } else {
+        LOG.warn("Ignoring unknown replication journal entry [{}]", line);
+      }
+    } catch (RuntimeException ex) {
+      // most likely the last line, partially written when the node stopped
+      LOG.warn("Ignoring unreadable replication journal entry [{}]", line, ex);
+    }
+  }
+
+  /**
+   * Records an accepted task.
+   */
+  public synchronized void accepted(ReplicationTask task) throws IOException {
+    String line = toLine(task);
+    write(line);
+    pending.put(task.getIdentifier().getValue(), line);
+  }
+
+  /**
+   * Records a completed task, whether it succeeded or not.
+   */
+  public synchronized void completed(ReplicationTask task) throws IOException {
+    String identifier = task.getIdentifier().getValue();
+    if (pending.remove(identifier) != null) {
+      write(JOINER.join(COMPLETED, encode(identifier)));
+      completedSinceCompaction++;
+      if (pending.isEmpty() || completedSinceCompaction >= COMPACTION_THRESHOLD) {
+        compact();
+      }
+    }
+  }
+
+  @GuardedBy("this")
+  private void write(String line) throws IOException {
+    if (channel == null) {
+      throw new IOException("Replication journal " + file + " is not open");
+    }
+    ByteBuffer buffer = StandardCharsets.UTF_8.encode(line + '\n');
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    channel.force(false);
+  }
+
+  /**
+   * Rewrites the journal with the pending tasks only.
+   */
+  @GuardedBy("this")
+  private void compact() throws IOException {
+    Path compacted = file.resolveSibling(file.getFileName() + ".tmp");
+    try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                            StandardOpenOption.TRUNCATE_EXISTING)) {
+      for (String line : pending.values()) {
+        ByteBuffer buffer = StandardCharsets.UTF_8.encode(line + '\n');
+        while (buffer.hasRemaining()) {
+          out.write(buffer);
+        }
+      }
+      out.force(true);
+    }
+    if (channel != null) {
+      channel.close();
+    }
+    Files.move(compacted, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    completedSinceCompaction = 0;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (channel != null) {
+      channel.close();
+      channel = null;
+    }
+  }
+
+  private static String toLine(ReplicationTask task) {
+    return JOINER.join(ACCEPTED,
+                       encode(task.getIdentifier().getValue()),
+                       encode(task.getSourceNode().getIdentifier().getValue()),
+                       encode(task.getSourceNode().getBaseURL()),
+                       encode(task.getIp()),
+                       encode(task.getUserAgent()),
+                       encode(task.getSubject() == null ? null : task.getSubject().getValue()),
+                       encode(toXml(task.getSystemMetadata())),
+                       task.getAccepted());
+  }
+
+  private static ReplicationTask toTask(String line) {
+    List<String> values = SPLITTER.splitToList(line);
+    Node sourceNode = Node.builder()
+                        .withIdentifier(NodeReference.builder().withValue(decode(values.get(2))).build())
+                        .withBaseURL(decode(values.get(3)))
+                        .build();
+    String subject = decode(values.get(6));
+    // lines written before the accepted time was journaled count as accepted now
+    long accepted = values.size() > 8 ? Long.parseLong(values.get(8)) : System.currentTimeMillis();
+    return new ReplicationTask(Identifier.builder().withValue(decode(values.get(1))).build(),
+                               sourceNode,
+                               fromXml(decode(values.get(7))),
+                               decode(values.get(4)),
+                               decode(values.get(5)),
+                               subject == null ? null : Subject.builder().withValue(subject).build(),
+                               accepted);
+  }
+
+  private static String toXml(SystemMetadata systemMetadata) {
+    if (systemMetadata == null) {
+      return null;
+    }
+    try {
+      ByteArrayOutputStream xml = new ByteArrayOutputStream();
+      JAXB.marshal(systemMetadata, xml);
+      return new String(xml.toByteArray(), StandardCharsets.UTF_8);
+    } catch (JAXBException ex) {
+      throw new IllegalArgumentException("Unable to write system metadata", ex);
+    }
+  }
+
+  private static SystemMetadata fromXml(String xml) {
+    if (xml == null) {
+      return null;
+    }
+    try {
+      return JAXB.unmarshal(new StringReader(xml), SystemMetadata.class);
+    } catch (JAXBException ex) {
+      throw new IllegalArgumentException("Unable to read system metadata", ex);
+    }
+  }
+
+  /**
+   * Base64 encoding of the value, nulls are encoded as empty strings.
+   */
+  private static String encode(String value) {
+    return value == null ? "" : Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String decode(String value) {
+    return Strings.isNullOrEmpty(value) ? null : new String(Base64.getDecoder().decode(value), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,96 @@
+package org.gbif.d1.mn.replication;
+
+import java.io.PrintWriter;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableMultimap;
+import io.dropwizard.servlets.tasks.Task;
+
+/**
+ * Admin task changing the replication bandwidth limits at runtime, e.g.:
+ * <pre>
+ * POST /tasks/replication-limits?global=10485760
+ * POST /tasks/replication-limits?node=urn:node:KNB&amp;rate=1048576
+ * POST /tasks/replication-limits?node=urn:node:KNB&amp;rate=default
+ * </pre>
+ * Rates are in bytes per second, zero means unlimited. Without a node, the rate is the default of all the nodes. The
+ * current limits are printed after the changes.
+ */
+public class ReplicationLimitsTask extends Task {
+
+  private static final String GLOBAL = "global";
+  private static final String NODE = "node";
+  private static final String RATE = "rate";
+  private static final String DEFAULT = "default";
+  private static final String USAGE = "Usage: [global=<bytes per second>] [node=<node id>] "
+                                      + "[rate=<bytes per second>|default], default requires a node";
+
+  private final BandwidthLimiter limiter;
+
+  public ReplicationLimitsTask(BandwidthLimiter limiter) {
+    super("replication-limits");
+    this.limiter = limiter;
+  }
+
+  @Override
+  public void execute(ImmutableMultimap<String, String> parameters, PrintWriter output) {
+    String error = validate(parameters);
+    if (error != null) {
+      output.println("Error: " + error);
+      output.println(USAGE);
+      output.flush();
+      return;
+    }
+    for (String rate : parameters.get(GLOBAL)) {
+      limiter.setGlobalRate(Long.parseLong(rate));
+    }
+    for (String rate : parameters.get(RATE)) {
+      if (parameters.get(NODE).isEmpty()) {
+        limiter.setNodeRate(Long.parseLong(rate));
+      }
+      for (String node : parameters.get(NODE)) {
+        if (DEFAULT.equals(rate)) {
+          limiter.resetNodeRate(node);
+        } else {
+          limiter.setNodeRate(node, Long.parseLong(rate));
+        }
+      }
+    }
+    output.println("global: " + limiter.getGlobalRate());
+    output.println("node default: " + limiter.getNodeRate());
+    for (Map.Entry<String, Long> node : limiter.getNodeRates().entrySet()) {
+      output.println(node.getKey() + ": " + node.getValue());
+    }
+    output.flush();
+  }
+
+  /**
+   * @return the reason the parameters are not valid, null if they are, so that no limit is changed by a bad request
+   */
+  private static String validate(ImmutableMultimap<String, String> parameters) {
+    for (String rate : parameters.get(GLOBAL)) {
+      if (!isRate(rate)) {
+        return "global rate [" + rate + "] is not a number of bytes per second";
+      }
+    }
+    for (String rate : parameters.get(RATE)) {
+      if (DEFAULT.equals(rate)) {
+        if (parameters.get(NODE).isEmpty()) {
+          return "rate [" + DEFAULT + "] requires a node";
+        }
+      } else if (!isRate(rate)) {
+        return "rate [" + rate + "] is not a number of bytes per second or [" + DEFAULT + "]";
+      }
+    }
+    return null;
+  }
+
+  private static boolean isRate(String rate) {
+    try {
+      Long.parseLong(rate);
+      return true;
+    } catch (NumberFormatException ex) {
+      return false;
+    }
+  }
+}
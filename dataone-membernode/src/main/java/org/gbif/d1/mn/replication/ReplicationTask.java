@@ -0,0 +1,107 @@
+package org.gbif.d1.mn.replication;
+
+import javax.annotation.concurrent.Immutable;
+
+import org.dataone.ns.service.types.v1.Identifier;
+import org.dataone.ns.service.types.v1.Node;
+import org.dataone.ns.service.types.v1.Subject;
+import org.dataone.ns.service.types.v1.SystemMetadata;
+
+/**
+ * A request to copy an object from a source member node into this node, along with the number of times it has been
+ * attempted.
+ */
+@Immutable
+public class ReplicationTask {
+
+  private final Identifier identifier;
+  private final Node sourceNode;
+  private final SystemMetadata systemMetadata;
+  private final String ip;
+  private final String userAgent;
+  private final Subject subject;
+  private final int attempt;
+  private final long accepted;
+
+  public ReplicationTask(Identifier identifier, Node sourceNode, SystemMetadata systemMetadata,
+                         String ip, String userAgent, Subject subject) {
+    this(identifier, sourceNode, systemMetadata, ip, userAgent, subject, System.currentTimeMillis());
+  }
+
+  /**
+   * Recreates a task accepted at the given time, e.g. when replayed from the journal.
+   */
+  ReplicationTask(Identifier identifier, Node sourceNode, SystemMetadata systemMetadata,
+                  String ip, String userAgent, Subject subject, long accepted) {
+    this(identifier, sourceNode, systemMetadata, ip, userAgent, subject, 0, accepted);
+  }
+
+  private ReplicationTask(Identifier identifier, Node sourceNode, SystemMetadata systemMetadata,
+                          String ip, String userAgent, Subject subject, int attempt, long accepted) {
+    this.identifier = identifier;
+    this.sourceNode = sourceNode;
+    this.systemMetadata = systemMetadata;
+    this.ip = ip;
+    this.userAgent = userAgent;
+    this.subject = subject;
+    this.attempt = attempt;
+    this.accepted = accepted;
+  }
+
+  /**
+   * @return a copy of this task to be run once more
+   */
+  ReplicationTask nextAttempt() {
+    return new ReplicationTask(identifier, sourceNode, systemMetadata, ip, userAgent, subject, attempt + 1, accepted);
+  }
+
+  public Identifier getIdentifier() {
+    return identifier;
+  }
+
+  public String getIp() {
+    return ip;
+  }
+
+  public Node getSourceNode() {
+    return sourceNode;
+  }
+
+  public SystemMetadata getSystemMetadata() {
+    return systemMetadata;
+  }
+
+  public Subject getSubject() {
+    return subject;
+  }
+
+  public String getUserAgent() {
+    return userAgent;
+  }
+
+  /**
+   * @return number of previous failed attempts
+   */
+  public int getAttempt() {
+    return attempt;
+  }
+
+  /**
+   * @return time in milliseconds when the task was accepted
+   */
+  public long getAccepted() {
+    return accepted;
+  }
+
+  @Override
+  public String toString() {
+    return "ReplicationTask{" +
+           "identifier=" + identifier +
+           ", sourceNode=" + sourceNode.getIdentifier() +
+           ", ip='" + ip + '\'' +
+           ", userAgent='" + userAgent + '\'' +
+           ", subject=" + subject +
+           ", attempt=" + attempt +
+           '}';
+  }
+}
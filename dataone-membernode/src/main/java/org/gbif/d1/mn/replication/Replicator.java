@@ -0,0 +1,21 @@
+package org.gbif.d1.mn.replication;
+
+/**
+ * Copies the object of a replication task into this node.
+ * Implementations are called concurrently and must be threadsafe.
+ */
+@FunctionalInterface
+public interface Replicator {
+
+  /**
+   * @throws Exception if the object could not be replicated, which causes the task to be retried
+   */
+  void replicate(ReplicationTask task) throws Exception;
+
+  /**
+   * Called once the task is given up after its last failed attempt, to release what the attempts kept for resuming.
+   */
+  default void abandon(ReplicationTask task) throws Exception {
+    // NOP
+  }
+}
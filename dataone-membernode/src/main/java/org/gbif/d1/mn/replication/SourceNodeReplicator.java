@@ -0,0 +1,105 @@
+package org.gbif.d1.mn.replication;
+
+import org.gbif.d1.mn.backend.MNBackend;
+import org.gbif.d1.mn.client.MNReadClient;
+import org.gbif.d1.mn.client.MNReadClients;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+
+import com.google.common.io.ByteSource;
+import org.dataone.ns.service.exceptions.IdentifierNotUnique;
+import org.dataone.ns.service.exceptions.InvalidSystemMetadata;
+import org.dataone.ns.service.exceptions.NotFound;
+import org.dataone.ns.service.types.v1.Session;
+import org.dataone.ns.service.types.v1.SystemMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Replicates objects by reading them from the source member node and storing them in the backend.
+ * <p>
+ * Objects larger than a chunk are downloaded in chunks and staged locally before being stored, so that a failed
+ * transfer is resumed by the next attempt.
+ */
+public class SourceNodeReplicator implements Replicator {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SourceNodeReplicator.class);
+
+  private final MNReadClients clients;
+  private final ChunkedReplicaDownloader downloader;
+  private final BandwidthLimiter limiter;
+  private final MNBackend backend;
+
+  public SourceNodeReplicator(MNReadClients clients, ChunkedReplicaDownloader downloader, BandwidthLimiter limiter,
+                              MNBackend backend) {
+    this.clients = clients;
+    this.downloader = downloader;
+    this.limiter = limiter;
+    this.backend = backend;
+  }
+
+  @Override
+  public void replicate(ReplicationTask task) throws Exception {
+    MNReadClient client = clients.get(task.getSourceNode().getBaseURL());
+    String node = task.getSourceNode().getIdentifier().getValue();
+    SystemMetadata sysmeta = task.getSystemMetadata();
+    if (sysmeta != null && sysmeta.getSize() != null && sysmeta.getSize().longValue() > downloader.getChunkSize()) {
+      ByteSource staged = downloader.download(client, node, task.getIdentifier(), sysmeta.getSize().longValue());
+      try (InputStream object = staged.openStream()) {
+        create(task, object);
+      } catch (InvalidSystemMetadata ex) {
+        // corrupt chunks, the next attempt downloads them again
+        downloader.discard(task.getIdentifier());
+        throw ex;
+      }
+      downloader.discard(task.getIdentifier());
+    } else {
+      try (InputStream object = limiter.throttle(node, client.get(task.getIdentifier()))) {
+        create(task, object);
+      }
+    }
+  }
+
+  /**
+   * Deletes the chunks staged by the failed attempts.
+   */
+  @Override
+  public void abandon(ReplicationTask task) throws IOException {
+    downloader.discard(task.getIdentifier());
+  }
+
+  private void create(ReplicationTask task, InputStream object) {
+    try {
+      backend.create(Session.builder().withSubject(task.getSubject()).build(), task.getIdentifier(), object,
+                     task.getSystemMetadata());
+    } catch (IdentifierNotUnique ex) {
+      if (!isStored(task)) {
+        throw ex;
+      }
+      LOG.info("Object {} already exists, replication skipped", task.getIdentifier().getValue());
+    }
+  }
+
+  /**
+   * Whether an object with the identifier of the task was stored by a previous attempt, rather than being a different
+   * object: backends verify the objects they store, so matching system metadata means matching content.
+   */
+  private boolean isStored(ReplicationTask task) {
+    SystemMetadata expected = task.getSystemMetadata();
+    if (expected == null || expected.getChecksum() == null) {
+      return false;
+    }
+    try {
+      SystemMetadata stored = backend.systemMetadata(task.getIdentifier());
+      return stored.getChecksum() != null
+             && expected.getChecksum().getAlgorithm().equalsIgnoreCase(stored.getChecksum().getAlgorithm())
+             && expected.getChecksum().getValue().equalsIgnoreCase(stored.getChecksum().getValue())
+             && Objects.equals(expected.getSize(), stored.getSize());
+    } catch (NotFound ex) {
+      // deleted, its identifier can't be reused
+      return false;
+    }
+  }
+}
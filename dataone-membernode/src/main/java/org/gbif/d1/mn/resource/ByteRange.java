@@ -0,0 +1,119 @@
+package org.gbif.d1.mn.resource;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import com.google.common.base.Strings;
+
+/**
+ * A single byte range requested in an HTTP Range header, as defined by RFC 7233.
+ * <p>
+ * Only single ranges are supported, requests of multiple ranges are answered with the whole object as the RFC allows.
+ */
+@Immutable
+final class ByteRange {
+
+  private static final Pattern RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+
+  private final long offset;
+  private final long length;
+  private final long size;
+
+  private ByteRange(long offset, long length, long size) {
+    this.offset = offset;
+    this.length = length;
+    this.size = size;
+  }
+
+  /**
+   * Parses a Range header against an object of the given size.
+   *
+   * @return the range requested, which might not be satisfiable, or empty if the whole object must be returned
+   */
+  static Optional<ByteRange> parse(@Nullable String header, long size) {
+    if (Strings.isNullOrEmpty(header)) {
+      return Optional.empty();
+    }
+    Matcher matcher = RANGE.matcher(header.trim());
+    if (!matcher.matches() || (matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+      return Optional.empty();
+    }
+    try {
+      if (matcher.group(1).isEmpty()) {
+        // suffix range: the last n bytes
+        long suffix = Math.min(Long.parseLong(matcher.group(2)), size);
+        return Optional.of(new ByteRange(size - suffix, suffix, size));
+      }
+      long first = Long.parseLong(matcher.group(1));
+      long last = matcher.group(2).isEmpty() ? size - 1 : Math.min(Long.parseLong(matcher.group(2)), size - 1);
+      if (!matcher.group(2).isEmpty() && Long.parseLong(matcher.group(2)) < first) {
+        // syntactically invalid, ignored
+        return Optional.empty();
+      }
+      return Optional.of(new ByteRange(first, Math.max(last - first + 1, 0), size));
+    } catch (NumberFormatException ex) {
+      // values too large for a long
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Evaluates an If-Range header, which only honours the Range header if the object hasn't changed.
+   *
+   * @param ifRange header value, either an entity tag or an HTTP date
+   * @param etag current entity tag of the object, if any
+   * @param lastModified current modification date of the object, if any
+   * @return true if there's no If-Range header or it matches the object
+   */
+  static boolean ifRangeMatches(@Nullable String ifRange, @Nullable String etag, @Nullable Date lastModified) {
+    if (Strings.isNullOrEmpty(ifRange)) {
+      return true;
+    }
+    if (ifRange.startsWith("W/")) {
+      // only strong entity tags can be used
+      return false;
+    }
+    if (ifRange.startsWith("\"")) {
+      return ifRange.equals(etag);
+    }
+    if (lastModified == null) {
+      return false;
+    }
+    try {
+      Instant date = ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+      return date.getEpochSecond() == lastModified.getTime() / 1000;
+    } catch (DateTimeParseException ex) {
+      return false;
+    }
+  }
+
+  /**
+   * @return false if the range starts after the end of the object
+   */
+  boolean isSatisfiable() {
+    return length > 0;
+  }
+
+  long getOffset() {
+    return offset;
+  }
+
+  long getLength() {
+    return length;
+  }
+
+  /**
+   * @return value of the Content-Range header of the response
+   */
+  String contentRange() {
+    return isSatisfiable() ? "bytes " + offset + '-' + (offset + length - 1) + '/' + size : "bytes */" + size;
+  }
+}
@@ -4,6 +4,7 @@ import org.gbif.d1.mn.auth.AuthorizationManager;
 import org.gbif.d1.mn.backend.MNBackend;
 import org.gbif.d1.mn.exception.DataONE;
 import org.gbif.d1.mn.provider.Authenticate;
+import org.gbif.d1.mn.provider.CacheValidators;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -15,8 +16,11 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
 
 import com.codahale.metrics.annotation.Timed;
+import org.dataone.ns.service.apis.v1.ObjectHandle;
 import org.dataone.ns.service.exceptions.InvalidRequest;
 import org.dataone.ns.service.exceptions.InvalidToken;
 import org.dataone.ns.service.exceptions.NotAuthorized;
@@ -27,6 +31,7 @@ import org.dataone.ns.service.types.v1.Checksum;
 import org.dataone.ns.service.types.v1.Identifier;
 import org.dataone.ns.service.types.v1.Permission;
 import org.dataone.ns.service.types.v1.Session;
+import org.dataone.ns.service.types.v1.SystemMetadata;
 
 import static org.gbif.d1.mn.util.D1Preconditions.checkNotNull;
 
@@ -62,6 +67,7 @@ public final class ChecksumResource {
    * determine if two instances referenced by a PID are identical, hence it is necessary that MNs can ensure that the
    * returned checksum is valid for the referenced object either by computing it on the fly or by using a cached value
    * that is certain to be correct.
+   * Conditional requests are answered with 304 Not Modified if the system metadata hasn't changed.
    *
    * @throws InvalidRequest if any argument is null or fails validation
    * @throws InvalidToken if the credentials in the request are not correctly presented
@@ -73,10 +79,15 @@ public final class ChecksumResource {
   @DataONE(DataONE.Method.GET_CHECKSUM)
   @Timed
   @Produces(MediaType.APPLICATION_XML)
-  public Checksum getChecksum(@Authenticate Session session, @PathParam("pid") Identifier pid,
-                              @QueryParam("checksumAlgorithm") String checksumAlgorithm) {
-    auth.checkIsAuthorized(session, pid.getValue(), Permission.READ);
-    return backend.checksum(pid, checksumAlgorithm);
+  public Response getChecksum(@Authenticate Session session, @PathParam("pid") Identifier pid,
+                              @QueryParam("checksumAlgorithm") String checksumAlgorithm,
+                              @Context Request httpRequest) {
+    ObjectHandle object = backend.resolve(pid);
+    auth.checkIsAuthorized(session, object, Permission.READ);
+    SystemMetadata sysmeta = object.getSystemMetadata();
+    return CacheValidators.evaluatePreconditions(httpRequest, sysmeta)
+      .orElseGet(() -> CacheValidators.withHeaders(Response.ok(backend.checksum(object, checksumAlgorithm)), sysmeta)
+        .build());
   }
 
 }
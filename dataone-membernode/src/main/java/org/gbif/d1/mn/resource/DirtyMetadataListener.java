@@ -51,7 +51,7 @@ public class DirtyMetadataListener {
   @Subscribe public void updateMetadata(SystemMetadataChangeEvent metadataChangeEvent) {
     try {
       SystemMetadata metadata = coordinatingNode.getSystemMetadata(metadataChangeEvent.getIdentifier());
-      mnBackend.updateMetadata(metadataChangeEvent.getSession(), metadataChangeEvent.getIdentifier(), metadata);
+      mnBackend.synchronizeMetadata(metadataChangeEvent.getSession(), metadataChangeEvent.getIdentifier(), metadata);
       LOG.debug("Metadata update for Identifier {}", metadataChangeEvent.getIdentifier().getValue());
     } catch (Exception ex) {
       LOG.error("Error updating metadata", ex);
@@ -0,0 +1,79 @@
+package org.gbif.d1.mn.resource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import javax.annotation.Nullable;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.eclipse.jetty.server.HttpOutput;
+
+/**
+ * Writes a region of a file channel to the response without copying it through the heap.
+ * <p>
+ * When running in Jetty the region is memory mapped and handed to the connector, which writes the mapped pages to the
+ * socket. Elsewhere the region is transferred with {@link FileChannel#transferTo}, which the JVM optimises depending on
+ * the target channel. The channel is closed once written.
+ */
+final class FileChannelOutput implements StreamingOutput {
+
+  // mapped at most once at a time, a mapping can't exceed 2GiB
+  private static final long WINDOW = 64L * 1024 * 1024;
+
+  private final FileChannel channel;
+  private final long offset;
+  private final long length;
+  @Nullable
+  private final HttpServletResponse servletResponse;
+
+  /**
+   * @param servletResponse the response of the container, null if not running in a servlet container
+   */
+  FileChannelOutput(FileChannel channel, long offset, long length, @Nullable HttpServletResponse servletResponse) {
+    this.channel = channel;
+    this.offset = offset;
+    this.length = length;
+    this.servletResponse = servletResponse;
+  }
+
+  @Override
+  public void write(OutputStream output) throws IOException {
+    try (FileChannel in = channel) {
+      long end = Math.min(offset + length, in.size());
+      HttpOutput jetty = jettyOutput(output);
+      if (jetty != null) {
+        for (long position = offset; position < end; position += WINDOW) {
+          jetty.write(in.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW, end - position)));
+        }
+      } else {
+        WritableByteChannel out = Channels.newChannel(output);
+        for (long position = offset; position < end; ) {
+          position += in.transferTo(position, end - position, out);
+        }
+      }
+    }
+  }
+
+  /**
+   * Commits the status and headers through the JAX-RS output first, so that the body can be written directly to the
+   * connector.
+   *
+   * @return the output of the Jetty connector or null if not running in Jetty, or if the response couldn't be committed
+   */
+  @Nullable
+  private HttpOutput jettyOutput(OutputStream output) throws IOException {
+    if (servletResponse == null) {
+      return null;
+    }
+    ServletOutputStream servletOutput = servletResponse.getOutputStream();
+    if (!(servletOutput instanceof HttpOutput)) {
+      return null;
+    }
+    output.flush();
+    return servletResponse.isCommitted() ? (HttpOutput) servletOutput : null;
+  }
+}
@@ -4,13 +4,24 @@ import org.gbif.d1.mn.auth.AuthorizationManager;
 import org.gbif.d1.mn.backend.MNBackend;
 import org.gbif.d1.mn.exception.DataONE;
 import org.gbif.d1.mn.provider.Authenticate;
+import org.gbif.d1.mn.provider.CacheValidators;
 
+import java.io.InputStream;
+import java.util.Date;
+import java.util.Optional;
 import javax.inject.Singleton;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
 
 import com.codahale.metrics.annotation.Timed;
+import org.dataone.ns.service.apis.v1.ObjectHandle;
 import org.dataone.ns.service.exceptions.InsufficientResources;
 import org.dataone.ns.service.exceptions.InvalidToken;
 import org.dataone.ns.service.exceptions.NotAuthorized;
@@ -50,6 +61,9 @@ public final class MetaResource {
 
   /**
    * Describes the object identified by id by returning the associated system metadata object.
+   * Conditional requests are answered with 304 Not Modified if the system metadata hasn't changed, using a weak entity
+   * tag since the XML and JSON representations share it.
+   * When XML is accepted and the back-end stores the document, the stored bytes are returned as they are.
    *
    * @throws NotAuthorized if the credentials presented do not have permission to perform the action
    * @throws NotFound if the DataONE object is not present on this node
@@ -60,8 +74,37 @@ public final class MetaResource {
   @Path("{pid}")
   @DataONE(DataONE.Method.GET_SYSTEM_METADATA)
   @Timed
-  public SystemMetadata getSystemMetadata(@Authenticate Session session, @PathParam("pid") Identifier pid) {
-    auth.checkIsAuthorized(session, pid.getValue(), Permission.READ);
-    return backend.getSystemMetadata(session, pid);
+  public Response getSystemMetadata(@Authenticate Session session, @PathParam("pid") Identifier pid,
+                                    @Context Request httpRequest, @Context HttpHeaders headers) {
+    ObjectHandle object = backend.resolve(pid);
+    auth.checkIsAuthorized(session, object, Permission.READ);
+    SystemMetadata sysmeta = object.getSystemMetadata();
+    Optional<EntityTag> etag = CacheValidators.weakEtag(sysmeta);
+    Optional<Date> lastModified = CacheValidators.lastModified(sysmeta);
+    Optional<Response> notModified = CacheValidators.evaluatePreconditions(httpRequest, etag, lastModified);
+    if (notModified.isPresent()) {
+      return Response.fromResponse(notModified.get()).header(HttpHeaders.VARY, HttpHeaders.ACCEPT).build();
+    }
+    Optional<MediaType> xml = xmlMediaType(headers);
+    Optional<InputStream> stored = xml.isPresent() ? backend.systemMetadataXml(object) : Optional.empty();
+    Response.ResponseBuilder response = stored.isPresent() ? Response.ok(stored.get(), xml.get())
+      : Response.ok(sysmeta);
+    return CacheValidators.withHeaders(response, etag, lastModified)
+      .header(HttpHeaders.VARY, HttpHeaders.ACCEPT).build();
+  }
+
+  /**
+   * @return the XML media type to respond with, empty if the client prefers another representation
+   */
+  private static Optional<MediaType> xmlMediaType(HttpHeaders headers) {
+    return headers.getAcceptableMediaTypes().stream().findFirst()
+      .filter(type -> type.isCompatible(MediaType.APPLICATION_XML_TYPE) || type.isCompatible(MediaType.TEXT_XML_TYPE))
+      .map(type -> {
+        if (type.isWildcardSubtype()) {
+          return type.isCompatible(MediaType.APPLICATION_XML_TYPE) ? MediaType.APPLICATION_XML_TYPE
+            : MediaType.TEXT_XML_TYPE;
+        }
+        return new MediaType(type.getType(), type.getSubtype());
+      });
   }
 }
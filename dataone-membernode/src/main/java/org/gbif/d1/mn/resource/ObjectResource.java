@@ -4,6 +4,7 @@ import org.gbif.d1.mn.auth.AuthorizationManager;
 import org.gbif.d1.mn.backend.MNBackend;
 import org.gbif.d1.mn.exception.DataONE;
 import org.gbif.d1.mn.provider.Authenticate;
+import org.gbif.d1.mn.provider.CacheValidators;
 
 import java.io.InputStream;
 import java.util.Optional;
@@ -11,6 +12,7 @@ import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
@@ -22,12 +24,15 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 
 import com.codahale.metrics.annotation.Timed;
 import com.google.common.base.Objects;
 import io.dropwizard.jersey.params.DateTimeParam;
+import org.dataone.ns.service.apis.v1.ObjectHandle;
 import org.dataone.ns.service.exceptions.IdentifierNotUnique;
 import org.dataone.ns.service.exceptions.InsufficientResources;
 import org.dataone.ns.service.exceptions.InvalidRequest;
@@ -38,7 +43,6 @@ import org.dataone.ns.service.exceptions.NotFound;
 import org.dataone.ns.service.exceptions.NotImplemented;
 import org.dataone.ns.service.exceptions.ServiceFailure;
 import org.dataone.ns.service.exceptions.UnsupportedType;
-import org.dataone.ns.service.types.v1.DescribeResponse;
 import org.dataone.ns.service.types.v1.Event;
 import org.dataone.ns.service.types.v1.Identifier;
 import org.dataone.ns.service.types.v1.ObjectList;
@@ -79,6 +83,9 @@ public final class ObjectResource {
   @Context
   private HttpServletRequest request;
 
+  @Context
+  private HttpServletResponse servletResponse;
+
   private final AuthorizationManager auth;
   private final MNBackend backend;
 
@@ -175,13 +182,18 @@ public final class ObjectResource {
   @DataONE(DataONE.Method.DESCRIBE)
   @Produces({MediaType.APPLICATION_OCTET_STREAM, MediaType.TEXT_XML})
   @Timed
-  public DescribeResponse describe(@Authenticate Session session, @PathParam("pid") Identifier pid) {
-    auth.checkIsAuthorized(session, pid.getValue(), Permission.READ);
-    return backend.describe(pid);
+  public Response describe(@Authenticate Session session, @PathParam("pid") Identifier pid,
+                           @Context Request httpRequest) {
+    ObjectHandle object = backend.resolve(pid);
+    auth.checkIsAuthorized(session, object, Permission.READ);
+    return CacheValidators.evaluatePreconditions(httpRequest, object.getSystemMetadata())
+      .orElseGet(() -> Response.ok(backend.describe(object)).build());
   }
 
   /**
    * Retrieve an object identified by id from the node.
+   * A single byte range can be requested with the Range header, which is then answered with 206 Partial Content.
+   * Conditional requests are answered from the system metadata, without reading the object.
    *
    * @throws InvalidToken if the credentials in the request are not correctly presented
    * @throws NotAuthorized if the credentials presented do not have permission to perform the action
@@ -192,12 +204,14 @@ public final class ObjectResource {
   @Path("{pid}")
   @DataONE(DataONE.Method.GET)
   @Timed
-  public Response get(@Authenticate Session session, @PathParam("pid") Identifier pid) {
-    auth.checkIsAuthorized(session, pid.getValue(), Permission.READ);
-    InputStream inputStream = backend.get(pid);
+  public Response get(@Authenticate Session session, @PathParam("pid") Identifier pid,
+                      @Context Request httpRequest, @Context HttpHeaders headers) {
+    ObjectHandle object = backend.resolve(pid);
+    auth.checkIsAuthorized(session, object, Permission.READ);
+    Response response = ObjectResponses.content(backend, object, httpRequest, headers,
+            MimeTypesUtil.convertFormatIdToMimetype(object.getSystemMetadata().getFormatId()), servletResponse);
     log(LOG, session, pid, Event.READ, "Resource read");
-    return Response.ok(inputStream,
-            MimeTypesUtil.convertFormatIdToMimetype(backend.systemMetadata(pid).getFormatId())).build();
+    return response;
   }
 
   /**
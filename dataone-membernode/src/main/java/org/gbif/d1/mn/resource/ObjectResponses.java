@@ -0,0 +1,80 @@
+package org.gbif.d1.mn.resource;
+
+import org.gbif.d1.mn.backend.MNBackend;
+import org.gbif.d1.mn.backend.ObjectContent;
+import org.gbif.d1.mn.provider.CacheValidators;
+
+import java.util.Optional;
+import javax.annotation.Nullable;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+
+import org.dataone.ns.service.apis.v1.ObjectHandle;
+import org.dataone.ns.service.types.v1.SystemMetadata;
+
+/**
+ * Builds the responses carrying the content of an object, honouring the conditional and Range headers of the request.
+ */
+final class ObjectResponses {
+
+  private static final String ACCEPT_RANGES = "Accept-Ranges";
+  private static final String CONTENT_RANGE = "Content-Range";
+  private static final String BYTES = "bytes";
+  private static final int RANGE_NOT_SATISFIABLE = 416;
+
+  // not for instantiation
+  private ObjectResponses() {
+  }
+
+  /**
+   * Responds with 304 Not Modified if the conditional headers match the system metadata, without opening the content.
+   * Otherwise responds with the whole object, or with 206 Partial Content if a satisfiable range was requested, or with
+   * 416 if the range starts after the end of the object.
+   * <p>
+   * The content is served from a file channel when the back-end offers one, see {@link MNBackend#content}.
+   */
+  static Response content(MNBackend backend, ObjectHandle object, Request request, HttpHeaders headers,
+                          String mediaType, @Nullable HttpServletResponse servletResponse) {
+    SystemMetadata sysmeta = object.getSystemMetadata();
+    Optional<Response> notModified = CacheValidators.evaluatePreconditions(request, sysmeta);
+    if (notModified.isPresent()) {
+      return notModified.get();
+    }
+    Optional<ByteRange> range = Optional.empty();
+    if (sysmeta.getSize() != null
+        && ByteRange.ifRangeMatches(headers.getHeaderString(HttpHeaders.IF_RANGE),
+                                    CacheValidators.etag(sysmeta).map(CacheValidators::quoted).orElse(null),
+                                    CacheValidators.lastModified(sysmeta).orElse(null))) {
+      range = ByteRange.parse(headers.getHeaderString(HttpHeaders.RANGE), sysmeta.getSize().longValue());
+    }
+    if (!range.isPresent()) {
+      return CacheValidators.withHeaders(Response.ok(entity(backend, object, servletResponse), mediaType), sysmeta)
+        .header(ACCEPT_RANGES, BYTES).build();
+    }
+    if (!range.get().isSatisfiable()) {
+      return Response.status(RANGE_NOT_SATISFIABLE).header(CONTENT_RANGE, range.get().contentRange()).build();
+    }
+    return CacheValidators.withHeaders(Response.status(Response.Status.PARTIAL_CONTENT), sysmeta)
+      .entity(entity(backend, object, range.get().getOffset(), range.get().getLength(), servletResponse))
+      .type(mediaType)
+      .header(ACCEPT_RANGES, BYTES)
+      .header(CONTENT_RANGE, range.get().contentRange())
+      .header(HttpHeaders.CONTENT_LENGTH, range.get().getLength())
+      .build();
+  }
+
+  private static Object entity(MNBackend backend, ObjectHandle object, @Nullable HttpServletResponse servletResponse) {
+    return entity(backend, object, 0, Long.MAX_VALUE, servletResponse);
+  }
+
+  private static Object entity(MNBackend backend, ObjectHandle object, long offset, long length,
+                               @Nullable HttpServletResponse servletResponse) {
+    ObjectContent content = backend.content(object, offset, length);
+    if (content.getChannel().isPresent()) {
+      return new FileChannelOutput(content.getChannel().get(), offset, length, servletResponse);
+    }
+    return content.getStream().get();
+  }
+}
@@ -6,18 +6,22 @@ import org.gbif.d1.mn.backend.MNBackend;
 import org.gbif.d1.mn.exception.DataONE;
 import org.gbif.d1.mn.provider.Authenticate;
 
-import java.io.InputStream;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
 
 import com.codahale.metrics.annotation.Timed;
+import org.dataone.ns.service.apis.v1.ObjectHandle;
 import org.dataone.ns.service.apis.v1.cn.CoordinatingNode;
 import org.dataone.ns.service.exceptions.InvalidToken;
 import org.dataone.ns.service.exceptions.NotAuthorized;
@@ -57,6 +61,9 @@ public final class ReplicaResource {
   @Context
   private HttpServletRequest request;
 
+  @Context
+  private HttpServletResponse servletResponse;
+
   private static final Logger LOG = LoggerFactory.getLogger(ReplicaResource.class);
 
   @Inject
@@ -66,14 +73,21 @@ public final class ReplicaResource {
     this.cn = cn;
   }
 
+  /**
+   * Retrieves a replica, a single byte range can be requested with the Range header so that replicas are transferred
+   * in chunks.
+   */
   @GET
   @Path("{pid}")
   @DataONE(DataONE.Method.GET_REPLICA)
   @Produces(MediaType.APPLICATION_OCTET_STREAM)
   @Timed
-  public InputStream getReplica(@Authenticate Session session, @PathParam("pid") Identifier pid) {
-    auth.checkIsAuthorized(session, pid.getValue(), Permission.READ);
-    InputStream replica = backend.get(pid);
+  public Response getReplica(@Authenticate Session session, @PathParam("pid") Identifier pid,
+                             @Context Request httpRequest, @Context HttpHeaders headers) {
+    ObjectHandle object = backend.resolve(pid);
+    auth.checkIsAuthorized(session, object, Permission.READ);
+    Response replica = ObjectResponses.content(backend, object, httpRequest, headers,
+                                               MediaType.APPLICATION_OCTET_STREAM, servletResponse);
     log(LOG, session, pid, Event.REPLICATE, "Replicating object");
     return replica;
   }
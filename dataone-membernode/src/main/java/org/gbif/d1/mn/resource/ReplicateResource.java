@@ -1,13 +1,12 @@
 package org.gbif.d1.mn.resource;
 
 import org.gbif.d1.mn.auth.AuthorizationManager;
-import org.gbif.d1.mn.backend.MNBackend;
-import org.gbif.d1.mn.client.MNReadClient;
 import org.gbif.d1.mn.exception.DataONE;
 import org.gbif.d1.mn.exception.DataONE.Method;
 import org.gbif.d1.mn.provider.Authenticate;
+import org.gbif.d1.mn.replication.ReplicationEngine;
+import org.gbif.d1.mn.replication.ReplicationTask;
 
-import java.util.UUID;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import javax.servlet.http.HttpServletRequest;
@@ -18,11 +17,7 @@ import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 
 import com.codahale.metrics.annotation.Timed;
-import com.google.common.eventbus.EventBus;
-import com.google.common.eventbus.Subscribe;
-import io.dropwizard.client.JerseyClientBuilder;
 import org.dataone.ns.service.apis.v1.cn.CoordinatingNode;
-import org.dataone.ns.service.apis.v1.mn.MNRead;
 import org.dataone.ns.service.exceptions.InsufficientResources;
 import org.dataone.ns.service.exceptions.InvalidRequest;
 import org.dataone.ns.service.exceptions.InvalidToken;
@@ -34,7 +29,6 @@ import org.dataone.ns.service.types.v1.Event;
 import org.dataone.ns.service.types.v1.Identifier;
 import org.dataone.ns.service.types.v1.Node;
 import org.dataone.ns.service.types.v1.Session;
-import org.dataone.ns.service.types.v1.Subject;
 import org.dataone.ns.service.types.v1.SystemMetadata;
 import org.glassfish.jersey.media.multipart.FormDataParam;
 import org.slf4j.Logger;
@@ -63,11 +57,9 @@ import static org.gbif.d1.mn.util.D1Preconditions.checkIsAuthorized;
 public final class ReplicateResource {
 
   private static final Logger LOG = LoggerFactory.getLogger(ReplicateResource.class);
-  private final EventBus queue;
-  private final JerseyClientBuilder clientBuilder;
+  private final ReplicationEngine replicationEngine;
   private final CoordinatingNode cnClient;
   private final AuthorizationManager authorizationManager;
-  private final MNBackend mnBackend;
 
   @Context
   private HttpServletRequest request;
@@ -83,16 +75,11 @@ public final class ReplicateResource {
   }
 
   @Inject
-  public ReplicateResource(EventBus queue, JerseyClientBuilder clientBuilder,
-                           CoordinatingNode cnClient,
-                           AuthorizationManager authorizationManager,
-                           MNBackend mnBackend) {
-    this.queue = queue;
-    this.clientBuilder = clientBuilder;
+  public ReplicateResource(ReplicationEngine replicationEngine, CoordinatingNode cnClient,
+                           AuthorizationManager authorizationManager) {
+    this.replicationEngine = replicationEngine;
     this.cnClient = cnClient;
     this.authorizationManager = authorizationManager;
-    this.mnBackend = mnBackend;
-    queue.register(this);
   }
 
   /**
@@ -110,6 +97,8 @@ public final class ReplicateResource {
    * Failure of the operation MUST be indicated by returning an appropriate exception.
    * <p>
    * Access control for this method MUST be configured to allow calling by Coordinating Nodes.
+   * <p>
+   * The object is copied in the background, this returns as soon as the request has been accepted.
    *
    * @throws NotAuthorized if the credentials presented do not have permission to perform the action
    * @throws InvalidToken if the credentials in the request are not correctly presented
@@ -131,87 +120,13 @@ public final class ReplicateResource {
     checkIsAuthorized(authorizationManager.isAuthorityNodeOrCN(session.getSubject().getValue(), sysmeta),
                       "Replication has to be triggered by a trusted subject");
     Node sourceMnNode = getSourceNode(sourceNode);
-    queue.post(new ReplicateEvent(sysmeta.getIdentifier(),
-                                  sourceMnNode,
-                                  sysmeta,
-                                  request.getRemoteAddr(),
-                                  request.getHeader("User-Agent"),
-                                  session.getSubject()));
+    replicationEngine.submit(new ReplicationTask(sysmeta.getIdentifier(),
+                                                 sourceMnNode,
+                                                 sysmeta,
+                                                 request.getRemoteAddr(),
+                                                 request.getHeader("User-Agent"),
+                                                 session.getSubject()));
     log(session, sysmeta.getIdentifier(), Event.REPLICATE, "Replicating resource");
     return true;
   }
-
-  @Subscribe
-  final void replicate(ReplicateEvent event) {
-    LOG.info("Replication event received: {}", event);
-    try {
-      MNRead mnRead = new MNReadClient(clientBuilder.build(UUID.randomUUID().toString()), event.getSourceNode().getBaseURL());
-      mnBackend.create(Session.builder().withSubject(event.getSubject()).build(),
-                       event.getIdentifier(),
-                       mnRead.get(event.getIdentifier()),
-                       event.getSystemMetadata());
-    } catch (Exception ex) {
-      LOG.error("Error processing replication event", ex);
-    }
-
-  }
-
-  /**
-   * Object used to encapsulate the message sent from a replication request to the actual processing of it.
-   */
-  private static class ReplicateEvent {
-
-    private final Identifier identifier;
-    private final Node sourceNode;
-    private final SystemMetadata systemMetadata;
-    private final String ip;
-    private final String userAgent;
-    private final Subject subject;
-
-    ReplicateEvent(Identifier identifier, Node sourceNode, SystemMetadata systemMetadata,
-                   String ip, String userAgent, Subject subject) {
-      this.identifier = identifier;
-      this.sourceNode = sourceNode;
-      this.systemMetadata = systemMetadata;
-      this.ip = ip;
-      this.userAgent = userAgent;
-      this.subject = subject;
-    }
-
-    public Identifier getIdentifier() {
-      return identifier;
-    }
-
-    public String getIp() {
-      return ip;
-    }
-
-    public Node getSourceNode() {
-      return sourceNode;
-    }
-
-    public SystemMetadata getSystemMetadata() {
-      return systemMetadata;
-    }
-
-    public Subject getSubject() {
-      return subject;
-    }
-
-    public String getUserAgent() {
-      return userAgent;
-    }
-
-    @Override
-    public String toString() {
-      return "ReplicateEvent{" +
-             "identifier=" + identifier +
-             ", sourceNode=" + sourceNode +
-             ", systemMetadata=" + systemMetadata +
-             ", ip='" + ip + '\'' +
-             ", userAgent='" + userAgent + '\'' +
-             ", subject=" + subject +
-             '}';
-    }
-  }
 }
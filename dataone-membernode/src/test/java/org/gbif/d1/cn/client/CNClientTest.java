@@ -0,0 +1,105 @@
+package org.gbif.d1.cn.client;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.client.WebTarget;
+
+import com.codahale.metrics.MetricRegistry;
+import io.dropwizard.util.Duration;
+import org.dataone.ns.service.exceptions.ServiceFailure;
+import org.dataone.ns.service.types.v1.Node;
+import org.dataone.ns.service.types.v1.NodeList;
+import org.dataone.ns.service.types.v1.NodeReference;
+import org.dataone.ns.service.types.v1.NodeType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Matchers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CNClientTest {
+
+  private static final NodeList NODES = NodeList.builder()
+    .withNode(Node.builder()
+                .withIdentifier(NodeReference.builder().withValue("urn:node:CN1").build())
+                .withType(NodeType.CN)
+                .build())
+    .build();
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * The list of nodes is loaded once and served from memory, and saved for the next start.
+   */
+  @Test
+  public void testListNodes() throws Exception {
+    Path file = folder.getRoot().toPath().resolve("nodelist.xml");
+    Invocation.Builder request = request();
+    when(request.get(NodeList.class)).thenReturn(NODES);
+    CNClient cn = new CNClient(client(request), "http://localhost/", Duration.hours(1), file, new MetricRegistry());
+
+    assertEquals(-1L, cn.getNodeListStaleness());
+    assertSame(NODES, cn.listNodes());
+    assertSame(NODES, cn.listNodes());
+    verify(request, times(1)).get(NodeList.class);
+    assertTrue(Files.exists(file));
+    assertTrue(cn.getNodeListStaleness() >= 0);
+  }
+
+  /**
+   * A list of nodes saved before is served while the CN is unavailable.
+   */
+  @Test
+  public void testColdStartDuringOutage() throws Exception {
+    Path file = folder.getRoot().toPath().resolve("nodelist.xml");
+    Invocation.Builder request = request();
+    when(request.get(NodeList.class)).thenReturn(NODES);
+    new CNClient(client(request), "http://localhost/", Duration.hours(1), file, new MetricRegistry()).listNodes();
+
+    Invocation.Builder failing = request();
+    when(failing.get(NodeList.class)).thenThrow(new ProcessingException("CN unavailable"));
+    CNClient cn = new CNClient(client(failing), "http://localhost/", Duration.hours(1), file, new MetricRegistry());
+    cn.start();
+    try {
+      NodeList nodes = cn.listNodes();
+      assertEquals(1, nodes.getNode().size());
+      assertEquals("urn:node:CN1", nodes.getNode().get(0).getIdentifier().getValue());
+    } finally {
+      cn.stop();
+    }
+  }
+
+  @Test(expected = ServiceFailure.class)
+  public void testOutageWithoutSavedList() {
+    Invocation.Builder failing = request();
+    when(failing.get(NodeList.class)).thenThrow(new ProcessingException("CN unavailable"));
+    new CNClient(client(failing), "http://localhost/", Duration.hours(1), null, new MetricRegistry()).listNodes();
+  }
+
+  private static Invocation.Builder request() {
+    Invocation.Builder request = mock(Invocation.Builder.class);
+    when(request.accept(Matchers.<String>anyVararg())).thenReturn(request);
+    return request;
+  }
+
+  private static Client client(Invocation.Builder request) {
+    WebTarget target = mock(WebTarget.class);
+    when(target.path(anyString())).thenReturn(target);
+    when(target.request()).thenReturn(request);
+    Client client = mock(Client.class);
+    when(client.target(anyString())).thenReturn(target);
+    return client;
+  }
+}
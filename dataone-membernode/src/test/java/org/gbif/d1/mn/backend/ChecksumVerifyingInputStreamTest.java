@@ -0,0 +1,86 @@
+package org.gbif.d1.mn.backend;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+import com.google.common.io.ByteStreams;
+import org.dataone.ns.service.exceptions.InvalidSystemMetadata;
+import org.dataone.ns.service.types.v1.Checksum;
+import org.dataone.ns.service.types.v1.SystemMetadata;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class ChecksumVerifyingInputStreamTest {
+
+  private static final byte[] CONTENT = "Mock".getBytes(StandardCharsets.UTF_8);
+  // md5 of "Mock"
+  private static final String CONTENT_MD5 = "2bb15221819b63cb5ac5653baa0ad3d3";
+
+  private static SystemMetadata sysmeta(String md5, long size) {
+    return SystemMetadata.builder()
+      .withChecksum(Checksum.builder().withAlgorithm("MD5").withValue(md5).build())
+      .withSize(BigInteger.valueOf(size))
+      .build();
+  }
+
+  /**
+   * Ensures a matching object is read entirely and its checksums are available.
+   */
+  @Test
+  public void testMatch() throws IOException {
+    ChecksumVerifyingInputStream in =
+      new ChecksumVerifyingInputStream(new ByteArrayInputStream(CONTENT),
+                                       sysmeta(CONTENT_MD5.toUpperCase(), CONTENT.length), "SHA-1");
+    assertEquals(CONTENT.length, ByteStreams.toByteArray(in).length);
+    in.verify();
+    assertEquals(CONTENT_MD5, in.getChecksum("MD5").get().getValue());
+    assertEquals("SHA-1", in.getChecksum("SHA-1").get().getAlgorithm());
+  }
+
+  /**
+   * Ensures a checksum mismatch fails the read and the verification.
+   */
+  @Test
+  public void testChecksumMismatch() throws IOException {
+    assertRejected(new ChecksumVerifyingInputStream(new ByteArrayInputStream(CONTENT),
+                                                    sysmeta(CONTENT_MD5.replace('2', '0'), CONTENT.length)));
+  }
+
+  /**
+   * Ensures a truncated object fails the read and the verification.
+   */
+  @Test
+  public void testSizeMismatch() throws IOException {
+    assertRejected(new ChecksumVerifyingInputStream(new ByteArrayInputStream(CONTENT),
+                                                    sysmeta(CONTENT_MD5, CONTENT.length + 1)));
+  }
+
+  /**
+   * Ensures an object not read completely is not accepted.
+   */
+  @Test(expected = InvalidSystemMetadata.class)
+  public void testNotRead() throws IOException {
+    ChecksumVerifyingInputStream in =
+      new ChecksumVerifyingInputStream(new ByteArrayInputStream(CONTENT), sysmeta(CONTENT_MD5, CONTENT.length));
+    in.read();
+    in.verify();
+  }
+
+  private static void assertRejected(ChecksumVerifyingInputStream in) {
+    try {
+      ByteStreams.toByteArray(in);
+      fail("Mismatch not detected while reading");
+    } catch (IOException expected) {
+      try {
+        in.verify();
+        fail("Mismatch not detected by verify");
+      } catch (InvalidSystemMetadata ignored) {
+        // expected
+      }
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package org.gbif.d1.mn.backend;
+
+import java.math.BigInteger;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.dataone.ns.service.exceptions.VersionMismatch;
+import org.dataone.ns.service.types.v1.Identifier;
+import org.dataone.ns.service.types.v1.SystemMetadata;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class PidLocksTest {
+
+  @Test
+  public void testNextSerialVersion() {
+    SystemMetadata unversioned = SystemMetadata.builder().build();
+    SystemMetadata version3 = SystemMetadata.builder().withSerialVersion(BigInteger.valueOf(3)).build();
+
+    assertEquals(BigInteger.valueOf(2), PidLocks.nextSerialVersion(unversioned, null));
+    assertEquals(BigInteger.valueOf(4), PidLocks.nextSerialVersion(version3, null));
+    assertEquals(BigInteger.valueOf(4), PidLocks.nextSerialVersion(version3, BigInteger.valueOf(3)));
+    assertEquals(BigInteger.valueOf(2), PidLocks.nextSerialVersion(unversioned, BigInteger.ONE));
+  }
+
+  @Test(expected = VersionMismatch.class)
+  public void testStaleSerialVersion() {
+    PidLocks.nextSerialVersion(SystemMetadata.builder().withSerialVersion(BigInteger.valueOf(3)).build(),
+                               BigInteger.valueOf(2));
+  }
+
+  /**
+   * Skipping serial versions is a mismatch too, the change wasn't made against the stored copy.
+   */
+  @Test(expected = VersionMismatch.class)
+  public void testNewerSerialVersion() {
+    PidLocks.nextSerialVersion(SystemMetadata.builder().withSerialVersion(BigInteger.valueOf(3)).build(),
+                               BigInteger.valueOf(7));
+  }
+
+  /**
+   * A mutation of an object waits for the one in progress, including when it involves several objects.
+   */
+  @Test
+  public void testWithLocks() throws Exception {
+    PidLocks locks = new PidLocks();
+    Identifier pid = Identifier.builder().withValue("pid").build();
+    Identifier newPid = Identifier.builder().withValue("newPid").build();
+    CountDownLatch locked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<String> first = executor.submit(() -> locks.withLocks(() -> {
+        locked.countDown();
+        Uninterruptibles.awaitUninterruptibly(release);
+        return "first";
+      }, pid));
+      locked.await();
+      Future<String> second = executor.submit(() -> locks.withLocks(() -> "second", newPid, pid));
+      try {
+        second.get(200, TimeUnit.MILLISECONDS);
+        fail("The lock of the object is held");
+      } catch (TimeoutException expected) {
+        release.countDown();
+      }
+      assertEquals("first", first.get(5, TimeUnit.SECONDS));
+      assertEquals("second", second.get(5, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,310 @@
+package org.gbif.d1.mn.backend.impl;
+
+import org.gbif.api.model.common.paging.PagingResponse;
+import org.gbif.datarepo.api.DataRepository;
+import org.gbif.datarepo.api.model.DataPackage;
+import org.gbif.datarepo.impl.conf.DataRepoConfiguration;
+import org.gbif.registry.doi.registration.DoiRegistrationService;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import javax.xml.datatype.DatatypeFactory;
+
+import com.codahale.metrics.MetricRegistry;
+import io.dropwizard.util.Duration;
+import org.dataone.ns.service.exceptions.IdentifierNotUnique;
+import org.dataone.ns.service.exceptions.InvalidSystemMetadata;
+import org.dataone.ns.service.exceptions.NotFound;
+import org.dataone.ns.service.types.v1.Checksum;
+import org.dataone.ns.service.types.v1.Identifier;
+import org.dataone.ns.service.types.v1.JaxbPool;
+import org.dataone.ns.service.types.v1.ObjectInfo;
+import org.dataone.ns.service.types.v1.ObjectList;
+import org.dataone.ns.service.types.v1.Session;
+import org.dataone.ns.service.types.v1.Subject;
+import org.dataone.ns.service.types.v1.SystemMetadata;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the DataRepoBackend against a mocked data repository.
+ */
+public class DataRepoBackendTest {
+
+  private static final String REPOSITORY = "dataone";
+  private static final String SYS_METADATA_FILE = "dataone_system_metadata.xml";
+  private static final String PID = "pid-1";
+
+  private DataRepository dataRepository;
+  private DataRepoBackend backend;
+  private DataRepoBackendConfiguration configuration;
+  private MetricRegistry metrics;
+  private DataPackage dataPackage;
+  private SystemMetadata sysmeta;
+
+  @Before
+  public void setup() throws Exception {
+    dataRepository = mock(DataRepository.class);
+    DataRepoConfiguration dataRepoConfiguration = mock(DataRepoConfiguration.class);
+    when(dataRepoConfiguration.getDataRepoName()).thenReturn(REPOSITORY);
+    configuration = new DataRepoBackendConfiguration();
+    configuration.setDataRepoConfiguration(dataRepoConfiguration);
+    configuration.setIdentifierFilterReloadInterval(Duration.hours(1));
+    metrics = new MetricRegistry();
+    backend = new DataRepoBackend(dataRepository, mock(DoiRegistrationService.class), configuration, metrics);
+
+    dataPackage = new DataPackage();
+    dataPackage.setKey(UUID.randomUUID());
+    dataPackage.setPublishedIn(REPOSITORY);
+    dataPackage.setCreated(new Date());
+    dataPackage.setModified(new Date());
+    // the content file checksum is an MD5, the declared checksum is not
+    dataPackage.setChecksum("d41d8cd98f00b204e9800998ecf8427e");
+    sysmeta = SystemMetadata.builder()
+      .withIdentifier(Identifier.builder().withValue(PID).build())
+      .withChecksum(Checksum.builder().withAlgorithm("SHA-1").withValue("da39a3ee5e6b4b0d3255bfef95601890afd80709")
+                      .build())
+      .withSize(BigInteger.TEN)
+      .withSerialVersion(BigInteger.ONE)
+      .build();
+    ByteArrayOutputStream xml = new ByteArrayOutputStream();
+    JaxbPool.newInstance(SystemMetadata.class).marshal(sysmeta, xml);
+    when(dataRepository.getFileInputStream(dataPackage.getKey(), SYS_METADATA_FILE))
+      .thenAnswer(invocation -> Optional.of(new ByteArrayInputStream(xml.toByteArray())));
+    when(dataRepository.list(any(), any(), any(), any(), anyBoolean(), any(), any(), any()))
+      .thenReturn(new PagingResponse<>(0L, 20, 1L, Collections.singletonList(dataPackage)));
+  }
+
+  @After
+  public void tearDown() {
+    backend.stop();
+  }
+
+  /**
+   * Listings report the checksum and size of the system metadata, however often they are requested.
+   */
+  @Test
+  public void testListObjectsChecksum() {
+    for (int i = 0; i < 3; i++) {
+      ObjectInfo info = listObject();
+      assertEquals(PID, info.getIdentifier().getValue());
+      assertEquals(sysmeta.getChecksum(), info.getChecksum());
+      assertEquals(sysmeta.getSize(), info.getSize());
+    }
+    // the system metadata is read once, the later listings use its summary
+    verify(dataRepository, times(1)).getFileInputStream(dataPackage.getKey(), SYS_METADATA_FILE);
+  }
+
+  /**
+   * Identifiers of the packages listed again come from the identifier index, without any query per package.
+   */
+  @Test
+  public void testListObjectsIdentifierFromIndex() throws Exception {
+    indexIdentifier();
+    backend.start();
+    backend.awaitInitialLoad();
+
+    listObject();
+    assertEquals(PID, listObject().getIdentifier().getValue());
+    // only the index and filter loads queried the identifiers
+    verify(dataRepository, times(2)).listIdentifiers(any(), any(), any(), any(), any(), any(), any());
+    verify(dataRepository, never())
+      .listIdentifiers(any(), any(), any(), eq(dataPackage.getKey()), any(), any(), any());
+    verify(dataRepository, times(1)).getFileInputStream(dataPackage.getKey(), SYS_METADATA_FILE);
+  }
+
+  /**
+   * Identifiers missing from the index are looked up in the data repository, so deleted ones can't be reused.
+   */
+  @Test
+  public void testDeletedIdentifier() throws Exception {
+    indexIdentifier();
+    when(dataRepository.get(dataPackage.getKey())).thenReturn(Optional.of(dataPackage));
+    when(dataRepository.getByAlternativeIdentifier(PID)).thenReturn(Optional.of(dataPackage));
+    backend.start();
+    backend.awaitInitialLoad();
+    Identifier pid = Identifier.builder().withValue(PID).build();
+    Session session = Session.builder().withSubject(Subject.builder().withValue("CN=test").build()).build();
+
+    backend.delete(session, pid);
+    verify(dataRepository).delete(dataPackage.getKey());
+    verify(dataRepository, never()).getByAlternativeIdentifier(PID);
+
+    // no longer indexed, but still found in the data repository
+    assertEquals(PID, backend.resolve(pid).getIdentifier().getValue());
+    verify(dataRepository).getByAlternativeIdentifier(PID);
+    try {
+      backend.create(session, pid, new ByteArrayInputStream(new byte[0]), sysmeta);
+      fail("Deleted identifiers can't be reused");
+    } catch (IdentifierNotUnique expected) {
+      // expected
+    }
+  }
+
+  /**
+   * Starting doesn't wait for the identifiers to be loaded, they are looked up in the data repository meanwhile.
+   */
+  @Test
+  public void testStartWithoutWaitingForLoad() throws Exception {
+    CountDownLatch loading = new CountDownLatch(1);
+    when(dataRepository.listIdentifiers(any(), any(), any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+      loading.await();
+      return new PagingResponse<>(0L, 20, 0L, Collections.emptyList());
+    });
+    when(dataRepository.getByAlternativeIdentifier(PID)).thenReturn(Optional.of(dataPackage));
+    backend.start();
+    try {
+      assertEquals(PID, backend.resolve(Identifier.builder().withValue(PID).build()).getIdentifier().getValue());
+    } finally {
+      loading.countDown();
+    }
+    backend.awaitInitialLoad();
+  }
+
+  /**
+   * Identifiers created by other clients of the data repository after the filter was loaded are found, and can't be
+   * created again.
+   */
+  @Test
+  public void testIdentifierUnknownToFilter() throws Exception {
+    loadWithoutIdentifiers();
+    when(dataRepository.getByAlternativeIdentifier(PID)).thenReturn(Optional.of(dataPackage));
+    Identifier pid = Identifier.builder().withValue(PID).build();
+    Session session = Session.builder().withSubject(Subject.builder().withValue("CN=test").build()).build();
+
+    try {
+      backend.create(session, pid, new ByteArrayInputStream(new byte[0]), sysmeta);
+      fail("Identifiers held by the data repository can't be reused");
+    } catch (IdentifierNotUnique expected) {
+      // expected
+    }
+    assertEquals(PID, backend.resolve(pid).getIdentifier().getValue());
+  }
+
+  /**
+   * An authoritative filter answers that an identifier is unknown without querying the data repository, except when
+   * creating it.
+   */
+  @Test
+  public void testAuthoritativeFilter() throws Exception {
+    configuration.setIdentifierFilterAuthoritative(true);
+    loadWithoutIdentifiers();
+    when(dataRepository.getByAlternativeIdentifier(PID)).thenReturn(Optional.of(dataPackage));
+    Identifier pid = Identifier.builder().withValue(PID).build();
+    Session session = Session.builder().withSubject(Subject.builder().withValue("CN=test").build()).build();
+
+    try {
+      backend.resolve(pid);
+      fail("Identifiers unknown to an authoritative filter are not found");
+    } catch (NotFound expected) {
+      // expected
+    }
+    verify(dataRepository, never()).getByAlternativeIdentifier(PID);
+    try {
+      backend.create(session, pid, new ByteArrayInputStream(new byte[0]), sysmeta);
+      fail("Identifiers held by the data repository can't be reused");
+    } catch (IdentifierNotUnique expected) {
+      // expected
+    }
+  }
+
+  /**
+   * Objects not matching their system metadata are rejected before a data package is created.
+   */
+  @Test
+  public void testCorruptObjectNotStored() throws Exception {
+    when(dataRepository.getByAlternativeIdentifier(PID)).thenReturn(Optional.empty());
+    Session session = Session.builder().withSubject(Subject.builder().withValue("CN=test").build()).build();
+    SystemMetadata declared = sysmeta.newCopyBuilder()
+      .withDateSysMetadataModified(DatatypeFactory.newInstance().newXMLGregorianCalendar(new GregorianCalendar()))
+      .build();
+    try {
+      backend.create(session, Identifier.builder().withValue(PID).build(),
+                     new ByteArrayInputStream(new byte[] {1, 2, 3}), declared);
+      fail("The object is shorter than declared");
+    } catch (InvalidSystemMetadata expected) {
+      // expected
+    }
+    verify(dataRepository, never()).create(any(), any(), anyBoolean());
+  }
+
+  /**
+   * The stored system metadata document is served as it is, unless it predates the serialVersion being stored.
+   */
+  @Test
+  public void testSystemMetadataXml() throws Exception {
+    when(dataRepository.getByAlternativeIdentifier(PID)).thenReturn(Optional.of(dataPackage));
+    Identifier pid = Identifier.builder().withValue(PID).build();
+    assertTrue(backend.systemMetadataXml(backend.resolve(pid)).isPresent());
+
+    ByteArrayOutputStream legacy = new ByteArrayOutputStream();
+    JaxbPool.newInstance(SystemMetadata.class).marshal(sysmeta.newCopyBuilder().withSerialVersion(null).build(),
+                                                       legacy);
+    when(dataRepository.getFileInputStream(dataPackage.getKey(), SYS_METADATA_FILE))
+      .thenAnswer(invocation -> Optional.of(new ByteArrayInputStream(legacy.toByteArray())));
+    DataRepoBackend legacyBackend = new DataRepoBackend(dataRepository, mock(DoiRegistrationService.class),
+                                                        configuration, new MetricRegistry());
+    try {
+      assertFalse(legacyBackend.systemMetadataXml(legacyBackend.resolve(pid)).isPresent());
+      assertEquals(BigInteger.ONE, legacyBackend.systemMetadata(pid).getSerialVersion());
+    } finally {
+      legacyBackend.stop();
+    }
+  }
+
+  /**
+   * A stopped backend leaves the metric registry to the backend replacing it.
+   */
+  @Test
+  public void testMetricsRemovedOnStop() {
+    backend.stop();
+    new DataRepoBackend(dataRepository, mock(DoiRegistrationService.class), configuration, metrics).stop();
+  }
+
+  private void indexIdentifier() {
+    org.gbif.datarepo.api.model.Identifier alternative = mock(org.gbif.datarepo.api.model.Identifier.class);
+    when(alternative.getIdentifier()).thenReturn(PID);
+    when(alternative.getDataPackageKey()).thenReturn(dataPackage.getKey());
+    when(alternative.getRelationType())
+      .thenReturn(org.gbif.datarepo.api.model.Identifier.RelationType.IsAlternativeOf);
+    when(dataRepository.listIdentifiers(any(), any(), any(), any(), any(), any(), any()))
+      .thenReturn(new PagingResponse<>(0L, 20, 1L, Collections.singletonList(alternative)));
+  }
+
+  /**
+   * Starts the backend with a data repository holding no identifiers yet.
+   */
+  private void loadWithoutIdentifiers() throws Exception {
+    when(dataRepository.listIdentifiers(any(), any(), any(), any(), any(), any(), any()))
+      .thenReturn(new PagingResponse<>(0L, 20, 0L, Collections.emptyList()));
+    backend.start();
+    backend.awaitInitialLoad();
+  }
+
+  private ObjectInfo listObject() {
+    ObjectList list = backend.listObjects(null, null, null, null, null, 0, 20);
+    assertEquals(1, list.getObjectInfo().size());
+    return list.getObjectInfo().get(0);
+  }
+}
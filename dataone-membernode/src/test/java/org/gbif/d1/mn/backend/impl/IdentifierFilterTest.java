@@ -0,0 +1,50 @@
+package org.gbif.d1.mn.backend.impl;
+
+import org.gbif.api.model.common.paging.PagingResponse;
+import org.gbif.datarepo.api.DataRepository;
+import org.gbif.datarepo.api.model.DataPackage;
+import org.gbif.datarepo.api.model.Identifier;
+
+import java.util.Collections;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class IdentifierFilterTest {
+
+  /**
+   * The DataONE identifiers are listed separately from the data packages, which don't carry them.
+   */
+  @Test
+  public void testLoad() {
+    DataRepository dataRepository = mock(DataRepository.class);
+    DataPackage dataPackage = new DataPackage();
+    dataPackage.setKey(UUID.randomUUID());
+    when(dataRepository.list(any(), any(), any(), any(), anyBoolean(), any(), any(), any()))
+      .thenReturn(new PagingResponse<>(0L, 20, 1L, Collections.singletonList(dataPackage)));
+    Identifier identifier = mock(Identifier.class);
+    when(identifier.getIdentifier()).thenReturn("doi:10.5072/pid-1");
+    when(identifier.getRelationType()).thenReturn(Identifier.RelationType.IsAlternativeOf);
+    when(dataRepository.listIdentifiers(any(), any(), any(), any(), any(), any(), any()))
+      .thenReturn(new PagingResponse<>(0L, 20, 1L, Collections.singletonList(identifier)));
+
+    IdentifierFilter filter = new IdentifierFilter(dataRepository, 20, 1000, 0.001);
+    // anything might be contained until loaded
+    assertTrue(filter.mightContain("doi:10.5072/unknown"));
+    filter.load();
+    assertTrue(filter.mightContain("doi:10.5072/pid-1"));
+    assertTrue(filter.mightContain(dataPackage.getKey().toString()));
+    assertFalse(filter.mightContain("doi:10.5072/unknown"));
+    // deleted data packages are not filtered out
+    verify(dataRepository).list(any(), any(), any(), any(), (Boolean) isNull(), any(), any(), any());
+  }
+}
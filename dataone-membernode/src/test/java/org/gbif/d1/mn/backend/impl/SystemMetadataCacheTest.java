@@ -0,0 +1,127 @@
+package org.gbif.d1.mn.backend.impl;
+
+import java.util.UUID;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import io.dropwizard.util.Duration;
+import org.dataone.ns.service.types.v1.Identifier;
+import org.dataone.ns.service.types.v1.SystemMetadata;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SystemMetadataCacheTest {
+
+  private static final int WEIGHT = 1000;
+  private static final long MAXIMUM_WEIGHT = 10 * WEIGHT;
+  private static final String NAME = "test";
+
+  private MetricRegistry metrics;
+  private SystemMetadataCache cache;
+
+  @Before
+  public void setup() {
+    metrics = new MetricRegistry();
+    cache = new SystemMetadataCache(MAXIMUM_WEIGHT, Duration.hours(1), metrics, NAME);
+  }
+
+  @Test
+  public void testGet() {
+    UUID key = UUID.randomUUID();
+    SystemMetadata sysmeta = sysmeta("pid-1");
+    assertSame(sysmeta, cache.get(key, () -> new SystemMetadataCache.Entry(sysmeta, WEIGHT)));
+    // served from the cache, the loader is not called again
+    assertSame(sysmeta, cache.get(key, () -> {
+      throw new AssertionError("Loaded twice");
+    }));
+    assertEquals(1L, gauge("hits"));
+    assertEquals(1L, gauge("misses"));
+    assertEquals(1L, gauge("size"));
+  }
+
+  /**
+   * Exceptions of the loader are propagated as they are, and nothing is cached.
+   */
+  @Test(expected = IllegalStateException.class)
+  public void testLoaderFailure() {
+    cache.get(UUID.randomUUID(), () -> {
+      throw new IllegalStateException("Unreadable");
+    });
+  }
+
+  /**
+   * The entries are bounded by their weight, not by their number.
+   */
+  @Test
+  public void testWeightEviction() {
+    for (int i = 0; i < 100; i++) {
+      SystemMetadata sysmeta = sysmeta("pid-" + i);
+      cache.get(UUID.randomUUID(), () -> new SystemMetadataCache.Entry(sysmeta, WEIGHT));
+    }
+    assertTrue("Cached entries must stay within the maximum weight", gauge("size") * WEIGHT <= MAXIMUM_WEIGHT);
+    assertTrue(gauge("evictions") >= 100 - MAXIMUM_WEIGHT / WEIGHT);
+  }
+
+  @Test
+  public void testInvalidate() {
+    UUID key = UUID.randomUUID();
+    Identifier pid = Identifier.builder().withValue("pid-1").build();
+    SystemMetadata sysmeta = sysmeta("pid-1");
+    cache.get(key, () -> new SystemMetadataCache.Entry(sysmeta, WEIGHT));
+    cache.index(pid, key);
+    assertSame(sysmeta, cache.getIfPresent(pid).get());
+    assertSame(sysmeta, cache.getIfPresent(key).get());
+
+    cache.invalidate(pid, key);
+    assertFalse(cache.getIfPresent(pid).isPresent());
+    assertFalse(cache.getIfPresent(key).isPresent());
+  }
+
+  /**
+   * An identifier indexed to a data package whose entry is gone is not served.
+   */
+  @Test
+  public void testInvalidateByKey() {
+    UUID key = UUID.randomUUID();
+    UUID other = UUID.randomUUID();
+    Identifier pid = Identifier.builder().withValue("pid-1").build();
+    SystemMetadata sysmeta = sysmeta("pid-1");
+    cache.get(key, () -> new SystemMetadataCache.Entry(sysmeta, WEIGHT));
+    cache.index(pid, key);
+
+    cache.invalidate(Identifier.builder().withValue("pid-2").build(), key);
+    assertFalse(cache.getIfPresent(key).isPresent());
+    assertFalse(cache.getIfPresent(pid).isPresent());
+    assertFalse(cache.getIfPresent(other).isPresent());
+  }
+
+  /**
+   * Caches of different names share the registry, and a name can be reused once the metrics are removed.
+   */
+  @Test
+  public void testSharedRegistry() {
+    SystemMetadataCache other = new SystemMetadataCache(MAXIMUM_WEIGHT, Duration.hours(1), metrics, "other");
+    other.get(UUID.randomUUID(), () -> new SystemMetadataCache.Entry(sysmeta("pid-1"), WEIGHT));
+    assertEquals(0L, gauge("size"));
+
+    cache.removeMetrics();
+    assertFalse(metrics.getGauges().containsKey(MetricRegistry.name(SystemMetadataCache.class, NAME, "size")));
+    assertTrue(metrics.getGauges().containsKey(MetricRegistry.name(SystemMetadataCache.class, "other", "size")));
+    new SystemMetadataCache(MAXIMUM_WEIGHT, Duration.hours(1), metrics, NAME);
+  }
+
+  @SuppressWarnings("unchecked")
+  private long gauge(String name) {
+    return ((Gauge<Long>) metrics.getGauges().get(MetricRegistry.name(SystemMetadataCache.class, NAME, name)))
+      .getValue();
+  }
+
+  private static SystemMetadata sysmeta(String pid) {
+    return SystemMetadata.builder().withIdentifier(Identifier.builder().withValue(pid).build()).build();
+  }
+}
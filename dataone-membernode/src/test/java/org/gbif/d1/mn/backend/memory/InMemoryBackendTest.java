@@ -1,27 +1,46 @@
 package org.gbif.d1.mn.backend.memory;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.xml.datatype.DatatypeConfigurationException;
 import javax.xml.datatype.DatatypeFactory;
 
 import com.google.common.base.Objects;
 import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
+import org.dataone.ns.service.exceptions.NotFound;
+import org.dataone.ns.service.exceptions.VersionMismatch;
 import org.dataone.ns.service.types.v1.Identifier;
 import org.dataone.ns.service.types.v1.NodeReference;
 import org.dataone.ns.service.types.v1.SystemMetadata;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class InMemoryBackendTest {
 
   private static final DatatypeFactory DATATYPE_FACTORY = newDatatypeFactory();
 
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
   private static DatatypeFactory newDatatypeFactory() {
     try {
       return DatatypeFactory.newInstance();
@@ -74,6 +93,133 @@ public class InMemoryBackendTest {
     assertEquals(0, backend.filter(self, time2, time3, "XML", true, 10, 5).size());
   }
 
+  @Test
+  public void testGetRange() throws IOException {
+    LinkedHashMap<Identifier, PersistedObject> data = Maps.newLinkedHashMap();
+    appendData(data, "range", "urn:node:1", "CSV", 1);
+    InMemoryBackend backend = new InMemoryBackend(data);
+    Identifier pid = Identifier.builder().withValue("range0").build();
+
+    assertEquals("oc", new String(ByteStreams.toByteArray(backend.get(pid, 1, 2)), StandardCharsets.UTF_8));
+    assertEquals("ck", new String(ByteStreams.toByteArray(backend.get(pid, 2, 10)), StandardCharsets.UTF_8));
+    assertEquals(0, ByteStreams.toByteArray(backend.get(pid, 10, 2)).length);
+  }
+
+  @Test
+  public void testUpdateMetadata() {
+    LinkedHashMap<Identifier, PersistedObject> data = Maps.newLinkedHashMap();
+    appendData(data, "update", "urn:node:1", "CSV", 1);
+    InMemoryBackend backend = new InMemoryBackend(data);
+    Identifier pid = Identifier.builder().withValue("update0").build();
+    SystemMetadata sysmeta = backend.systemMetadata(pid);
+
+    // without a serial version the stored one is incremented
+    backend.updateMetadata(null, pid, sysmeta.newCopyBuilder().withFormatId("XML").withSerialVersion(null).build());
+    assertEquals(BigInteger.valueOf(2), backend.systemMetadata(pid).getSerialVersion());
+    backend.updateMetadata(null, pid, sysmeta.newCopyBuilder().withSerialVersion(BigInteger.valueOf(2)).build());
+    assertEquals(BigInteger.valueOf(3), backend.systemMetadata(pid).getSerialVersion());
+
+    // a writer working on a stale copy is rejected
+    try {
+      backend.updateMetadata(null, pid, sysmeta.newCopyBuilder().withSerialVersion(BigInteger.valueOf(2)).build());
+      fail("Serial version must be the stored one");
+    } catch (VersionMismatch expected) {
+      assertEquals(BigInteger.valueOf(3), backend.systemMetadata(pid).getSerialVersion());
+    }
+
+    // the copy of the coordinating node is stored as it is
+    backend.synchronizeMetadata(null, pid, sysmeta.newCopyBuilder().withSerialVersion(BigInteger.valueOf(7)).build());
+    assertEquals(BigInteger.valueOf(7), backend.systemMetadata(pid).getSerialVersion());
+  }
+
+  /**
+   * Changes of the system metadata move the object in the date and format indexes.
+   */
+  @Test
+  public void testFilterAfterUpdate() {
+    LinkedHashMap<Identifier, PersistedObject> data = Maps.newLinkedHashMap();
+    appendData(data, "index", "urn:node:1", "XML", 3);
+    InMemoryBackend backend = new InMemoryBackend(data);
+    NodeReference self = NodeReference.builder().withValue("urn:node:1").build();
+    sleep(1);
+    Date before = new Date();
+    sleep(1);
+
+    Identifier pid = Identifier.builder().withValue("index1").build();
+    backend.updateMetadata(null, pid, backend.systemMetadata(pid).newCopyBuilder()
+      .withFormatId("CSV")
+      .withDateSysMetadataModified(DATATYPE_FACTORY.newXMLGregorianCalendar(new GregorianCalendar()))
+      .build());
+
+    assertEquals(2, backend.filter(self, null, null, "XML", null, null, null).size());
+    assertEquals(1, backend.filter(self, null, null, "CSV", null, null, null).size());
+    assertEquals(3, backend.filter(self, null, null, null, null, null, null).size());
+    assertEquals(pid, backend.filter(self, before, null, null, null, null, null).get(0).getSysmeta().getIdentifier());
+    assertEquals(0, backend.filter(self, before, null, "XML", null, null, null).size());
+    // listed in modification order
+    assertEquals(pid, backend.filter(self, null, null, null, null, 2, 1).get(0).getSysmeta().getIdentifier());
+  }
+
+  /**
+   * Readers and writers of different objects work concurrently, and readers always see the complete content.
+   */
+  @Test
+  public void testConcurrentAccess() throws Exception {
+    concurrentAccess(new InMemoryBackend());
+  }
+
+  /**
+   * Same as {@link #testConcurrentAccess()} with the content off the heap, where reading an object being deleted
+   * races with the release of its content.
+   */
+  @Test
+  public void testConcurrentAccessOffHeap() throws Exception {
+    InMemoryBackend backend = new InMemoryBackend(64 * 1024, folder.getRoot().toPath().resolve("spill"));
+    try {
+      concurrentAccess(backend);
+    } finally {
+      backend.close();
+    }
+  }
+
+  private static void concurrentAccess(InMemoryBackend backend) throws Exception {
+    NodeReference self = NodeReference.builder().withValue("urn:node:1").build();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> tasks = Lists.newArrayList();
+      for (int t = 0; t < 8; t++) {
+        int thread = t;
+        tasks.add(executor.submit(() -> {
+          for (int i = 0; i < 200; i++) {
+            Identifier pid = Identifier.builder().withValue("thread" + thread + "-" + i).build();
+            byte[] content = pid.getValue().getBytes(StandardCharsets.UTF_8);
+            backend.create(null, pid, new ByteArrayInputStream(content),
+                           SystemMetadata.builder().withIdentifier(pid).build());
+            assertEquals(pid.getValue(), new String(ByteStreams.toByteArray(backend.get(pid)), StandardCharsets.UTF_8));
+            backend.listObjects(self, null, null, null, null, 0, 10);
+            // an object of another thread, which might be deleted meanwhile
+            String other = "thread" + (thread + 1) % 8 + "-" + i;
+            try (InputStream in = backend.get(Identifier.builder().withValue(other).build())) {
+              assertEquals(other, new String(ByteStreams.toByteArray(in), StandardCharsets.UTF_8));
+            } catch (NotFound expected) {
+              // not created yet, or deleted
+            }
+            if (i % 2 == 0) {
+              backend.delete(null, pid);
+            }
+          }
+          return null;
+        }));
+      }
+      for (Future<?> task : tasks) {
+        task.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(800, backend.filter(self, null, null, null, null, 0, 1000).size());
+  }
+
   private void appendData(LinkedHashMap<Identifier, PersistedObject> data, String prefix, String authoritativeMN,
     String formatId, int count) {
     for (int i = 0; i < count; i++) {
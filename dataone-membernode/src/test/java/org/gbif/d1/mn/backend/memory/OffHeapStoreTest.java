@@ -0,0 +1,142 @@
+package org.gbif.d1.mn.backend.memory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class OffHeapStoreTest {
+
+  private static final int CAPACITY = 256 * 1024;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testStore() throws IOException {
+    try (OffHeapStore store = new OffHeapStore(CAPACITY, folder.getRoot().toPath().resolve("spill"))) {
+      for (int size : new int[] {0, 1, 4096, 4097, 100000}) {
+        byte[] data = data(size);
+        // with and without the size known upfront
+        assertArrayEquals(data, read(store.store(new ByteArrayInputStream(data), size), 0, Long.MAX_VALUE));
+        assertArrayEquals(data, read(store.store(new ByteArrayInputStream(data), -1), 0, Long.MAX_VALUE));
+      }
+      byte[] data = data(100000);
+      Content content = store.store(new ByteArrayInputStream(data), data.length);
+      assertEquals(data.length, content.size());
+      // ranges across chunks
+      assertArrayEquals(slice(data, 4000, 20000), read(content, 4000, 20000));
+      assertArrayEquals(slice(data, 99990, 10), read(content, 99990, 100));
+      assertEquals(0, read(content, 200000, 10).length);
+    }
+  }
+
+  /**
+   * Content beyond the capacity is spilled to the file, and can still be read.
+   */
+  @Test
+  public void testSpill() throws IOException {
+    try (OffHeapStore store = new OffHeapStore(CAPACITY, folder.getRoot().toPath().resolve("spill"))) {
+      List<byte[]> data = Lists.newArrayList();
+      List<Content> contents = Lists.newArrayList();
+      for (int i = 0; i < 10; i++) {
+        data.add(data(50000));
+        contents.add(store.store(new ByteArrayInputStream(data.get(i)), 50000));
+        assertTrue("Slabs must stay within the capacity", store.getUsed() <= CAPACITY);
+      }
+      for (int i = 0; i < 10; i++) {
+        assertArrayEquals(data.get(i), read(contents.get(i), 0, Long.MAX_VALUE));
+        assertArrayEquals(slice(data.get(i), 1000, 10), read(contents.get(i), 1000, 10));
+      }
+      long used = store.getUsed();
+      contents.forEach(Content::release);
+      assertTrue(store.getUsed() < used || used == 0);
+    }
+  }
+
+  /**
+   * Slabs freed by one size class are not kept for it, so content of alternating sizes stays within the capacity.
+   */
+  @Test
+  public void testAlternatingSizeClasses() throws IOException {
+    try (OffHeapStore store = new OffHeapStore(CAPACITY, folder.getRoot().toPath().resolve("spill"))) {
+      for (int i = 0; i < 20; i++) {
+        int size = i % 2 == 0 ? 1000 : 60000;
+        List<Content> contents = Lists.newArrayList();
+        while (store.getUsed() + 64 * 1024 <= CAPACITY) {
+          contents.add(store.store(new ByteArrayInputStream(data(size)), size));
+        }
+        assertTrue("Slabs must stay within the capacity", store.getUsed() <= CAPACITY);
+        contents.forEach(Content::release);
+        assertEquals(0, store.getUsed());
+      }
+    }
+  }
+
+  /**
+   * Content that failed to store because spilling failed doesn't keep its chunks.
+   */
+  @Test
+  public void testSpillFailure() throws IOException {
+    OffHeapStore store = new OffHeapStore(CAPACITY, folder.getRoot().toPath().resolve("spill"));
+    while (store.getUsed() < CAPACITY) {
+      store.store(new ByteArrayInputStream(data(50000)), 50000);
+    }
+    long used = store.getUsed();
+    store.close();
+    try {
+      store.store(new ByteArrayInputStream(data(50000)), 50000);
+      fail("Spilling to a closed file must fail");
+    } catch (IOException expected) {
+      assertEquals(used, store.getUsed());
+    }
+  }
+
+  @Test
+  public void testRelease() throws IOException {
+    try (OffHeapStore store = new OffHeapStore(CAPACITY, folder.getRoot().toPath().resolve("spill"))) {
+      byte[] data = data(10000);
+      Content content = store.store(new ByteArrayInputStream(data), data.length);
+      InputStream open = content.open(0, Long.MAX_VALUE).get();
+      content.release();
+      // released content is not opened again, e.g. by a reader racing with the deletion
+      assertFalse(content.open(0, Long.MAX_VALUE).isPresent());
+      // open streams keep the chunks until closed
+      assertTrue(store.getUsed() > 0);
+      assertArrayEquals(data, ByteStreams.toByteArray(open));
+      open.close();
+      assertEquals(0, store.getUsed());
+    }
+  }
+
+  private static byte[] data(int size) {
+    byte[] data = new byte[size];
+    new Random(size).nextBytes(data);
+    return data;
+  }
+
+  private static byte[] slice(byte[] data, int offset, int length) {
+    byte[] slice = new byte[length];
+    System.arraycopy(data, offset, slice, 0, length);
+    return slice;
+  }
+
+  private static byte[] read(Content content, long offset, long length) throws IOException {
+    try (InputStream in = content.open(offset, length).get()) {
+      return ByteStreams.toByteArray(in);
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package org.gbif.d1.mn.client;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.ws.rs.client.Client;
+
+import com.google.common.base.Ticker;
+import io.dropwizard.util.Duration;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class MNReadClientsTest {
+
+  private static final String NODE1 = "https://node1.example.org/";
+  private static final String NODE2 = "https://node2.example.org/";
+
+  private final AtomicLong nanos = new AtomicLong();
+  private Client client;
+  private MNReadClients clients;
+
+  @Before
+  public void setup() {
+    client = mock(Client.class);
+    clients = new MNReadClients(client, Duration.minutes(10), new Ticker() {
+      @Override
+      public long read() {
+        return nanos.get();
+      }
+    });
+  }
+
+  /**
+   * A single instance per base URL, all built from the shared client.
+   */
+  @Test
+  public void testCachedPerBaseUrl() {
+    MNReadClient node1 = clients.get(NODE1);
+    assertSame(node1, clients.get(NODE1));
+    assertNotSame(node1, clients.get(NODE2));
+    assertEquals(2, clients.size());
+    verify(client, times(2)).target(anyString());
+  }
+
+  /**
+   * Instances not used for the idle timeout are built again, those in use are kept.
+   */
+  @Test
+  public void testIdleEviction() {
+    MNReadClient node1 = clients.get(NODE1);
+    MNReadClient node2 = clients.get(NODE2);
+    nanos.addAndGet(TimeUnit.MINUTES.toNanos(6));
+    assertSame(node2, clients.get(NODE2));
+    nanos.addAndGet(TimeUnit.MINUTES.toNanos(6));
+    assertSame(node2, clients.get(NODE2));
+    assertNotSame(node1, clients.get(NODE1));
+  }
+
+  @Test
+  public void testStop() {
+    clients.get(NODE1);
+    clients.stop();
+    assertEquals(0, clients.size());
+    verify(client).close();
+  }
+}
@@ -0,0 +1,175 @@
+package org.gbif.d1.mn.replication;
+
+import org.gbif.d1.mn.client.MNReadClient;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+
+import com.codahale.metrics.MetricRegistry;
+import org.dataone.ns.service.types.v1.Identifier;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the chunked download against an embedded Jetty server standing in for the source member node.
+ */
+public class ChunkedReplicaDownloaderTest {
+
+  private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+  private static final int CHUNK_SIZE = 1000;
+  private static final String NODE = "urn:node:source";
+  private static final Identifier PID = Identifier.builder().withValue("doi:10.1000/replica").build();
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private final byte[] content = new byte[10 * CHUNK_SIZE - 10];
+  // offset -> number of times the range starting at it has been served
+  private final ConcurrentMap<Long, AtomicInteger> served = new ConcurrentHashMap<>();
+  // offset of a range to fail once
+  private volatile long failOffset = -1;
+  // whether the node answers range requests with the whole replica
+  private volatile boolean ignoreRanges;
+  private final AtomicInteger servedWhole = new AtomicInteger();
+
+  private Server server;
+  private Client client;
+  private MNReadClient mnReadClient;
+
+  @Before
+  public void setUp() throws Exception {
+    new Random(42).nextBytes(content);
+    server = new Server(0);
+    server.setHandler(new AbstractHandler() {
+      @Override
+      public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response)
+        throws IOException {
+        baseRequest.setHandled(true);
+        Matcher range = RANGE.matcher(String.valueOf(request.getHeader("Range")));
+        if (target.equals("/mn/v1/replica/" + PID.getValue()) && (ignoreRanges || request.getHeader("Range") == null)) {
+          servedWhole.incrementAndGet();
+          response.setStatus(HttpServletResponse.SC_OK);
+          response.setContentLength(content.length);
+          response.getOutputStream().write(content);
+          return;
+        }
+        if (!target.equals("/mn/v1/replica/" + PID.getValue()) || !range.matches()) {
+          response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+          return;
+        }
+        long offset = Long.parseLong(range.group(1));
+        int end = (int) Math.min(Long.parseLong(range.group(2)), content.length - 1);
+        if (offset == failOffset) {
+          failOffset = -1;
+          response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+          return;
+        }
+        served.computeIfAbsent(offset, key -> new AtomicInteger()).incrementAndGet();
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setHeader("Content-Range", "bytes " + offset + '-' + end + '/' + content.length);
+        response.setContentLength(end - (int) offset + 1);
+        response.getOutputStream().write(content, (int) offset, end - (int) offset + 1);
+      }
+    });
+    server.start();
+    client = ClientBuilder.newClient();
+    mnReadClient = new MNReadClient(client, "http://localhost:" + ((ServerConnector) server.getConnectors()[0])
+      .getLocalPort() + '/');
+  }
+
+  private static BandwidthLimiter unlimited() {
+    return new BandwidthLimiter(0, 0, new MetricRegistry());
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    client.close();
+    server.stop();
+  }
+
+  /**
+   * Ensures all the chunks are downloaded and concatenated in order.
+   */
+  @Test
+  public void testDownload() throws Exception {
+    Path staging = folder.getRoot().toPath();
+    ChunkedReplicaDownloader downloader = new ChunkedReplicaDownloader(staging, CHUNK_SIZE, 3, 1, unlimited());
+    try {
+      assertArrayEquals(content, downloader.download(mnReadClient, NODE, PID, content.length).read());
+      assertEquals(10, served.size());
+      downloader.discard(PID);
+      try (Stream<Path> files = Files.list(staging)) {
+        assertFalse(files.findAny().isPresent());
+      }
+    } finally {
+      downloader.stop();
+    }
+  }
+
+  /**
+   * Ensures a failed download is resumed without downloading again the chunks already staged.
+   */
+  @Test
+  public void testResume() throws Exception {
+    ChunkedReplicaDownloader downloader = new ChunkedReplicaDownloader(folder.getRoot().toPath(), CHUNK_SIZE, 1, 1,
+                                                                         unlimited());
+    try {
+      failOffset = 5 * CHUNK_SIZE;
+      try {
+        downloader.download(mnReadClient, NODE, PID, content.length);
+        fail("Failed chunk not reported");
+      } catch (Exception expected) {
+        assertEquals(5, served.size());
+      }
+      assertArrayEquals(content, downloader.download(mnReadClient, NODE, PID, content.length).read());
+      assertEquals(10, served.size());
+      for (AtomicInteger count : served.values()) {
+        assertEquals(1, count.get());
+      }
+    } finally {
+      downloader.stop();
+    }
+  }
+
+  /**
+   * Ensures a node ignoring range requests is read once, instead of once per chunk.
+   */
+  @Test
+  public void testRangesIgnored() throws Exception {
+    ChunkedReplicaDownloader downloader = new ChunkedReplicaDownloader(folder.getRoot().toPath(), CHUNK_SIZE, 3, 1,
+                                                                         unlimited());
+    try {
+      ignoreRanges = true;
+      assertArrayEquals(content, downloader.download(mnReadClient, NODE, PID, content.length).read());
+      // one ignored range request per lane, then the single stream
+      assertTrue(servedWhole.get() <= 4);
+    } finally {
+      downloader.stop();
+    }
+  }
+}
@@ -0,0 +1,205 @@
+package org.gbif.d1.mn.replication;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import io.dropwizard.util.Duration;
+import io.dropwizard.util.Size;
+import org.dataone.ns.service.exceptions.InsufficientResources;
+import org.dataone.ns.service.types.v1.Identifier;
+import org.dataone.ns.service.types.v1.Node;
+import org.dataone.ns.service.types.v1.NodeReference;
+import org.dataone.ns.service.types.v1.Subject;
+import org.dataone.ns.service.types.v1.SystemMetadata;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReplicationEngineTest {
+
+  private static final Node SOURCE = Node.builder()
+                                       .withIdentifier(NodeReference.builder().withValue("urn:node:source").build())
+                                       .withBaseURL("http://localhost/")
+                                       .build();
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private static ReplicationTask task(String pid) {
+    return new ReplicationTask(Identifier.builder().withValue(pid).build(), SOURCE, null, "127.0.0.1", "test",
+                               Subject.builder().withValue("CN=test").build());
+  }
+
+  private static ReplicationTask task(String pid, long size) {
+    return new ReplicationTask(Identifier.builder().withValue(pid).build(), SOURCE,
+                               SystemMetadata.builder().withSize(BigInteger.valueOf(size)).build(), "127.0.0.1", "test",
+                               Subject.builder().withValue("CN=test").build());
+  }
+
+  private ReplicationJournal journal() {
+    return new ReplicationJournal(folder.getRoot().toPath().resolve("replication.journal"));
+  }
+
+  private static ReplicationConfiguration configuration(int queueCapacity) {
+    ReplicationConfiguration configuration = new ReplicationConfiguration();
+    configuration.setQueueCapacity(queueCapacity);
+    configuration.setMaxAttempts(3);
+    configuration.setInitialBackoff(Duration.milliseconds(1));
+    configuration.setMaxBackoff(Duration.milliseconds(10));
+    return configuration;
+  }
+
+  /**
+   * Ensures requests for a pending identifier are ignored and the queue bound is enforced.
+   */
+  @Test
+  public void testDuplicatesAndCapacity() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    ReplicationEngine engine = new ReplicationEngine(configuration(2), task -> release.await(), journal(),
+                                                     new MetricRegistry());
+    engine.start();
+    try {
+      assertTrue(engine.submit(task("1")));
+      assertFalse(engine.submit(task("1")));
+      assertTrue(engine.submit(task("2")));
+      try {
+        engine.submit(task("3"));
+        throw new AssertionError("Queue capacity not enforced");
+      } catch (InsufficientResources expected) {
+        assertEquals(2, engine.getPending());
+      }
+    } finally {
+      release.countDown();
+      engine.stop();
+    }
+    assertEquals(0, engine.getPending());
+  }
+
+  /**
+   * Ensures failed tasks are retried until they succeed.
+   */
+  @Test
+  public void testRetry() throws Exception {
+    AtomicInteger attempts = new AtomicInteger();
+    CountDownLatch done = new CountDownLatch(1);
+    ReplicationEngine engine = new ReplicationEngine(configuration(10), task -> {
+      if (attempts.incrementAndGet() < 3) {
+        throw new IllegalStateException("Source node unavailable");
+      }
+      done.countDown();
+    }, journal(), new MetricRegistry());
+    engine.start();
+    try {
+      engine.submit(task("1"));
+      assertTrue(done.await(5, TimeUnit.SECONDS));
+      assertEquals(3, attempts.get());
+    } finally {
+      engine.stop();
+    }
+  }
+
+  /**
+   * Ensures the replicator is told when a task is given up, so that it can delete what it kept for the next attempt.
+   */
+  @Test
+  public void testGiveUp() throws Exception {
+    AtomicInteger attempts = new AtomicInteger();
+    CountDownLatch abandoned = new CountDownLatch(1);
+    ReplicationEngine engine = new ReplicationEngine(configuration(10), new Replicator() {
+      @Override
+      public void replicate(ReplicationTask task) {
+        attempts.incrementAndGet();
+        throw new IllegalStateException("Source node unavailable");
+      }
+
+      @Override
+      public void abandon(ReplicationTask task) {
+        abandoned.countDown();
+      }
+    }, journal(), new MetricRegistry());
+    engine.start();
+    try {
+      engine.submit(task("1"));
+      assertTrue(abandoned.await(5, TimeUnit.SECONDS));
+      assertEquals(3, attempts.get());
+    } finally {
+      engine.stop();
+    }
+  }
+
+  /**
+   * Ensures tasks not completed when the engine stops are run again when it starts.
+   */
+  @Test
+  public void testRestart() throws Exception {
+    ReplicationConfiguration configuration = configuration(10);
+    configuration.setInitialBackoff(Duration.minutes(1));
+    ReplicationEngine engine = new ReplicationEngine(configuration, task -> {
+      throw new IllegalStateException("Source node unavailable");
+    }, journal(), new MetricRegistry());
+    engine.start();
+    engine.submit(task("1"));
+    engine.submit(task("2"));
+    engine.stop();
+
+    Set<String> replicated = Sets.newConcurrentHashSet();
+    CountDownLatch done = new CountDownLatch(2);
+    engine = new ReplicationEngine(configuration, task -> {
+      replicated.add(task.getIdentifier().getValue());
+      done.countDown();
+    }, journal(), new MetricRegistry());
+    engine.start();
+    try {
+      assertTrue(done.await(5, TimeUnit.SECONDS));
+      assertEquals(ImmutableSet.of("1", "2"), replicated);
+    } finally {
+      engine.stop();
+    }
+  }
+
+  /**
+   * Ensures queued tasks of small objects run before the ones of large objects accepted earlier, and that the delay
+   * of huge objects doesn't overflow.
+   */
+  @Test
+  public void testPriority() throws Exception {
+    ReplicationConfiguration configuration = configuration(10);
+    configuration.setWorkers(1);
+    configuration.setPrioritySizePerSecond(Size.kilobytes(1));
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(4);
+    List<String> replicated = Collections.synchronizedList(new ArrayList<>());
+    ReplicationEngine engine = new ReplicationEngine(configuration, task -> {
+      release.await();
+      replicated.add(task.getIdentifier().getValue());
+      done.countDown();
+    }, journal(), new MetricRegistry());
+    engine.start();
+    try {
+      // keeps the only worker busy while the other tasks are queued
+      engine.submit(task("running", 0));
+      engine.submit(task("huge", Long.MAX_VALUE));
+      engine.submit(task("large", 1024 * 1024));
+      engine.submit(task("small", 1024));
+      release.countDown();
+      assertTrue(done.await(5, TimeUnit.SECONDS));
+      assertEquals(ImmutableList.of("running", "small", "large", "huge"), replicated);
+    } finally {
+      engine.stop();
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package org.gbif.d1.mn.replication;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.dataone.ns.service.types.v1.Identifier;
+import org.dataone.ns.service.types.v1.Node;
+import org.dataone.ns.service.types.v1.NodeReference;
+import org.dataone.ns.service.types.v1.Subject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ReplicationJournalTest {
+
+  private static final Node SOURCE = Node.builder()
+                                       .withIdentifier(NodeReference.builder().withValue("urn:node:source").build())
+                                       .withBaseURL("http://localhost/")
+                                       .build();
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private static ReplicationTask task(String pid) {
+    return new ReplicationTask(Identifier.builder().withValue(pid).build(), SOURCE, null, "127.0.0.1", null,
+                               Subject.builder().withValue("CN=test\tTAB").build());
+  }
+
+  /**
+   * Ensures the tasks not completed are read back in order, and that a partially written line is ignored.
+   */
+  @Test
+  public void testReplay() throws Exception {
+    Path file = folder.getRoot().toPath().resolve("replication.journal");
+    try (ReplicationJournal journal = new ReplicationJournal(file)) {
+      assertTrue(journal.open().isEmpty());
+      journal.accepted(task("1"));
+      journal.accepted(task("2"));
+      journal.accepted(task("3"));
+      journal.completed(task("2"));
+    }
+    Files.write(file, "A\tMQ".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+    try (ReplicationJournal journal = new ReplicationJournal(file)) {
+      List<ReplicationTask> tasks = journal.open();
+      assertEquals(2, tasks.size());
+      assertEquals("1", tasks.get(0).getIdentifier().getValue());
+      assertEquals("3", tasks.get(1).getIdentifier().getValue());
+      assertEquals(SOURCE.getBaseURL(), tasks.get(0).getSourceNode().getBaseURL());
+      assertEquals("CN=test\tTAB", tasks.get(0).getSubject().getValue());
+      assertNull(tasks.get(0).getUserAgent());
+    }
+  }
+
+  /**
+   * Ensures replayed tasks keep the time they were accepted, and that lines without it are still read.
+   */
+  @Test
+  public void testReplayAccepted() throws Exception {
+    Path file = folder.getRoot().toPath().resolve("replication.journal");
+    ReplicationTask task = new ReplicationTask(Identifier.builder().withValue("1").build(), SOURCE, null, null, null,
+                                               null, 1000L);
+    try (ReplicationJournal journal = new ReplicationJournal(file)) {
+      journal.open();
+      journal.accepted(task);
+    }
+    // an entry journaled before the accepted time was recorded
+    Files.write(file, "A\tMg\tdXJuOm5vZGU6c291cmNl\t\t\t\t\t\n".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+    long before = System.currentTimeMillis();
+    try (ReplicationJournal journal = new ReplicationJournal(file)) {
+      List<ReplicationTask> tasks = journal.open();
+      assertEquals(2, tasks.size());
+      assertEquals(1000L, tasks.get(0).getAccepted());
+      assertEquals("2", tasks.get(1).getIdentifier().getValue());
+      assertTrue(tasks.get(1).getAccepted() >= before);
+    }
+  }
+
+  /**
+   * Ensures the journal is emptied once all the tasks have completed.
+   */
+  @Test
+  public void testCompaction() throws Exception {
+    Path file = folder.getRoot().toPath().resolve("replication.journal");
+    try (ReplicationJournal journal = new ReplicationJournal(file)) {
+      journal.open();
+      journal.accepted(task("1"));
+      journal.completed(task("1"));
+    }
+    assertEquals(0, Files.size(file));
+  }
+}
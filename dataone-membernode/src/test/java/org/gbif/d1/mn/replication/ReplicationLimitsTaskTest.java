@@ -0,0 +1,51 @@
+package org.gbif.d1.mn.replication;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableMultimap;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReplicationLimitsTaskTest {
+
+  private static String execute(ReplicationLimitsTask task, ImmutableMultimap<String, String> parameters) {
+    StringWriter output = new StringWriter();
+    task.execute(parameters, new PrintWriter(output));
+    return output.toString();
+  }
+
+  /**
+   * Ensures the limits are changed by valid parameters.
+   */
+  @Test
+  public void testExecute() {
+    BandwidthLimiter limiter = new BandwidthLimiter(0, 0, new MetricRegistry());
+    ReplicationLimitsTask task = new ReplicationLimitsTask(limiter);
+    execute(task, ImmutableMultimap.of("global", "2048", "rate", "1024"));
+    execute(task, ImmutableMultimap.of("node", "urn:node:KNB", "rate", "512"));
+    assertEquals(2048, limiter.getGlobalRate());
+    assertEquals(1024, limiter.getNodeRate());
+    assertEquals(512L, (long) limiter.getNodeRates().get("urn:node:KNB"));
+
+    execute(task, ImmutableMultimap.of("node", "urn:node:KNB", "rate", "default"));
+    assertTrue(limiter.getNodeRates().isEmpty());
+  }
+
+  /**
+   * Ensures invalid parameters are reported without changing any limit.
+   */
+  @Test
+  public void testInvalid() {
+    BandwidthLimiter limiter = new BandwidthLimiter(0, 0, new MetricRegistry());
+    ReplicationLimitsTask task = new ReplicationLimitsTask(limiter);
+    assertTrue(execute(task, ImmutableMultimap.of("global", "2048", "rate", "default")).startsWith("Error:"));
+    assertTrue(execute(task, ImmutableMultimap.of("rate", "1MB")).startsWith("Error:"));
+    assertTrue(execute(task, ImmutableMultimap.of("global", "fast")).startsWith("Error:"));
+    assertEquals(0, limiter.getGlobalRate());
+    assertEquals(0, limiter.getNodeRate());
+  }
+}
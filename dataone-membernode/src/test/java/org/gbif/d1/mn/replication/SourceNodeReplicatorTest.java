@@ -0,0 +1,85 @@
+package org.gbif.d1.mn.replication;
+
+import org.gbif.d1.mn.backend.memory.InMemoryBackend;
+import org.gbif.d1.mn.client.MNReadClient;
+import org.gbif.d1.mn.client.MNReadClients;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+import com.codahale.metrics.MetricRegistry;
+import org.dataone.ns.service.exceptions.IdentifierNotUnique;
+import org.dataone.ns.service.types.v1.Checksum;
+import org.dataone.ns.service.types.v1.Identifier;
+import org.dataone.ns.service.types.v1.Node;
+import org.dataone.ns.service.types.v1.NodeReference;
+import org.dataone.ns.service.types.v1.Subject;
+import org.dataone.ns.service.types.v1.SystemMetadata;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SourceNodeReplicatorTest {
+
+  private static final Node SOURCE = Node.builder()
+                                       .withIdentifier(NodeReference.builder().withValue("urn:node:source").build())
+                                       .withBaseURL("http://localhost/")
+                                       .build();
+  private static final Identifier PID = Identifier.builder().withValue("pid-1").build();
+  private static final byte[] CONTENT = "content".getBytes(StandardCharsets.UTF_8);
+
+  private InMemoryBackend backend;
+  private MNReadClient client;
+  private SourceNodeReplicator replicator;
+
+  @Before
+  public void setup() {
+    backend = new InMemoryBackend();
+    client = mock(MNReadClient.class);
+    MNReadClients clients = mock(MNReadClients.class);
+    when(clients.get(SOURCE.getBaseURL())).thenReturn(client);
+    ChunkedReplicaDownloader downloader = mock(ChunkedReplicaDownloader.class);
+    when(downloader.getChunkSize()).thenReturn(1024L);
+    replicator = new SourceNodeReplicator(clients, downloader, new BandwidthLimiter(0, 0, new MetricRegistry()),
+                                          backend);
+  }
+
+  /**
+   * An object stored by a previous attempt is not replicated again.
+   */
+  @Test
+  public void testStoredByPreviousAttempt() throws Exception {
+    SystemMetadata sysmeta = sysmeta("040f06fd774092478d450774f5ba30c5da78acc8");
+    backend.create(null, PID, new ByteArrayInputStream(CONTENT), sysmeta);
+    when(client.get(PID)).thenReturn(new ByteArrayInputStream(CONTENT));
+    replicator.replicate(task(sysmeta));
+  }
+
+  /**
+   * A different object already stored with the identifier fails the replication.
+   */
+  @Test(expected = IdentifierNotUnique.class)
+  public void testDifferentObjectStored() throws Exception {
+    backend.create(null, PID, new ByteArrayInputStream(new byte[0]),
+                   sysmeta("da39a3ee5e6b4b0d3255bfef95601890afd80709").newCopyBuilder()
+                     .withSize(BigInteger.ZERO).build());
+    when(client.get(PID)).thenReturn(new ByteArrayInputStream(CONTENT));
+    replicator.replicate(task(sysmeta("040f06fd774092478d450774f5ba30c5da78acc8")));
+  }
+
+  private static SystemMetadata sysmeta(String sha1) {
+    return SystemMetadata.builder()
+      .withIdentifier(PID)
+      .withChecksum(Checksum.builder().withAlgorithm("SHA-1").withValue(sha1).build())
+      .withSize(BigInteger.valueOf(CONTENT.length))
+      .build();
+  }
+
+  private static ReplicationTask task(SystemMetadata sysmeta) {
+    return new ReplicationTask(PID, SOURCE, sysmeta, "127.0.0.1", "test",
+                               Subject.builder().withValue("CN=test").build());
+  }
+}
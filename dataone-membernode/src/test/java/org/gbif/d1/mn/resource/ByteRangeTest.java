@@ -0,0 +1,59 @@
+package org.gbif.d1.mn.resource;
+
+import java.util.Date;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ByteRangeTest {
+
+  private static final long SIZE = 1000;
+
+  @Test
+  public void testParse() {
+    ByteRange range = ByteRange.parse("bytes=0-99", SIZE).get();
+    assertEquals(0, range.getOffset());
+    assertEquals(100, range.getLength());
+    assertEquals("bytes 0-99/1000", range.contentRange());
+
+    // open and past the end ranges are truncated to the object
+    assertEquals("bytes 900-999/1000", ByteRange.parse("bytes=900-", SIZE).get().contentRange());
+    assertEquals("bytes 900-999/1000", ByteRange.parse("bytes=900-5000", SIZE).get().contentRange());
+    // suffix ranges
+    assertEquals("bytes 990-999/1000", ByteRange.parse("bytes=-10", SIZE).get().contentRange());
+    assertEquals("bytes 0-999/1000", ByteRange.parse("bytes=-5000", SIZE).get().contentRange());
+  }
+
+  @Test
+  public void testUnsatisfiable() {
+    assertFalse(ByteRange.parse("bytes=1000-", SIZE).get().isSatisfiable());
+    assertFalse(ByteRange.parse("bytes=-0", SIZE).get().isSatisfiable());
+    assertEquals("bytes */1000", ByteRange.parse("bytes=2000-3000", SIZE).get().contentRange());
+  }
+
+  /**
+   * Ensures the whole object is returned for absent, invalid and multiple ranges.
+   */
+  @Test
+  public void testIgnored() {
+    assertFalse(ByteRange.parse(null, SIZE).isPresent());
+    assertFalse(ByteRange.parse("bytes=-", SIZE).isPresent());
+    assertFalse(ByteRange.parse("bytes=100-10", SIZE).isPresent());
+    assertFalse(ByteRange.parse("bytes=0-10,20-30", SIZE).isPresent());
+    assertFalse(ByteRange.parse("items=0-10", SIZE).isPresent());
+  }
+
+  @Test
+  public void testIfRange() {
+    Date modified = new Date(1445412480000L);
+    assertTrue(ByteRange.ifRangeMatches(null, null, modified));
+    assertTrue(ByteRange.ifRangeMatches("Wed, 21 Oct 2015 07:28:00 GMT", null, modified));
+    assertFalse(ByteRange.ifRangeMatches("Wed, 21 Oct 2015 07:28:01 GMT", null, modified));
+    assertTrue(ByteRange.ifRangeMatches("\"abc\"", "\"abc\"", modified));
+    assertFalse(ByteRange.ifRangeMatches("\"abc\"", null, modified));
+    assertFalse(ByteRange.ifRangeMatches("W/\"abc\"", "W/\"abc\"", modified));
+  }
+}
@@ -0,0 +1,40 @@
+package org.gbif.d1.mn.resource;
+
+import org.gbif.d1.mn.backend.MNBackend;
+
+import java.math.BigInteger;
+
+import org.dataone.ns.service.apis.v1.cn.CoordinatingNode;
+import org.dataone.ns.service.types.v1.Identifier;
+import org.dataone.ns.service.types.v1.Session;
+import org.dataone.ns.service.types.v1.Subject;
+import org.dataone.ns.service.types.v1.SystemMetadata;
+import org.junit.Test;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DirtyMetadataListenerTest {
+
+  /**
+   * The system metadata of the coordinating node is stored as it is, not as a change of the stored one.
+   */
+  @Test
+  public void testUpdateMetadata() {
+    Identifier pid = Identifier.builder().withValue("pid").build();
+    Session session = Session.builder().withSubject(Subject.builder().withValue("CN=cn").build()).build();
+    SystemMetadata authoritative = SystemMetadata.builder().withIdentifier(pid)
+      .withSerialVersion(BigInteger.valueOf(5)).build();
+    CoordinatingNode cn = mock(CoordinatingNode.class);
+    when(cn.getSystemMetadata(pid)).thenReturn(authoritative);
+    MNBackend backend = mock(MNBackend.class);
+
+    new DirtyMetadataListener(cn, backend)
+      .updateMetadata(new DirtyMetadataListener.SystemMetadataChangeEvent(pid, session, null));
+    verify(backend).synchronizeMetadata(session, pid, authoritative);
+    verify(backend, never()).updateMetadata(any(Session.class), any(Identifier.class), any(SystemMetadata.class));
+  }
+}
@@ -0,0 +1,43 @@
+package org.gbif.d1.mn.resource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class FileChannelOutputTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testWrite() throws IOException {
+    File file = folder.newFile();
+    Files.write(file.toPath(), "0123456789".getBytes(StandardCharsets.UTF_8));
+
+    assertEquals("0123456789", write(file, 0, Long.MAX_VALUE));
+    assertEquals("345", write(file, 3, 3));
+    // ranges past the end are truncated to the file
+    assertEquals("89", write(file, 8, 100));
+
+    FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    new FileChannelOutput(channel, 0, 1, null).write(new ByteArrayOutputStream());
+    assertFalse("Channel must be closed once written", channel.isOpen());
+  }
+
+  private static String write(File file, long offset, long length) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new FileChannelOutput(FileChannel.open(file.toPath(), StandardOpenOption.READ), offset, length, null).write(out);
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,108 @@
+package org.gbif.d1.mn.resource;
+
+import org.gbif.d1.mn.auth.AuthorizationManager;
+import org.gbif.d1.mn.backend.memory.InMemoryBackend;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigInteger;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.GregorianCalendar;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.xml.datatype.DatatypeFactory;
+
+import org.dataone.ns.service.types.v1.Checksum;
+import org.dataone.ns.service.types.v1.Identifier;
+import org.dataone.ns.service.types.v1.Session;
+import org.dataone.ns.service.types.v1.Subject;
+import org.dataone.ns.service.types.v1.SystemMetadata;
+import org.glassfish.jersey.internal.MapPropertiesDelegate;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * The system metadata document is served as XML or JSON, so it is validated by a weak entity tag varying on Accept.
+ */
+public class MetaResourceTest {
+
+  private static final Identifier PID = Identifier.builder().withValue("pid-1").build();
+  private static final byte[] CONTENT = "content".getBytes(StandardCharsets.UTF_8);
+  private static final String SHA1 = "040f06fd774092478d450774f5ba30c5da78acc8";
+  private static final EntityTag ETAG = new EntityTag("SHA-1:" + SHA1 + ":3", true);
+  private static final Session SESSION = Session.builder().withSubject(Subject.builder().withValue("public").build())
+    .build();
+
+  private InMemoryBackend backend;
+  private MetaResource resource;
+
+  @Before
+  public void setup() throws Exception {
+    backend = new InMemoryBackend();
+    backend.create(SESSION, PID, new ByteArrayInputStream(CONTENT), SystemMetadata.builder()
+      .withIdentifier(PID)
+      .withFormatId("text/plain")
+      .withChecksum(Checksum.builder().withAlgorithm("SHA-1").withValue(SHA1).build())
+      .withSize(BigInteger.valueOf(CONTENT.length))
+      .withSerialVersion(BigInteger.valueOf(3))
+      .withDateSysMetadataModified(DatatypeFactory.newInstance().newXMLGregorianCalendar(new GregorianCalendar()))
+      .build());
+    resource = new MetaResource(mock(AuthorizationManager.class), backend);
+  }
+
+  @After
+  public void tearDown() {
+    backend.close();
+  }
+
+  @Test
+  public void testWeakEtag() {
+    for (String accept : new String[] {MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON}) {
+      Response response = get(request(HttpHeaders.ACCEPT, accept));
+      assertEquals(200, response.getStatus());
+      assertEquals(ETAG, response.getEntityTag());
+      assertTrue(response.getEntityTag().isWeak());
+      assertEquals(HttpHeaders.ACCEPT, response.getHeaderString(HttpHeaders.VARY));
+    }
+  }
+
+  @Test
+  public void testNotModified() {
+    Response response = get(request(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON,
+                                    HttpHeaders.IF_NONE_MATCH, "W/\"SHA-1:" + SHA1 + ":3\""));
+    assertEquals(304, response.getStatus());
+    assertEquals(ETAG, response.getEntityTag());
+    assertEquals(HttpHeaders.ACCEPT, response.getHeaderString(HttpHeaders.VARY));
+  }
+
+  @Test
+  public void testModified() {
+    Response response = get(request(HttpHeaders.IF_NONE_MATCH, "W/\"SHA-1:" + SHA1 + ":2\""));
+    assertEquals(200, response.getStatus());
+  }
+
+  private Response get(ContainerRequest request) {
+    return resource.getSystemMetadata(SESSION, PID, request, request);
+  }
+
+  /**
+   * @param headers names and values of the request headers
+   */
+  private static ContainerRequest request(String... headers) {
+    ContainerRequest request = new ContainerRequest(URI.create("http://localhost/"),
+                                                    URI.create("http://localhost/mn/v1/meta/" + PID.getValue()),
+                                                    "GET", null, new MapPropertiesDelegate());
+    for (int i = 0; i < headers.length; i += 2) {
+      request.header(headers[i], headers[i + 1]);
+    }
+    return request;
+  }
+}
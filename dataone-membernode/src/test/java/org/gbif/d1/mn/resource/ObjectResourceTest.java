@@ -0,0 +1,160 @@
+package org.gbif.d1.mn.resource;
+
+import org.gbif.d1.mn.auth.AuthorizationManager;
+import org.gbif.d1.mn.backend.memory.InMemoryBackend;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.GregorianCalendar;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.xml.datatype.DatatypeFactory;
+
+import com.google.common.io.ByteStreams;
+import org.dataone.ns.service.types.v1.Checksum;
+import org.dataone.ns.service.types.v1.Identifier;
+import org.dataone.ns.service.types.v1.Session;
+import org.dataone.ns.service.types.v1.Subject;
+import org.dataone.ns.service.types.v1.SystemMetadata;
+import org.glassfish.jersey.internal.MapPropertiesDelegate;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+
+/**
+ * The conditional and Range headers of object reads, answered from the system metadata.
+ */
+public class ObjectResourceTest {
+
+  private static final Identifier PID = Identifier.builder().withValue("pid-1").build();
+  private static final byte[] CONTENT = "content".getBytes(StandardCharsets.UTF_8);
+  private static final String SHA1 = "040f06fd774092478d450774f5ba30c5da78acc8";
+  private static final String ETAG = "\"SHA-1:" + SHA1 + ":3\"";
+  private static final Session SESSION = Session.builder().withSubject(Subject.builder().withValue("public").build())
+    .build();
+
+  private InMemoryBackend backend;
+  private ObjectResource resource;
+
+  @Before
+  public void setup() throws Exception {
+    backend = new InMemoryBackend();
+    backend.create(SESSION, PID, new ByteArrayInputStream(CONTENT), sysmeta());
+    resource = new ObjectResource(mock(AuthorizationManager.class), backend);
+  }
+
+  @After
+  public void tearDown() {
+    backend.close();
+  }
+
+  /**
+   * The entity tag is the checksum and serial version of the system metadata, strong.
+   */
+  @Test
+  public void testEtag() throws IOException {
+    Response response = get(request());
+    assertEquals(200, response.getStatus());
+    assertEquals(new EntityTag("SHA-1:" + SHA1 + ":3"), response.getEntityTag());
+    assertFalse(response.getEntityTag().isWeak());
+    assertArrayEquals(CONTENT, read(response));
+  }
+
+  @Test
+  public void testNotModified() {
+    Response response = get(request(HttpHeaders.IF_NONE_MATCH, ETAG));
+    assertEquals(304, response.getStatus());
+    assertEquals(new EntityTag("SHA-1:" + SHA1 + ":3"), response.getEntityTag());
+    assertNull(response.getEntity());
+  }
+
+  @Test
+  public void testModified() throws IOException {
+    Response response = get(request(HttpHeaders.IF_NONE_MATCH, "\"SHA-1:" + SHA1 + ":2\""));
+    assertEquals(200, response.getStatus());
+    assertArrayEquals(CONTENT, read(response));
+  }
+
+  @Test
+  public void testPreconditionFailed() {
+    assertEquals(412, get(request(HttpHeaders.IF_MATCH, "\"SHA-1:" + SHA1 + ":2\"")).getStatus());
+  }
+
+  /**
+   * The range is served while the entity tag of If-Range still matches.
+   */
+  @Test
+  public void testIfRangeMatches() throws IOException {
+    Response response = get(request(HttpHeaders.RANGE, "bytes=1-3", HttpHeaders.IF_RANGE, ETAG));
+    assertEquals(206, response.getStatus());
+    assertEquals("bytes 1-3/7", response.getHeaderString("Content-Range"));
+    assertArrayEquals("ont".getBytes(StandardCharsets.UTF_8), read(response));
+  }
+
+  /**
+   * The whole object is served once the object changed since the range was requested.
+   */
+  @Test
+  public void testIfRangeChanged() throws IOException {
+    Response response = get(request(HttpHeaders.RANGE, "bytes=1-3",
+                                    HttpHeaders.IF_RANGE, "\"SHA-1:" + SHA1 + ":2\""));
+    assertEquals(200, response.getStatus());
+    assertArrayEquals(CONTENT, read(response));
+  }
+
+  /**
+   * Weak entity tags are never used for ranges.
+   */
+  @Test
+  public void testIfRangeWeak() throws IOException {
+    Response response = get(request(HttpHeaders.RANGE, "bytes=1-3", HttpHeaders.IF_RANGE, "W/" + ETAG));
+    assertEquals(200, response.getStatus());
+    assertArrayEquals(CONTENT, read(response));
+  }
+
+  private Response get(ContainerRequest request) {
+    return resource.get(SESSION, PID, request, request);
+  }
+
+  private static SystemMetadata sysmeta() throws Exception {
+    return SystemMetadata.builder()
+      .withIdentifier(PID)
+      .withFormatId("text/plain")
+      .withChecksum(Checksum.builder().withAlgorithm("SHA-1").withValue(SHA1).build())
+      .withSize(BigInteger.valueOf(CONTENT.length))
+      .withSerialVersion(BigInteger.valueOf(3))
+      .withDateSysMetadataModified(DatatypeFactory.newInstance().newXMLGregorianCalendar(new GregorianCalendar()))
+      .build();
+  }
+
+  /**
+   * @param headers names and values of the request headers
+   */
+  private static ContainerRequest request(String... headers) {
+    ContainerRequest request = new ContainerRequest(URI.create("http://localhost/"),
+                                                    URI.create("http://localhost/mn/v1/object/" + PID.getValue()),
+                                                    "GET", null, new MapPropertiesDelegate());
+    for (int i = 0; i < headers.length; i += 2) {
+      request.header(headers[i], headers[i + 1]);
+    }
+    return request;
+  }
+
+  private static byte[] read(Response response) throws IOException {
+    try (InputStream in = (InputStream) response.getEntity()) {
+      return ByteStreams.toByteArray(in);
+    }
+  }
+}